@@ -38,7 +38,9 @@ create table if not exists post
     createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
     updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
     isDelete   tinyint  default 0                 not null comment '是否删除',
-    index idx_userId (userId)
+    index idx_userId_createTime (userId, createTime, id),
+    index idx_createTime_id (createTime, id),
+    index idx_updateTime_id (updateTime, id)
 ) comment '帖子' collate = utf8mb4_unicode_ci;
 
 -- 帖子点赞表（硬删除）
@@ -49,8 +51,8 @@ create table if not exists post_thumb
     userId     bigint                             not null comment '创建用户 id',
     createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
     updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
-    index idx_postId (postId),
-    index idx_userId (userId)
+    unique key uk_userId_postId (userId, postId),
+    index idx_postId (postId)
 ) comment '帖子点赞';
 
 -- 帖子收藏表（硬删除）
@@ -61,6 +63,71 @@ create table if not exists post_favour
     userId     bigint                             not null comment '创建用户 id',
     createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
     updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
-    index idx_postId (postId),
-    index idx_userId (userId)
+    unique key uk_userId_postId (userId, postId),
+    index idx_postId (postId)
 ) comment '帖子收藏';
+
+-- 帖子标签表（硬删除，与 post.tags 同步维护，用于按标签筛选）
+create table if not exists post_tag
+(
+    id         bigint auto_increment comment 'id' primary key,
+    postId     bigint                             not null comment '帖子 id',
+    tag        varchar(256)                       not null comment '标签',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    unique key uk_tag_postId (tag, postId),
+    index idx_postId (postId)
+) comment '帖子标签' collate = utf8mb4_unicode_ci;
+
+-- 帖子变更事件表（事务性发件箱，分发成功后删除）
+create table if not exists post_outbox
+(
+    id         bigint auto_increment comment 'id' primary key,
+    postId     bigint                             not null comment '帖子 id',
+    eventType  varchar(16)                        not null comment '变更类型：add/update/delete/counter',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间'
+) comment '帖子变更事件' collate = utf8mb4_unicode_ci;
+
+-- 同步位点表
+create table if not exists sync_checkpoint
+(
+    name          varchar(128)                       not null comment '同步任务名' primary key,
+    watermarkTime datetime                           not null comment '已处理到的更新时间',
+    watermarkId   bigint   default 0                 not null comment '已处理到的 id（同一更新时间内）',
+    updateTime    datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间'
+) comment '同步位点' collate = utf8mb4_unicode_ci;
+
+-- 文件对象表（同一业务按内容去重）
+create table if not exists file_object
+(
+    id         bigint auto_increment comment 'id' primary key,
+    biz        varchar(128)                       not null comment '业务类型',
+    sha256     char(64)                           not null comment '文件内容 SHA-256',
+    fileKey    varchar(512)                       not null comment '对象存储路径',
+    fileSize   bigint                             not null comment '文件大小',
+    createTime datetime default CURRENT_TIMESTAMP not null comment '创建时间',
+    updateTime datetime default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
+    unique key uk_biz_sha256 (biz, sha256)
+) comment '文件对象' collate = utf8mb4_unicode_ci;
+
+-- 已有库升级：点赞、收藏关系改为 userId + postId 唯一（须先清理重复数据）
+-- alter table post_thumb drop index idx_userId, add unique key uk_userId_postId (userId, postId);
+-- alter table post_favour drop index idx_userId, add unique key uk_userId_postId (userId, postId);
+
+-- 已有库升级：文件去重按业务隔离，业务类型从旧路径 /业务/用户 id/文件名 回填（保留已有记录）
+-- alter table file_object add column biz varchar(128) not null default '' comment '业务类型' after id;
+-- update file_object set biz = substring_index(substring_index(fileKey, '/', 2), '/', -1) where biz = '';
+-- alter table file_object alter column biz drop default, drop column refCount,
+--     drop index uk_sha256, drop index idx_fileKey, add unique key uk_biz_sha256 (biz, sha256);
+
+-- 已有库升级：帖子游标分页联合索引
+-- alter table post drop index idx_userId, add index idx_userId_createTime (userId, createTime, id),
+--     add index idx_createTime_id (createTime, id), add index idx_updateTime_id (updateTime, id);
+
+-- 已有库升级：创建 post_tag 表后执行一次 job/once/BackfillPostTag 回填历史帖子的标签
+
+-- 已有库升级：发件箱与帖子写入同一事务、批量点赞收藏的 for update 依赖 InnoDB，MyISAM 表须转换
+-- alter table post engine = InnoDB;
+-- alter table post_thumb engine = InnoDB, row_format = dynamic;
+-- alter table post_favour engine = InnoDB, row_format = dynamic;
+-- alter table post_tag engine = InnoDB;
+-- alter table sync_checkpoint engine = InnoDB;
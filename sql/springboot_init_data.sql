@@ -17,6 +17,22 @@
 SET NAMES utf8mb4;
 SET FOREIGN_KEY_CHECKS = 0;
 
+-- ----------------------------
+-- Table structure for file_object
+-- ----------------------------
+DROP TABLE IF EXISTS `file_object`;
+CREATE TABLE `file_object`  (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT 'id',
+  `biz` varchar(128) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL COMMENT '业务类型',
+  `sha256` char(64) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL COMMENT '文件内容 SHA-256',
+  `fileKey` varchar(512) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL COMMENT '对象存储路径',
+  `fileSize` bigint(20) NOT NULL COMMENT '文件大小',
+  `createTime` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `updateTime` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_biz_sha256`(`biz`, `sha256`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8 COLLATE = utf8_general_ci COMMENT = '文件对象' ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for post
 -- ----------------------------
@@ -33,8 +49,10 @@ CREATE TABLE `post`  (
   `updateTime` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `isDelete` tinyint(4) NOT NULL DEFAULT 0 COMMENT '是否删除',
   PRIMARY KEY (`id`) USING BTREE,
-  INDEX `idx_userId`(`userId`) USING BTREE
-) ENGINE = MyISAM AUTO_INCREMENT = 1873637948159688706 CHARACTER SET = utf8 COLLATE = utf8_general_ci COMMENT = '帖子' ROW_FORMAT = Dynamic;
+  INDEX `idx_userId_createTime`(`userId`, `createTime`, `id`) USING BTREE,
+  INDEX `idx_createTime_id`(`createTime`, `id`) USING BTREE,
+  INDEX `idx_updateTime_id`(`updateTime`, `id`) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 1873637948159688706 CHARACTER SET = utf8 COLLATE = utf8_general_ci COMMENT = '帖子' ROW_FORMAT = Dynamic;
 
 -- ----------------------------
 -- Records of post
@@ -61,9 +79,9 @@ CREATE TABLE `post_favour`  (
   `createTime` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `updateTime` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`) USING BTREE,
-  INDEX `idx_postId`(`postId`) USING BTREE,
-  INDEX `idx_userId`(`userId`) USING BTREE
-) ENGINE = MyISAM AUTO_INCREMENT = 19 CHARACTER SET = utf8 COLLATE = utf8_unicode_ci COMMENT = '帖子收藏' ROW_FORMAT = Fixed;
+  UNIQUE INDEX `uk_userId_postId`(`userId`, `postId`) USING BTREE,
+  INDEX `idx_postId`(`postId`) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 19 CHARACTER SET = utf8 COLLATE = utf8_unicode_ci COMMENT = '帖子收藏' ROW_FORMAT = Dynamic;
 
 -- ----------------------------
 -- Records of post_favour
@@ -75,6 +93,51 @@ INSERT INTO `post_favour` VALUES (15, 1873623852404178946, 1872960463587885057,
 INSERT INTO `post_favour` VALUES (14, 1873623578704871425, 1872960463587885057, '2024-12-30 15:30:30', '2024-12-30 15:30:30');
 INSERT INTO `post_favour` VALUES (18, 1873623510975250434, 1872960463587885057, '2024-12-30 17:01:30', '2024-12-30 17:01:30');
 
+-- ----------------------------
+-- Table structure for post_outbox
+-- ----------------------------
+DROP TABLE IF EXISTS `post_outbox`;
+CREATE TABLE `post_outbox`  (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT 'id',
+  `postId` bigint(20) NOT NULL COMMENT '帖子 id',
+  `eventType` varchar(16) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL COMMENT '变更类型：add/update/delete/counter',
+  `createTime` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8 COLLATE = utf8_general_ci COMMENT = '帖子变更事件' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Table structure for post_tag
+-- ----------------------------
+DROP TABLE IF EXISTS `post_tag`;
+CREATE TABLE `post_tag`  (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT 'id',
+  `postId` bigint(20) NOT NULL COMMENT '帖子 id',
+  `tag` varchar(256) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL COMMENT '标签',
+  `createTime` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_tag_postId`(`tag`, `postId`) USING BTREE,
+  INDEX `idx_postId`(`postId`) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 16 CHARACTER SET = utf8 COLLATE = utf8_general_ci COMMENT = '帖子标签' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Records of post_tag
+-- ----------------------------
+INSERT INTO `post_tag` VALUES (1, 1873352784884043777, 'java', '2024-12-29 20:58:03');
+INSERT INTO `post_tag` VALUES (2, 1873352784884043777, 'python', '2024-12-29 20:58:03');
+INSERT INTO `post_tag` VALUES (3, 1873352814877511681, 'java', '2024-12-29 20:58:10');
+INSERT INTO `post_tag` VALUES (4, 1873352814877511681, 'python', '2024-12-29 20:58:10');
+INSERT INTO `post_tag` VALUES (5, 1873623422735482882, 'go', '2024-12-30 14:53:28');
+INSERT INTO `post_tag` VALUES (6, 1873623510975250434, 'C', '2024-12-30 14:53:49');
+INSERT INTO `post_tag` VALUES (7, 1873623578704871425, 'C++', '2024-12-30 14:54:06');
+INSERT INTO `post_tag` VALUES (8, 1873623578704871425, 'C', '2024-12-30 14:54:06');
+INSERT INTO `post_tag` VALUES (9, 1873623578704871425, 'Linux', '2024-12-30 14:54:06');
+INSERT INTO `post_tag` VALUES (10, 1873623824147152898, 'Linux', '2024-12-30 14:55:04');
+INSERT INTO `post_tag` VALUES (11, 1873623852404178946, 'Linux', '2024-12-30 14:55:11');
+INSERT INTO `post_tag` VALUES (12, 1873623854874624001, 'Linux', '2024-12-30 14:55:11');
+INSERT INTO `post_tag` VALUES (13, 1873637948159688705, 'ww', '2024-12-30 15:51:12');
+INSERT INTO `post_tag` VALUES (14, 1873637948159688705, 'ss', '2024-12-30 15:51:12');
+INSERT INTO `post_tag` VALUES (15, 1873637948159688705, 'aa', '2024-12-30 15:51:12');
+
 -- ----------------------------
 -- Table structure for post_thumb
 -- ----------------------------
@@ -86,9 +149,9 @@ CREATE TABLE `post_thumb`  (
   `createTime` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `updateTime` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`) USING BTREE,
-  INDEX `idx_postId`(`postId`) USING BTREE,
-  INDEX `idx_userId`(`userId`) USING BTREE
-) ENGINE = MyISAM AUTO_INCREMENT = 16 CHARACTER SET = utf8 COLLATE = utf8_unicode_ci COMMENT = '帖子点赞' ROW_FORMAT = Fixed;
+  UNIQUE INDEX `uk_userId_postId`(`userId`, `postId`) USING BTREE,
+  INDEX `idx_postId`(`postId`) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 16 CHARACTER SET = utf8 COLLATE = utf8_unicode_ci COMMENT = '帖子点赞' ROW_FORMAT = Dynamic;
 
 -- ----------------------------
 -- Records of post_thumb
@@ -97,6 +160,18 @@ INSERT INTO `post_thumb` VALUES (1, 1873352784884043777, 1872960463587885057, '2
 INSERT INTO `post_thumb` VALUES (4, 1873623510975250434, 1872960463587885057, '2024-12-30 15:14:49', '2024-12-30 15:14:49');
 INSERT INTO `post_thumb` VALUES (5, 1873623578704871425, 1872960463587885057, '2024-12-30 15:15:47', '2024-12-30 15:15:47');
 
+-- ----------------------------
+-- Table structure for sync_checkpoint
+-- ----------------------------
+DROP TABLE IF EXISTS `sync_checkpoint`;
+CREATE TABLE `sync_checkpoint`  (
+  `name` varchar(128) CHARACTER SET utf8 COLLATE utf8_general_ci NOT NULL COMMENT '同步任务名',
+  `watermarkTime` datetime NOT NULL COMMENT '已处理到的更新时间',
+  `watermarkId` bigint(20) NOT NULL DEFAULT 0 COMMENT '已处理到的 id（同一更新时间内）',
+  `updateTime` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`name`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8 COLLATE = utf8_general_ci COMMENT = '同步位点' ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for user
 -- ----------------------------
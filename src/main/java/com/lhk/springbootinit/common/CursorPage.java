@@ -0,0 +1,37 @@
+package com.lhk.springbootinit.common;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+
+/**
+ * 游标分页结果（不统计总数）
+ *
+ * @param <T>
+ */
+public class CursorPage<T> extends Page<T> {
+
+    /**
+     * 下一页游标，为空表示没有更多数据
+     */
+    private String nextCursor;
+
+    public CursorPage(long size) {
+        super(1, size, 0, false);
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * 是否还有更多数据
+     *
+     * @return
+     */
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.lhk.springbootinit.common;
+
+import java.util.Map;
+
+/**
+ * 运行指标提供者（由监控接口统一汇总）
+ */
+public interface MetricsProvider {
+
+    /**
+     * 指标分组名
+     *
+     * @return
+     */
+    String getMetricsName();
+
+    /**
+     * 当前指标
+     *
+     * @return
+     */
+    Map<String, Object> getMetrics();
+}
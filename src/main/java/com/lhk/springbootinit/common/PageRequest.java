@@ -28,4 +28,9 @@ public class PageRequest {
      * 排序顺序（默认升序）
      */
     private String sortOrder = CommonConstant.SORT_ORDER_ASC;
+
+    /**
+     * 是否查询总数（不需要总数时传 false，少一次 COUNT 查询，total 返回 0）
+     */
+    private boolean searchCount = true;
 }
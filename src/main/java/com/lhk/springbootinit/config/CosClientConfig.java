@@ -6,6 +6,7 @@ import com.qcloud.cos.auth.BasicCOSCredentials;
 import com.qcloud.cos.auth.COSCredentials;
 import com.qcloud.cos.region.Region;
 import lombok.Data;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -38,7 +39,33 @@ public class CosClientConfig {
      */
     private String bucket;
 
+    /**
+     * 超过该大小（字节）使用分块上传（流式上传时分块按顺序上传，不并发）
+     */
+    private long multipartThreshold = 16 * 1024 * 1024;
+
+    /**
+     * 分块上传的块大小（字节），也是客户端分块上传接口建议的块大小
+     */
+    private long partSize = 8 * 1024 * 1024;
+
+    /**
+     * 传输线程数（文件分块上传、下载共用，流式上传每个请求只占一个）
+     */
+    private int transferThreads = 32;
+
+    /**
+     * 传输任务排队上限，超出时拒绝并提示稍后重试
+     */
+    private int transferQueueCapacity = 256;
+
+    /**
+     * 停机时等待传输任务完成的最长时间（秒）
+     */
+    private long transferShutdownSeconds = 30;
+
     @Bean
+    @ConditionalOnProperty(prefix = "file.storage", name = "type", havingValue = "cos", matchIfMissing = true)
     public COSClient cosClient() {
         // 初始化用户身份信息(secretId, secretKey)
         COSCredentials cred = new BasicCOSCredentials(accessKey, secretKey);
@@ -0,0 +1,88 @@
+package com.lhk.springbootinit.config;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.ParameterUtils;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.lhk.springbootinit.common.MetricsProvider;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * 带总数缓存的分页插件
+ * <p>
+ * 以 statement id + 未分页的 SQL + 参数值为键（与页号无关），短时间内相同条件的翻页只查一次 COUNT
+ */
+public class CountCachePaginationInnerInterceptor extends PaginationInnerInterceptor implements MetricsProvider {
+
+    private final PageCountConfig pageCountConfig;
+
+    private final LRUCache<CacheKey, Long> countCache;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder skipCount = new LongAdder();
+
+    public CountCachePaginationInnerInterceptor(DbType dbType, PageCountConfig pageCountConfig) {
+        super(dbType);
+        this.pageCountConfig = pageCountConfig;
+        this.countCache = CacheUtil.newLRUCache(pageCountConfig.getMaxSize(),
+                TimeUnit.SECONDS.toMillis(pageCountConfig.getExpireSeconds()));
+    }
+
+    @Override
+    public boolean willDoQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+            ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+        IPage<?> page = ParameterUtils.findPage(parameter).orElse(null);
+        if (page == null || page.getSize() < 0) {
+            return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+        if (!page.searchCount()) {
+            skipCount.increment();
+            return true;
+        }
+        if (!pageCountConfig.isEnabled()) {
+            return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+        // 此时 SQL 尚未拼接 limit，键与页号无关
+        CacheKey cacheKey = executor.createCacheKey(ms, parameter, RowBounds.DEFAULT, boundSql);
+        Long total = countCache.get(cacheKey, false);
+        if (total != null) {
+            hitCount.increment();
+            page.setTotal(total);
+            return continuePage(page);
+        }
+        missCount.increment();
+        boolean result = super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        countCache.put(cacheKey, page.getTotal());
+        return result;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "pageCountCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", countCache.size());
+        metrics.put("hitCount", hitCount.sum());
+        metrics.put("missCount", missCount.sum());
+        metrics.put("skipCount", skipCount.sum());
+        return metrics;
+    }
+}
@@ -0,0 +1,47 @@
+package com.lhk.springbootinit.config;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 文件本地磁盘缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "file.cache")
+@Data
+public class FileCacheConfig {
+
+    /**
+     * 是否开启
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存目录（启动时清空）
+     */
+    private String dir = System.getProperty("java.io.tmpdir") + File.separator + "file-cache";
+
+    /**
+     * 缓存总大小上限（字节），超出时淘汰最久未访问的文件
+     */
+    private long maxBytes = 256 * 1024 * 1024;
+
+    /**
+     * 单个文件大小上限（字节），超出的文件不缓存
+     */
+    private long maxFileBytes = 2 * 1024 * 1024;
+
+    /**
+     * 缓存过期时间（秒）
+     */
+    private long expireSeconds = 86400;
+
+    /**
+     * 缓存的业务类型（即公开业务，/file/read 只允许读取这些业务的文件）
+     */
+    private List<String> bizList = Collections.singletonList("user_avatar");
+}
@@ -0,0 +1,24 @@
+package com.lhk.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 文件存储配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "file.storage")
+@Data
+public class FileStorageConfig {
+
+    /**
+     * 存储类型：cos-腾讯云对象存储，local-本地文件系统（私有化部署、测试环境）
+     */
+    private String type = "cos";
+
+    /**
+     * 本地存储根目录
+     */
+    private String localRoot = "data/file-storage";
+}
@@ -0,0 +1,34 @@
+package com.lhk.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 按键加锁配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "lock")
+@Data
+public class KeyedLockConfig {
+
+    /**
+     * 本地锁分段数（向上取整为 2 的幂）
+     */
+    private int stripes = 1024;
+
+    /**
+     * 是否开启分布式锁（须先配置 Redis）
+     */
+    private boolean distributed = false;
+
+    /**
+     * 获取锁最长等待时间（毫秒）
+     */
+    private long waitMillis = 3000;
+
+    /**
+     * 分布式锁租期（毫秒），持有期间每三分之一租期续期一次，持有者宕机后自动释放
+     */
+    private long leaseMillis = 10000;
+}
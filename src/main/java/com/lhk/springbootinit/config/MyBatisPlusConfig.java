@@ -2,7 +2,6 @@ package com.lhk.springbootinit.config;
 
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
-import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -20,10 +19,23 @@ public class MyBatisPlusConfig {
      * @return
      */
     @Bean
-    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+    public MybatisPlusInterceptor mybatisPlusInterceptor(
+            CountCachePaginationInnerInterceptor countCachePaginationInnerInterceptor) {
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
-        // 分页插件
-        interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
+        // 分页插件（带总数缓存）
+        interceptor.addInnerInterceptor(countCachePaginationInnerInterceptor);
         return interceptor;
     }
+
+    /**
+     * 分页插件
+     *
+     * @param pageCountConfig
+     * @return
+     */
+    @Bean
+    public CountCachePaginationInnerInterceptor countCachePaginationInnerInterceptor(
+            PageCountConfig pageCountConfig) {
+        return new CountCachePaginationInnerInterceptor(DbType.MYSQL, pageCountConfig);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.lhk.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 分页总数缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "page.count-cache")
+@Data
+public class PageCountConfig {
+
+    /**
+     * 是否开启（开启后总数为近似值，最多延迟 expireSeconds）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多缓存的查询条件数
+     */
+    private int maxSize = 1000;
+
+    /**
+     * 过期时间（秒）
+     */
+    private long expireSeconds = 10;
+}
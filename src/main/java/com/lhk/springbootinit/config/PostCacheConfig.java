@@ -0,0 +1,59 @@
+package com.lhk.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 帖子缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "post.cache")
+@Data
+public class PostCacheConfig {
+
+    /**
+     * 本地缓存最大条数
+     */
+    private int localMaxSize = 10000;
+
+    /**
+     * 最大不一致时间（秒），即本地缓存过期时间
+     */
+    private long maxStaleSeconds = 30;
+
+    /**
+     * Redis 缓存过期时间（秒），实际不超过最大不一致时间
+     */
+    private long redisExpireSeconds = 30;
+
+    /**
+     * 点赞、收藏关系索引最多缓存的用户数
+     */
+    private int membershipMaxUsers = 10000;
+
+    /**
+     * 点赞、收藏关系索引过期时间（秒）
+     */
+    private long membershipExpireSeconds = 600;
+
+    /**
+     * 帖子计数（点赞数、收藏数）缓存最大条数，过期时间同最大不一致时间
+     */
+    private int counterMaxSize = 50000;
+
+    /**
+     * 搜索结果缓存最大条数
+     */
+    private int searchResultMaxSize = 2000;
+
+    /**
+     * 搜索结果缓存过期时间（秒）
+     */
+    private long searchResultExpireSeconds = 30;
+
+    /**
+     * 搜索结果缓存的最大页码（只缓存前几页，为 0 时不缓存）
+     */
+    private int searchResultMaxPages = 3;
+}
@@ -0,0 +1,39 @@
+package com.lhk.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 帖子计数（点赞数、收藏数）合并写入配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "post.counter")
+@Data
+public class PostCounterConfig {
+
+    /**
+     * 增量缓冲分段数
+     */
+    private int stripes = 16;
+
+    /**
+     * 增量刷入数据库的间隔（毫秒）
+     */
+    private long flushIntervalMs = 1000;
+
+    /**
+     * 单条 UPDATE 最多合并的帖子数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 启动时是否根据点赞、收藏关系表校正计数（补偿宕机丢失的增量，一般通过管理接口触发）
+     */
+    private boolean reconcileOnStartup = false;
+
+    /**
+     * 校正时每批帖子数
+     */
+    private int reconcileBatchSize = 1000;
+}
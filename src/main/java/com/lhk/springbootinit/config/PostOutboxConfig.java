@@ -0,0 +1,34 @@
+package com.lhk.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 帖子变更事件（事务性发件箱）配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "post.outbox")
+@Data
+public class PostOutboxConfig {
+
+    /**
+     * 是否开启（关闭后 ES 改用按更新时间的增量同步任务）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 分发间隔（毫秒）
+     */
+    private long dispatchIntervalMs = 500;
+
+    /**
+     * 每批分发的事件数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 每次最多分发的批数
+     */
+    private int maxBatchesPerRun = 20;
+}
@@ -0,0 +1,149 @@
+package com.lhk.springbootinit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 帖子搜索配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "post.search")
+@Data
+public class PostSearchConfig {
+
+    /**
+     * 是否使用 ES 搜索（须先配置 ES）
+     */
+    private boolean esEnabled = false;
+
+    /**
+     * ES 索引别名（PostEsDTO 读写的索引名，重建时切换到新的版本索引）
+     */
+    private String esIndexAlias = "post";
+
+    /**
+     * ES 索引副本数（重建导入期间为 0，完成后恢复）
+     */
+    private int esNumberOfReplicas = 1;
+
+    /**
+     * ES 时间点保留时间（秒），每次翻页续期
+     */
+    private long esPitKeepAliveSeconds = 60;
+
+    /**
+     * 本节点最多同时打开的 ES 时间点数，达到上限后游标分页不固定快照
+     */
+    private int esPitMaxOpen = 500;
+
+    /**
+     * 未开启 ES 时是否使用本地倒排索引搜索
+     */
+    private boolean localIndexEnabled = true;
+
+    /**
+     * 本地索引增量同步间隔（毫秒）
+     */
+    private long localSyncIntervalMs = 5000;
+
+    /**
+     * 本地索引增量同步回看时间（秒），覆盖长事务和时钟偏差
+     */
+    private long localSyncOverlapSeconds = 60;
+
+    /**
+     * 本地索引全量构建时每批读取的帖子数
+     */
+    private int localBuildBatchSize = 1000;
+
+    /**
+     * 本地索引全量构建失败后的重试间隔（秒）
+     */
+    private long localBuildRetryIntervalSeconds = 30;
+
+    /**
+     * 本地索引最多容纳的帖子数，超出后停用本地索引（降级为数据库查询）
+     */
+    private int localIndexMaxPosts = 200000;
+
+    /**
+     * ES 增量同步每批读取的帖子数
+     */
+    private int esSyncBatchSize = 500;
+
+    /**
+     * ES 增量同步每次最多处理的批数（剩余的下次继续）
+     */
+    private int esSyncMaxBatchesPerRun = 20;
+
+    /**
+     * ES 增量同步安全延迟（秒），只处理早于该时间的变更，避免漏掉提交较晚的事务
+     */
+    private long esSyncSafetyLagSeconds = 5;
+
+    /**
+     * ES 全量同步每批读取的帖子数
+     */
+    private int fullSyncReadBatchSize = 1000;
+
+    /**
+     * ES 全量同步单次批量写入的最大字节数
+     */
+    private long fullSyncBulkBytes = 5 * 1024 * 1024;
+
+    /**
+     * ES 全量同步并行写入线程数
+     */
+    private int fullSyncWriterThreads = 4;
+
+    /**
+     * ES 全量同步最多排队等待写入的批数，读取快于写入时阻塞读取
+     */
+    private int fullSyncQueueCapacity = 8;
+
+    /**
+     * ES 在线写入：单次批量写入的最大文档数
+     */
+    private int esBulkActions = 500;
+
+    /**
+     * ES 在线写入：单次批量写入的最大字节数
+     */
+    private long esBulkBytes = 5 * 1024 * 1024;
+
+    /**
+     * ES 在线写入：缓冲刷新间隔（毫秒）
+     */
+    private long esBulkFlushIntervalMs = 1000;
+
+    /**
+     * ES 在线写入：失败最多重试次数
+     */
+    private int esBulkMaxRetries = 5;
+
+    /**
+     * ES 在线写入：首次重试等待时间（毫秒），之后每次翻倍
+     */
+    private long esBulkBackoffMs = 500;
+
+    /**
+     * ES 在线写入：缓冲最多的文档数，超出时拒绝写入（由调用方稍后重试）
+     */
+    private int esBulkMaxPending = 20000;
+
+    /**
+     * ES 残留文档清理间隔（毫秒）
+     */
+    private long esCleanupIntervalMs = 1000;
+
+    /**
+     * ES 残留文档清理每批删除数
+     */
+    private int esCleanupBatchSize = 500;
+
+    /**
+     * ES 残留文档待清理队列上限，超出时丢弃（下次搜索命中时重新入队）
+     */
+    private int esCleanupMaxPending = 10000;
+}
@@ -5,27 +5,47 @@ import com.lhk.springbootinit.annotation.AuthCheck;
 import com.lhk.springbootinit.common.BaseResponse;
 import com.lhk.springbootinit.common.ErrorCode;
 import com.lhk.springbootinit.common.ResultUtils;
+import com.lhk.springbootinit.config.CosClientConfig;
+import com.lhk.springbootinit.config.FileCacheConfig;
 import com.lhk.springbootinit.constant.UserConstant;
 import com.lhk.springbootinit.exception.BusinessException;
-import com.lhk.springbootinit.manager.CosManager;
+import com.lhk.springbootinit.exception.ThrowUtils;
+import com.lhk.springbootinit.manager.FileCacheManager;
+import com.lhk.springbootinit.manager.FileStorage;
+import com.lhk.springbootinit.manager.FileStorageObject;
+import com.lhk.springbootinit.model.dto.file.MultipartUploadInitRequest;
+import com.lhk.springbootinit.model.dto.file.MultipartUploadPartRequest;
+import com.lhk.springbootinit.model.dto.file.MultipartUploadRequest;
 import com.lhk.springbootinit.model.dto.file.UploadFileRequest;
 import com.lhk.springbootinit.model.entity.User;
 import com.lhk.springbootinit.model.enums.FileUploadBizEnum;
+import com.lhk.springbootinit.model.vo.MultipartUploadVO;
+import com.lhk.springbootinit.service.FileObjectService;
 import com.lhk.springbootinit.service.UserService;
-import com.qcloud.cos.model.COSObject;
-import com.qcloud.cos.model.COSObjectInputStream;
-import com.qcloud.cos.utils.IOUtils;
+import com.lhk.springbootinit.utils.FileTypeUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.File;
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * 文件接口
@@ -38,11 +58,33 @@ import java.util.Arrays;
 @Slf4j
 public class FileController {
 
+    /**
+     * 分块上传最大分块数
+     */
+    private static final int MAX_PART_NUMBER = 10000;
+
+    /**
+     * 分块上传声明的文件大小（会话属性前缀，后接上传 id）
+     */
+    private static final String MULTIPART_UPLOAD_SIZE_PREFIX = "multipart_upload_size:";
+
     @Resource
     private UserService userService;
 
     @Resource
-    private CosManager cosManager;
+    private FileStorage fileStorage;
+
+    @Resource
+    private FileObjectService fileObjectService;
+
+    @Resource
+    private FileCacheManager fileCacheManager;
+
+    @Resource
+    private CosClientConfig cosClientConfig;
+
+    @Resource
+    private FileCacheConfig fileCacheConfig;
 
 
     /**
@@ -55,12 +97,9 @@ public class FileController {
     @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
     @GetMapping("/test/download/")
     public void testDownloadFile(String filepath, HttpServletResponse response) throws IOException {
-        COSObjectInputStream cosObjectInput = null;
-        try {
-            COSObject cosObject = cosManager.getObject(filepath);
-            cosObjectInput = cosObject.getObjectContent();
+        try (FileStorageObject fileStorageObject = fileStorage.getObject(filepath)) {
             // 处理下载到的流
-            byte[] bytes = IOUtils.toByteArray(cosObjectInput);
+            byte[] bytes = StreamUtils.copyToByteArray(fileStorageObject.getInputStream());
             // 设置响应头
             response.setContentType("application/octet-stream;charset=UTF-8");
             response.setHeader("Content-Disposition", "attachment; filename=" + filepath);
@@ -70,14 +109,67 @@ public class FileController {
         } catch (Exception e) {
             log.error("file download error, filepath = " + filepath, e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "下载失败");
-        } finally {
-            if (cosObjectInput != null) {
-                cosObjectInput.close();
-            }
         }
     }
 
 
+    /**
+     * 读取文件（只允许读取公开业务的文件，走本地磁盘缓存，支持 Range 和 ETag 协商缓存）
+     *
+     * @param key      文件路径
+     * @param request
+     * @param response
+     * @throws IOException
+     */
+    @GetMapping("/read")
+    public void readFile(String key, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (StringUtils.isBlank(key)) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        // 路径格式 /业务/目录/文件名
+        String[] parts = key.split("/");
+        if (parts.length != 4 || !parts[0].isEmpty() || FileUploadBizEnum.getEnumByValue(parts[1]) == null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        // 接口不校验登录，生成器产物包等非公开业务的文件不允许读取
+        if (!fileCacheConfig.getBizList().contains(parts[1])) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
+        }
+        // 内容类型按后缀白名单确定，禁止浏览器嗅探和执行脚本，非白名单图片只能下载
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader("Content-Security-Policy", "default-src 'none'");
+        String contentType = FileTypeUtils.getImageContentType(key);
+        if (contentType == null) {
+            contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment");
+        }
+        try {
+            FileCacheManager.CachedFile cachedFile = fileCacheManager.get(key);
+            if (cachedFile == null) {
+                writeObject(key, contentType, response);
+                return;
+            }
+            FileChannel fileChannel;
+            try {
+                fileChannel = FileChannel.open(cachedFile.getFile().toPath(), StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                // 打开前刚好被淘汰，重新加载，不再缓存时直接转发
+                fileCacheManager.discard(key, cachedFile);
+                cachedFile = fileCacheManager.get(key);
+                if (cachedFile == null) {
+                    writeObject(key, contentType, response);
+                    return;
+                }
+                fileChannel = FileChannel.open(cachedFile.getFile().toPath(), StandardOpenOption.READ);
+            }
+            try (FileChannel channel = fileChannel) {
+                writeCachedFile(cachedFile, channel, contentType, request, response);
+            }
+        } catch (NoSuchFileException e) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR);
+        }
+    }
+
     /**
      * 测试文件上传
      *
@@ -90,25 +182,18 @@ public class FileController {
         // 文件目录
         String filename = multipartFile.getOriginalFilename();
         String filepath = String.format("/test/%s", filename);
-        File file = null;
-        try {
-            // 上传文件
-            file = File.createTempFile(filepath, null);
-            multipartFile.transferTo(file);
-            cosManager.putObject(filepath, file);
+        // 上传文件（直接读取上传流，不复制临时文件）
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            fileStorage.putObject(filepath, inputStream, multipartFile.getSize(),
+                    FileTypeUtils.getImageContentType(filename));
             // 返回可访问地址
             return ResultUtils.success(filepath);
+        } catch (BusinessException e) {
+            // 传输繁忙等业务异常原样返回
+            throw e;
         } catch (Exception e) {
             log.error("file upload error, filepath = " + filepath, e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
-        } finally {
-            if (file != null) {
-                // 删除临时文件
-                boolean delete = file.delete();
-                if (!delete) {
-                    log.error("file delete error, filepath = {}", filepath);
-                }
-            }
         }
     }
 
@@ -130,31 +215,274 @@ public class FileController {
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
         validFile(multipartFile, fileUploadBizEnum);
+        userService.getLoginUser(request);
+        // 上传文件（同一业务内容相同的文件只存储一份，返回已有地址）
+        try {
+            String fileKey = fileObjectService.saveFile(multipartFile, fileUploadBizEnum);
+            // 返回可访问地址
+            return ResultUtils.success(/*FileConstant.COS_HOST + */fileKey);
+        } catch (BusinessException e) {
+            // 传输繁忙等业务异常原样返回
+            throw e;
+        } catch (Exception e) {
+            log.error("file upload error, biz = " + biz, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
+        }
+    }
+
+    /**
+     * 分块上传：初始化
+     *
+     * @param multipartUploadInitRequest
+     * @param request
+     * @return 上传 id 和文件路径，之后的请求都需要携带
+     */
+    @PostMapping("/multipart/init")
+    public BaseResponse<MultipartUploadVO> initMultipartUpload(
+            @RequestBody MultipartUploadInitRequest multipartUploadInitRequest, HttpServletRequest request) {
+        ThrowUtils.throwIf(multipartUploadInitRequest == null, ErrorCode.PARAMS_ERROR);
+        FileUploadBizEnum fileUploadBizEnum = FileUploadBizEnum.getEnumByValue(multipartUploadInitRequest.getBiz());
+        String fileName = multipartUploadInitRequest.getFileName();
+        Long fileSize = multipartUploadInitRequest.getFileSize();
+        if (fileUploadBizEnum == null || StringUtils.isBlank(fileName) || fileSize == null || fileSize <= 0) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        // 只保留文件名，防止路径穿越
+        fileName = FileUtil.getName(fileName);
+        validFile(fileSize, fileName, fileUploadBizEnum);
         User loginUser = userService.getLoginUser(request);
-        // 文件目录：根据业务、用户来划分
         String uuid = RandomStringUtils.randomAlphanumeric(8);
-        String filename = uuid + "-" + multipartFile.getOriginalFilename();
-        String filepath = String.format("/%s/%s/%s", fileUploadBizEnum.getValue(), loginUser.getId(), filename);
-        File file = null;
+        String filepath = String.format("/%s/%s/%s", fileUploadBizEnum.getValue(), loginUser.getId(),
+                uuid + "-" + fileName);
         try {
-            // 上传文件
-            file = File.createTempFile(filepath, null);
-            multipartFile.transferTo(file);
-            cosManager.putObject(filepath, file);
-            // 返回可访问地址
-            return ResultUtils.success(/*FileConstant.COS_HOST + */filepath);
+            String uploadId = fileStorage.initMultipartUpload(filepath, FileTypeUtils.getImageContentType(fileName));
+            // 记录声明的大小，上传分块和完成时据此校验
+            request.getSession().setAttribute(MULTIPART_UPLOAD_SIZE_PREFIX + uploadId, fileSize);
+            MultipartUploadVO multipartUploadVO = new MultipartUploadVO();
+            multipartUploadVO.setKey(filepath);
+            multipartUploadVO.setUploadId(uploadId);
+            multipartUploadVO.setPartSize(cosClientConfig.getPartSize());
+            multipartUploadVO.setUploadedPartNumberList(Collections.emptyList());
+            return ResultUtils.success(multipartUploadVO);
         } catch (Exception e) {
-            log.error("file upload error, filepath = " + filepath, e);
+            log.error("multipart upload init error, filepath = " + filepath, e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
-        } finally {
-            if (file != null) {
-                // 删除临时文件
-                boolean delete = file.delete();
-                if (!delete) {
-                    log.error("file delete error, filepath = {}", filepath);
+        }
+    }
+
+    /**
+     * 分块上传：上传分块（各分块可并行上传，失败的分块单独重传）
+     *
+     * @param multipartFile
+     * @param multipartUploadPartRequest
+     * @param request
+     * @return 分块 ETag
+     */
+    @PostMapping("/multipart/upload-part")
+    public BaseResponse<String> uploadPart(@RequestPart("file") MultipartFile multipartFile,
+            MultipartUploadPartRequest multipartUploadPartRequest, HttpServletRequest request) {
+        Integer partNumber = multipartUploadPartRequest.getPartNumber();
+        if (partNumber == null || partNumber < 1 || partNumber > MAX_PART_NUMBER || multipartFile.isEmpty()) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        String key = multipartUploadPartRequest.getKey();
+        String uploadId = multipartUploadPartRequest.getUploadId();
+        checkUploadKey(key, uploadId, request);
+        long partSize = cosClientConfig.getPartSize();
+        ThrowUtils.throwIf(multipartFile.getSize() > partSize, ErrorCode.PARAMS_ERROR, "分块大小超出限制");
+        ThrowUtils.throwIf((partNumber - 1) * partSize >= getDeclaredSize(uploadId, request), ErrorCode.PARAMS_ERROR,
+                "分块序号超出文件大小");
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            return ResultUtils.success(fileStorage.uploadPart(key, uploadId, partNumber, inputStream,
+                    multipartFile.getSize()));
+        } catch (Exception e) {
+            log.error("multipart upload part error, filepath = {}, partNumber = {}", key, partNumber, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
+        }
+    }
+
+    /**
+     * 分块上传：查询已上传的分块（断点续传）
+     *
+     * @param multipartUploadRequest
+     * @param request
+     * @return
+     */
+    @GetMapping("/multipart/parts")
+    public BaseResponse<MultipartUploadVO> listUploadedParts(MultipartUploadRequest multipartUploadRequest,
+            HttpServletRequest request) {
+        String key = multipartUploadRequest.getKey();
+        String uploadId = multipartUploadRequest.getUploadId();
+        checkUploadKey(key, uploadId, request);
+        try {
+            MultipartUploadVO multipartUploadVO = new MultipartUploadVO();
+            multipartUploadVO.setKey(key);
+            multipartUploadVO.setUploadId(uploadId);
+            multipartUploadVO.setPartSize(cosClientConfig.getPartSize());
+            multipartUploadVO.setUploadedPartNumberList(fileStorage.listParts(key, uploadId));
+            return ResultUtils.success(multipartUploadVO);
+        } catch (Exception e) {
+            log.error("multipart upload list parts error, filepath = " + key, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "查询失败");
+        }
+    }
+
+    /**
+     * 分块上传：完成（按已上传的分块合并）
+     *
+     * @param multipartUploadRequest
+     * @param request
+     * @return 文件路径
+     */
+    @PostMapping("/multipart/complete")
+    public BaseResponse<String> completeMultipartUpload(@RequestBody MultipartUploadRequest multipartUploadRequest,
+            HttpServletRequest request) {
+        ThrowUtils.throwIf(multipartUploadRequest == null, ErrorCode.PARAMS_ERROR);
+        String key = multipartUploadRequest.getKey();
+        String uploadId = multipartUploadRequest.getUploadId();
+        checkUploadKey(key, uploadId, request);
+        long declaredSize = getDeclaredSize(uploadId, request);
+        try {
+            // 分块总大小超过声明的大小时取消上传
+            fileStorage.completeMultipartUpload(key, uploadId, declaredSize);
+            request.getSession().removeAttribute(MULTIPART_UPLOAD_SIZE_PREFIX + uploadId);
+            return ResultUtils.success(key);
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("multipart upload complete error, filepath = " + key, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "上传失败");
+        }
+    }
+
+    /**
+     * 分块上传：取消
+     *
+     * @param multipartUploadRequest
+     * @param request
+     * @return
+     */
+    @PostMapping("/multipart/abort")
+    public BaseResponse<Boolean> abortMultipartUpload(@RequestBody MultipartUploadRequest multipartUploadRequest,
+            HttpServletRequest request) {
+        ThrowUtils.throwIf(multipartUploadRequest == null, ErrorCode.PARAMS_ERROR);
+        String key = multipartUploadRequest.getKey();
+        String uploadId = multipartUploadRequest.getUploadId();
+        checkUploadKey(key, uploadId, request);
+        try {
+            fileStorage.abortMultipartUpload(key, uploadId);
+            request.getSession().removeAttribute(MULTIPART_UPLOAD_SIZE_PREFIX + uploadId);
+            return ResultUtils.success(true);
+        } catch (Exception e) {
+            log.error("multipart upload abort error, filepath = " + key, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "取消失败");
+        }
+    }
+
+    /**
+     * 输出缓存文件
+     * <p>
+     * Servlet 输出流不是可选择通道，transferTo 会经过缓冲区分段复制，并非零拷贝；
+     * 不使用 Tomcat sendfile，因为它在请求返回后才打开文件，期间缓存文件可能已被淘汰或替换
+     *
+     * @param cachedFile
+     * @param fileChannel
+     * @param contentType
+     * @param request
+     * @param response
+     * @throws IOException
+     */
+    private void writeCachedFile(FileCacheManager.CachedFile cachedFile, FileChannel fileChannel, String contentType,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String eTag = "\"" + cachedFile.getETag() + "\"";
+        // 匹配 If-None-Match 时返回 304，同时写入 ETag 响应头
+        if (new ServletWebRequest(request, response).checkNotModified(eTag)) {
+            return;
+        }
+        long fileSize = cachedFile.getSize();
+        long start = 0;
+        long end = fileSize - 1;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(contentType);
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // 只支持单个区间，多个区间或 If-Range 不匹配时返回完整内容
+        if (range != null && (ifRange == null || ifRange.equals(eTag))) {
+            List<HttpRange> httpRangeList;
+            try {
+                httpRangeList = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                httpRangeList = Collections.emptyList();
+            }
+            if (httpRangeList.size() == 1) {
+                HttpRange httpRange = httpRangeList.get(0);
+                try {
+                    start = httpRange.getRangeStart(fileSize);
+                    end = httpRange.getRangeEnd(fileSize);
+                } catch (IllegalArgumentException e) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
                 }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
             }
         }
+        response.setContentLengthLong(end - start + 1);
+        WritableByteChannel outputChannel = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        while (position <= end) {
+            position += fileChannel.transferTo(position, end + 1 - position, outputChannel);
+        }
+    }
+
+    /**
+     * 直接转发存储的内容（不缓存的文件）
+     *
+     * @param key
+     * @param contentType
+     * @param response
+     * @throws IOException
+     */
+    private void writeObject(String key, String contentType, HttpServletResponse response) throws IOException {
+        try (FileStorageObject fileStorageObject = fileStorage.getObject(key)) {
+            response.setHeader(HttpHeaders.ETAG, "\"" + fileStorageObject.getETag() + "\"");
+            response.setContentType(contentType);
+            response.setContentLengthLong(fileStorageObject.getContentLength());
+            StreamUtils.copy(fileStorageObject.getInputStream(), response.getOutputStream());
+        }
+    }
+
+    /**
+     * 校验分块上传的文件路径属于当前用户（路径格式 /业务/用户 id/文件名）
+     *
+     * @param key
+     * @param uploadId
+     * @param request
+     */
+    private void checkUploadKey(String key, String uploadId, HttpServletRequest request) {
+        if (StringUtils.isAnyBlank(key, uploadId)) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        User loginUser = userService.getLoginUser(request);
+        String[] parts = key.split("/");
+        if (parts.length != 4 || FileUploadBizEnum.getEnumByValue(parts[1]) == null
+                || !parts[2].equals(String.valueOf(loginUser.getId()))) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
+        }
+    }
+
+    /**
+     * 获取分块上传初始化时声明的文件大小
+     *
+     * @param uploadId
+     * @param request
+     * @return
+     */
+    private long getDeclaredSize(String uploadId, HttpServletRequest request) {
+        Object declaredSize = request.getSession().getAttribute(MULTIPART_UPLOAD_SIZE_PREFIX + uploadId);
+        ThrowUtils.throwIf(declaredSize == null, ErrorCode.NOT_FOUND_ERROR, "上传不存在或已失效");
+        return (Long) declaredSize;
     }
 
     /**
@@ -164,16 +492,23 @@ public class FileController {
      * @param fileUploadBizEnum 业务类型
      */
     private void validFile(MultipartFile multipartFile, FileUploadBizEnum fileUploadBizEnum) {
-        // 文件大小
-        long fileSize = multipartFile.getSize();
-        // 文件后缀
-        String fileSuffix = FileUtil.getSuffix(multipartFile.getOriginalFilename());
+        validFile(multipartFile.getSize(), multipartFile.getOriginalFilename(), fileUploadBizEnum);
+    }
+
+    /**
+     * 校验文件
+     *
+     * @param fileSize          文件大小
+     * @param fileName          文件名
+     * @param fileUploadBizEnum 业务类型
+     */
+    private void validFile(long fileSize, String fileName, FileUploadBizEnum fileUploadBizEnum) {
         final long ONE_M = 1024 * 1024L;
         if (FileUploadBizEnum.USER_AVATAR.equals(fileUploadBizEnum)) {
             if (fileSize > ONE_M) {
                 throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件大小不能超过 1M");
             }
-            if (!Arrays.asList("jpeg", "jpg", "svg", "png", "webp").contains(fileSuffix)) {
+            if (!FileTypeUtils.isImage(fileName)) {
                 throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件类型错误");
             }
         }
@@ -0,0 +1,42 @@
+package com.lhk.springbootinit.controller;
+
+import com.lhk.springbootinit.annotation.AuthCheck;
+import com.lhk.springbootinit.common.BaseResponse;
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.common.ResultUtils;
+import com.lhk.springbootinit.constant.UserConstant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 监控接口
+ */
+@RestController
+@RequestMapping("/monitor")
+@Slf4j
+public class MonitorController {
+
+    @Resource
+    private List<MetricsProvider> metricsProviderList;
+
+    /**
+     * 获取运行指标（仅管理员）
+     *
+     * @return
+     */
+    @GetMapping("/metrics")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<Map<String, Map<String, Object>>> getMetrics() {
+        Map<String, Map<String, Object>> metricsMap = new LinkedHashMap<>();
+        for (MetricsProvider metricsProvider : metricsProviderList) {
+            metricsMap.put(metricsProvider.getMetricsName(), metricsProvider.getMetrics());
+        }
+        return ResultUtils.success(metricsMap);
+    }
+}
@@ -10,6 +10,9 @@ import com.lhk.springbootinit.common.ResultUtils;
 import com.lhk.springbootinit.constant.UserConstant;
 import com.lhk.springbootinit.exception.BusinessException;
 import com.lhk.springbootinit.exception.ThrowUtils;
+import com.lhk.springbootinit.manager.PostCounterCacheManager;
+import com.lhk.springbootinit.manager.PostCounterManager;
+import com.lhk.springbootinit.manager.PostVOCacheManager;
 import com.lhk.springbootinit.model.dto.post.PostAddRequest;
 import com.lhk.springbootinit.model.dto.post.PostEditRequest;
 import com.lhk.springbootinit.model.dto.post.PostQueryRequest;
@@ -44,6 +47,15 @@ public class PostController {
     @Resource
     private UserService userService;
 
+    @Resource
+    private PostVOCacheManager postVOCacheManager;
+
+    @Resource
+    private PostCounterCacheManager postCounterCacheManager;
+
+    @Resource
+    private PostCounterManager postCounterManager;
+
     // region 增删改查
 
     /**
@@ -69,9 +81,7 @@ public class PostController {
         post.setUserId(loginUser.getId());
         post.setFavourNum(0);
         post.setThumbNum(0);
-        boolean result = postService.save(post);
-        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
-        long newPostId = post.getId();
+        long newPostId = postService.addPost(post);
         return ResultUtils.success(newPostId);
     }
 
@@ -96,7 +106,9 @@ public class PostController {
         if (!oldPost.getUserId().equals(user.getId()) && !userService.isAdmin(request)) {
             throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
         }
-        boolean b = postService.removeById(id);
+        boolean b = postService.deletePost(id);
+        postVOCacheManager.invalidate(id);
+        postCounterCacheManager.invalidate(id);
         return ResultUtils.success(b);
     }
 
@@ -124,7 +136,8 @@ public class PostController {
         // 判断是否存在
         Post oldPost = postService.getById(id);
         ThrowUtils.throwIf(oldPost == null, ErrorCode.NOT_FOUND_ERROR);
-        boolean result = postService.updateById(post);
+        boolean result = postService.updatePost(post);
+        postVOCacheManager.invalidate(id);
         return ResultUtils.success(result);
     }
 
@@ -139,11 +152,7 @@ public class PostController {
         if (id <= 0) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
-        Post post = postService.getById(id);
-        if (post == null) {
-            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR);
-        }
-        return ResultUtils.success(postService.getPostVO(post, request));
+        return ResultUtils.success(postService.getPostVOById(id, request));
     }
 
     /**
@@ -155,10 +164,7 @@ public class PostController {
     @PostMapping("/list/page")
     @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
     public BaseResponse<Page<Post>> listPostByPage(@RequestBody PostQueryRequest postQueryRequest) {
-        long current = postQueryRequest.getCurrent();
-        long size = postQueryRequest.getPageSize();
-        Page<Post> postPage = postService.page(new Page<>(current, size),
-                postService.getQueryWrapper(postQueryRequest));
+        Page<Post> postPage = pagePost(postQueryRequest);
         return ResultUtils.success(postPage);
     }
 
@@ -172,12 +178,10 @@ public class PostController {
     @PostMapping("/list/page/vo")
     public BaseResponse<Page<PostVO>> listPostVOByPage(@RequestBody PostQueryRequest postQueryRequest,
             HttpServletRequest request) {
-        long current = postQueryRequest.getCurrent();
         long size = postQueryRequest.getPageSize();
         // 限制爬虫
         ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-        Page<Post> postPage = postService.page(new Page<>(current, size),
-                postService.getQueryWrapper(postQueryRequest));
+        Page<Post> postPage = pagePost(postQueryRequest);
         return ResultUtils.success(postService.getPostVOPage(postPage, request));
     }
 
@@ -196,19 +200,17 @@ public class PostController {
         }
         User loginUser = userService.getLoginUser(request);
         postQueryRequest.setUserId(loginUser.getId());
-        long current = postQueryRequest.getCurrent();
         long size = postQueryRequest.getPageSize();
         // 限制爬虫
         ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-        Page<Post> postPage = postService.page(new Page<>(current, size),
-                postService.getQueryWrapper(postQueryRequest));
+        Page<Post> postPage = pagePost(postQueryRequest);
         return ResultUtils.success(postService.getPostVOPage(postPage, request));
     }
 
     // endregion
 
     /**
-     * 分页搜索（从 ES 查询，封装类）
+     * 分页搜索（从 ES 或本地索引查询，封装类）
      *
      * @param postQueryRequest
      * @param request
@@ -220,8 +222,7 @@ public class PostController {
         long size = postQueryRequest.getPageSize();
         // 限制爬虫
         ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-        Page<Post> postPage = postService.searchFromEs(postQueryRequest);
-        return ResultUtils.success(postService.getPostVOPage(postPage, request));
+        return ResultUtils.success(postService.searchPostVO(postQueryRequest, request));
     }
 
     /**
@@ -253,8 +254,36 @@ public class PostController {
         if (!oldPost.getUserId().equals(loginUser.getId()) && !userService.isAdmin(loginUser)) {
             throw new BusinessException(ErrorCode.NO_AUTH_ERROR);
         }
-        boolean result = postService.updateById(post);
+        boolean result = postService.updatePost(post);
+        postVOCacheManager.invalidate(id);
         return ResultUtils.success(result);
     }
 
+    /**
+     * 根据点赞、收藏关系表校正计数（仅管理员，后台执行）
+     *
+     * @return 是否已开始
+     */
+    @PostMapping("/counter/reconcile")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<Boolean> reconcilePostCounter() {
+        return ResultUtils.success(postCounterManager.startReconcile());
+    }
+
+    /**
+     * 分页查询（传了游标时走游标分页）
+     *
+     * @param postQueryRequest
+     * @return
+     */
+    private Page<Post> pagePost(PostQueryRequest postQueryRequest) {
+        if (postQueryRequest.getCursor() != null) {
+            return postService.pageByCursor(postQueryRequest);
+        }
+        long current = postQueryRequest.getCurrent();
+        long size = postQueryRequest.getPageSize();
+        return postService.page(new Page<>(current, size, postQueryRequest.isSearchCount()),
+                postService.getQueryWrapper(postQueryRequest));
+    }
+
 }
@@ -0,0 +1,59 @@
+package com.lhk.springbootinit.controller;
+
+import com.lhk.springbootinit.annotation.AuthCheck;
+import com.lhk.springbootinit.common.BaseResponse;
+import com.lhk.springbootinit.common.ErrorCode;
+import com.lhk.springbootinit.common.ResultUtils;
+import com.lhk.springbootinit.constant.UserConstant;
+import com.lhk.springbootinit.exception.BusinessException;
+import com.lhk.springbootinit.manager.PostEsReindexManager;
+import com.lhk.springbootinit.model.vo.EsReindexStatusVO;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 帖子 ES 运维接口
+ */
+@RestController
+@RequestMapping("/post/es")
+@Slf4j
+public class PostEsController {
+
+    @Resource
+    private ObjectProvider<PostEsReindexManager> postEsReindexManagerProvider;
+
+    /**
+     * 重建索引（仅管理员，后台执行）
+     *
+     * @return 新索引名
+     */
+    @PostMapping("/reindex")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<String> reindex() {
+        return ResultUtils.success(getReindexManager().startReindex());
+    }
+
+    /**
+     * 获取重建索引状态（仅管理员）
+     *
+     * @return
+     */
+    @GetMapping("/reindex/status")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<EsReindexStatusVO> getReindexStatus() {
+        return ResultUtils.success(getReindexManager().getStatus());
+    }
+
+    private PostEsReindexManager getReindexManager() {
+        PostEsReindexManager postEsReindexManager = postEsReindexManagerProvider.getIfAvailable();
+        if (postEsReindexManager == null) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "未开启 ES");
+        }
+        return postEsReindexManager;
+    }
+}
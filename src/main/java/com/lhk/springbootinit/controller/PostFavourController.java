@@ -1,5 +1,6 @@
 package com.lhk.springbootinit.controller;
 
+import cn.hutool.core.collection.CollUtil;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.lhk.springbootinit.common.BaseResponse;
 import com.lhk.springbootinit.common.ErrorCode;
@@ -8,13 +9,16 @@ import com.lhk.springbootinit.exception.BusinessException;
 import com.lhk.springbootinit.exception.ThrowUtils;
 import com.lhk.springbootinit.model.dto.post.PostQueryRequest;
 import com.lhk.springbootinit.model.dto.postfavour.PostFavourAddRequest;
+import com.lhk.springbootinit.model.dto.postfavour.PostFavourBatchRequest;
 import com.lhk.springbootinit.model.dto.postfavour.PostFavourQueryRequest;
 import com.lhk.springbootinit.model.entity.Post;
 import com.lhk.springbootinit.model.entity.User;
+import com.lhk.springbootinit.model.vo.PostBatchResultVO;
 import com.lhk.springbootinit.model.vo.PostVO;
 import com.lhk.springbootinit.service.PostFavourService;
 import com.lhk.springbootinit.service.PostService;
 import com.lhk.springbootinit.service.UserService;
+import java.util.List;
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
@@ -60,6 +64,26 @@ public class PostFavourController {
         return ResultUtils.success(result);
     }
 
+    /**
+     * 批量收藏 / 取消收藏（按期望状态设置）
+     *
+     * @param postFavourBatchRequest
+     * @param request
+     * @return 每项结果
+     */
+    @PostMapping("/batch")
+    public BaseResponse<List<PostBatchResultVO>> doPostFavourBatch(@RequestBody PostFavourBatchRequest postFavourBatchRequest,
+            HttpServletRequest request) {
+        if (postFavourBatchRequest == null || CollUtil.isEmpty(postFavourBatchRequest.getItemList())) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        ThrowUtils.throwIf(postFavourBatchRequest.getItemList().size() > 100, ErrorCode.PARAMS_ERROR, "单次最多操作 100 项");
+        // 登录才能收藏
+        final User loginUser = userService.getLoginUser(request);
+        List<PostBatchResultVO> resultList = postFavourService.doPostFavourBatch(postFavourBatchRequest.getItemList(), loginUser);
+        return ResultUtils.success(resultList);
+    }
+
     /**
      * 获取我收藏的帖子列表
      *
@@ -77,7 +101,8 @@ public class PostFavourController {
         long size = postQueryRequest.getPageSize();
         // 限制爬虫
         ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-        Page<Post> postPage = postFavourService.listFavourPostByPage(new Page<>(current, size),
+        Page<Post> postPage = postFavourService.listFavourPostByPage(
+                new Page<>(current, size, postQueryRequest.isSearchCount()),
                 postService.getQueryWrapper(postQueryRequest), loginUser.getId());
         return ResultUtils.success(postService.getPostVOPage(postPage, request));
     }
@@ -99,7 +124,8 @@ public class PostFavourController {
         Long userId = postFavourQueryRequest.getUserId();
         // 限制爬虫
         ThrowUtils.throwIf(size > 20 || userId == null, ErrorCode.PARAMS_ERROR);
-        Page<Post> postPage = postFavourService.listFavourPostByPage(new Page<>(current, size),
+        Page<Post> postPage = postFavourService.listFavourPostByPage(
+                new Page<>(current, size, postFavourQueryRequest.isSearchCount()),
                 postService.getQueryWrapper(postFavourQueryRequest.getPostQueryRequest()), userId);
         return ResultUtils.success(postService.getPostVOPage(postPage, request));
     }
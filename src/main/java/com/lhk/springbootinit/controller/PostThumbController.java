@@ -1,13 +1,18 @@
 package com.lhk.springbootinit.controller;
 
+import cn.hutool.core.collection.CollUtil;
 import com.lhk.springbootinit.common.BaseResponse;
 import com.lhk.springbootinit.common.ErrorCode;
 import com.lhk.springbootinit.common.ResultUtils;
 import com.lhk.springbootinit.exception.BusinessException;
+import com.lhk.springbootinit.exception.ThrowUtils;
 import com.lhk.springbootinit.model.dto.postthumb.PostThumbAddRequest;
+import com.lhk.springbootinit.model.dto.postthumb.PostThumbBatchRequest;
 import com.lhk.springbootinit.model.entity.User;
+import com.lhk.springbootinit.model.vo.PostBatchResultVO;
 import com.lhk.springbootinit.service.PostThumbService;
 import com.lhk.springbootinit.service.UserService;
+import java.util.List;
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
@@ -50,4 +55,24 @@ public class PostThumbController {
         return ResultUtils.success(result);
     }
 
+    /**
+     * 批量点赞 / 取消点赞（按期望状态设置）
+     *
+     * @param postThumbBatchRequest
+     * @param request
+     * @return 每项结果
+     */
+    @PostMapping("/batch")
+    public BaseResponse<List<PostBatchResultVO>> doThumbBatch(@RequestBody PostThumbBatchRequest postThumbBatchRequest,
+            HttpServletRequest request) {
+        if (postThumbBatchRequest == null || CollUtil.isEmpty(postThumbBatchRequest.getItemList())) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR);
+        }
+        ThrowUtils.throwIf(postThumbBatchRequest.getItemList().size() > 100, ErrorCode.PARAMS_ERROR, "单次最多操作 100 项");
+        // 登录才能点赞
+        final User loginUser = userService.getLoginUser(request);
+        List<PostBatchResultVO> resultList = postThumbService.doPostThumbBatch(postThumbBatchRequest.getItemList(), loginUser);
+        return ResultUtils.success(resultList);
+    }
+
 }
@@ -1,24 +1,42 @@
 package com.lhk.springbootinit.job.cycle;
 
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.config.PostSearchConfig;
 import com.lhk.springbootinit.esdao.PostEsDao;
+import com.lhk.springbootinit.manager.KeyedLockManager;
+import com.lhk.springbootinit.manager.PostSearchCacheManager;
 import com.lhk.springbootinit.mapper.PostMapper;
+import com.lhk.springbootinit.mapper.SyncCheckpointMapper;
 import com.lhk.springbootinit.model.dto.post.PostEsDTO;
 import com.lhk.springbootinit.model.entity.Post;
+import com.lhk.springbootinit.model.entity.SyncCheckpoint;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import javax.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import cn.hutool.core.collection.CollUtil;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
 
 /**
  * 增量同步帖子到 es
+ * <p>
+ * 从持久化的位点 (updateTime, id) 开始按顺序分批读取变更，每条变更只同步一次，写入成功后推进位点
  */
-// todo 取消注释开启任务
-//@Component
+// 开启 ES（post.search.es-enabled）且关闭帖子变更事件（post.outbox.enabled）时生效，否则由 PostEsSink 同步
+@Component
+@ConditionalOnExpression("${post.search.es-enabled:false} && !${post.outbox.enabled:true}")
 @Slf4j
-public class IncSyncPostToEs {
+public class IncSyncPostToEs implements MetricsProvider {
+
+    private static final String CHECKPOINT_NAME = "IncSyncPostToEs";
 
     @Resource
     private PostMapper postMapper;
@@ -26,29 +44,96 @@ public class IncSyncPostToEs {
     @Resource
     private PostEsDao postEsDao;
 
+    @Resource
+    private SyncCheckpointMapper syncCheckpointMapper;
+
+    @Resource
+    private KeyedLockManager keyedLockManager;
+
+    @Resource
+    private PostSearchConfig postSearchConfig;
+
+    @Resource
+    private PostSearchCacheManager postSearchCacheManager;
+
+    private volatile long watermarkTime;
+
     /**
-     * 每分钟执行一次
+     * 上次执行是否已追上（未追上说明积压超过单次处理上限）
+     */
+    private volatile boolean caughtUp;
+
+    private final LongAdder syncedCount = new LongAdder();
+
+    private final AtomicLong lastRunCostMillis = new AtomicLong();
+
+    /**
+     * 每分钟执行一次（多节点只有一个执行）
      */
     @Scheduled(fixedRate = 60 * 1000)
     public void run() {
-        // 查询近 5 分钟内的数据
-        Date fiveMinutesAgoDate = new Date(new Date().getTime() - 5 * 60 * 1000L);
-        List<Post> postList = postMapper.listPostWithDelete(fiveMinutesAgoDate);
-        if (CollUtil.isEmpty(postList)) {
-            log.info("no inc post");
-            return;
+        keyedLockManager.tryExecuteWithLock("job:" + CHECKPOINT_NAME, this::syncFromCheckpoint);
+    }
+
+    private void syncFromCheckpoint() {
+        long start = System.currentTimeMillis();
+        SyncCheckpoint checkpoint = syncCheckpointMapper.selectById(CHECKPOINT_NAME);
+        // 首次执行从头开始
+        Date lastTime = checkpoint == null ? new Date(0) : checkpoint.getWatermarkTime();
+        long lastId = checkpoint == null ? 0 : checkpoint.getWatermarkId();
+        long safetyLagMillis = TimeUnit.SECONDS.toMillis(postSearchConfig.getEsSyncSafetyLagSeconds());
+        // 以数据库时间为准，应用服务器时钟偏差不会让位点越过尚未提交的变更
+        Date maxUpdateTime = new Date(syncCheckpointMapper.selectNow().getTime() - safetyLagMillis);
+        int batchSize = postSearchConfig.getEsSyncBatchSize();
+        int total = 0;
+        boolean drained = false;
+        for (int i = 0; i < postSearchConfig.getEsSyncMaxBatchesPerRun(); i++) {
+            List<Post> postList = postMapper.listPostWithDeleteAfter(lastTime, lastId, maxUpdateTime, batchSize);
+            if (CollUtil.isEmpty(postList)) {
+                drained = true;
+                break;
+            }
+            List<PostEsDTO> postEsDTOList = postList.stream()
+                    .map(PostEsDTO::objToDto)
+                    .collect(Collectors.toList());
+            // 写入失败直接抛出，位点不推进，下次从同一位置重试
+            postEsDao.saveAll(postEsDTOList);
+            Post lastPost = postList.get(postList.size() - 1);
+            lastTime = lastPost.getUpdateTime();
+            lastId = lastPost.getId();
+            syncCheckpointMapper.saveCheckpoint(CHECKPOINT_NAME, lastTime, lastId);
+            total += postList.size();
+            if (postList.size() < batchSize) {
+                drained = true;
+                break;
+            }
         }
-        List<PostEsDTO> postEsDTOList = postList.stream()
-                .map(PostEsDTO::objToDto)
-                .collect(Collectors.toList());
-        final int pageSize = 500;
-        int total = postEsDTOList.size();
-        log.info("IncSyncPostToEs start, total {}", total);
-        for (int i = 0; i < total; i += pageSize) {
-            int end = Math.min(i + pageSize, total);
-            log.info("sync from {} to {}", i, end);
-            postEsDao.saveAll(postEsDTOList.subList(i, end));
+        watermarkTime = lastTime.getTime();
+        caughtUp = drained;
+        syncedCount.add(total);
+        lastRunCostMillis.set(System.currentTimeMillis() - start);
+        if (total > 0) {
+            postSearchCacheManager.invalidateAll();
+            log.info("IncSyncPostToEs end, total {}, watermark ({}, {})", total, lastTime, lastId);
+        } else {
+            log.info("no inc post");
         }
-        log.info("IncSyncPostToEs end, total {}", total);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "incSyncPostToEs";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("watermarkTime", watermarkTime);
+        // 位点落后当前时间的毫秒数（无变更时也会增长，结合 syncedCount 判断）
+        metrics.put("lagMillis", watermarkTime == 0 ? -1 : System.currentTimeMillis() - watermarkTime);
+        metrics.put("caughtUp", caughtUp);
+        metrics.put("syncedCount", syncedCount.sum());
+        metrics.put("lastRunCostMillis", lastRunCostMillis.get());
+        return metrics;
     }
 }
@@ -0,0 +1,49 @@
+package com.lhk.springbootinit.job.once;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.lhk.springbootinit.model.entity.Post;
+import com.lhk.springbootinit.service.PostService;
+import java.util.List;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import cn.hutool.core.collection.CollUtil;
+import org.springframework.boot.CommandLineRunner;
+
+/**
+ * 回填帖子标签表（按 id 分批读取 post.tags 写入 post_tag，可重复执行）
+ */
+// todo 取消注释开启任务
+//@Component
+@Slf4j
+public class BackfillPostTag implements CommandLineRunner {
+
+    @Resource
+    private PostService postService;
+
+    @Override
+    public void run(String... args) {
+        final int pageSize = 500;
+        long lastId = 0;
+        int total = 0;
+        log.info("BackfillPostTag start");
+        while (true) {
+            QueryWrapper<Post> queryWrapper = new QueryWrapper<>();
+            queryWrapper.select("id", "tags").gt("id", lastId).orderByAsc("id").last("limit " + pageSize);
+            List<Post> postList = postService.list(queryWrapper);
+            if (CollUtil.isEmpty(postList)) {
+                break;
+            }
+            for (Post post : postList) {
+                try {
+                    postService.savePostTags(post.getId(), post.getTags());
+                } catch (Exception e) {
+                    log.error("backfill post tag error, postId = {}", post.getId(), e);
+                }
+            }
+            lastId = postList.get(postList.size() - 1).getId();
+            total += postList.size();
+            log.info("backfill to id {}, total {}", lastId, total);
+        }
+        log.info("BackfillPostTag end, total {}", total);
+    }
+}
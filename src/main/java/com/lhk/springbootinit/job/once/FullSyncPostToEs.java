@@ -1,45 +1,24 @@
 package com.lhk.springbootinit.job.once;
 
-import com.lhk.springbootinit.esdao.PostEsDao;
-import com.lhk.springbootinit.model.dto.post.PostEsDTO;
-import com.lhk.springbootinit.model.entity.Post;
-import com.lhk.springbootinit.service.PostService;
-import java.util.List;
-import java.util.stream.Collectors;
+import com.lhk.springbootinit.manager.PostEsReindexManager;
 import javax.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import cn.hutool.core.collection.CollUtil;
 import org.springframework.boot.CommandLineRunner;
 
 /**
- * 全量同步帖子到 es
+ * 全量同步帖子到 es（通过索引重建导入新版本索引后切换别名，进度见重建状态接口）
  */
-// todo 取消注释开启任务
+// todo 取消注释开启任务（须先开启 post.search.es-enabled）
 //@Component
 @Slf4j
 public class FullSyncPostToEs implements CommandLineRunner {
 
     @Resource
-    private PostService postService;
-
-    @Resource
-    private PostEsDao postEsDao;
+    private PostEsReindexManager postEsReindexManager;
 
     @Override
     public void run(String... args) {
-        List<Post> postList = postService.list();
-        if (CollUtil.isEmpty(postList)) {
-            return;
-        }
-        List<PostEsDTO> postEsDTOList = postList.stream().map(PostEsDTO::objToDto).collect(Collectors.toList());
-        final int pageSize = 500;
-        int total = postEsDTOList.size();
-        log.info("FullSyncPostToEs start, total {}", total);
-        for (int i = 0; i < total; i += pageSize) {
-            int end = Math.min(i + pageSize, total);
-            log.info("sync from {} to {}", i, end);
-            postEsDao.saveAll(postEsDTOList.subList(i, end));
-        }
-        log.info("FullSyncPostToEs end, total {}", total);
+        String newIndex = postEsReindexManager.startReindex();
+        log.info("FullSyncPostToEs start, new index {}", newIndex);
     }
 }
@@ -0,0 +1,102 @@
+package com.lhk.springbootinit.manager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * 缓存同步（基于 Redis 发布订阅在多节点间广播失效消息）
+ * <p>
+ * 未开启 Redis 时仅在本节点内分发
+ */
+@Component
+@Slf4j
+public class CacheSyncManager {
+
+    @Resource
+    private ObjectProvider<RedisConnectionFactory> redisConnectionFactoryProvider;
+
+    @Resource
+    private ObjectProvider<StringRedisTemplate> stringRedisTemplateProvider;
+
+    private final Map<String, List<Consumer<String>>> channelListenerMap = new ConcurrentHashMap<>();
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    @PostConstruct
+    public void init() {
+        RedisConnectionFactory redisConnectionFactory = redisConnectionFactoryProvider.getIfAvailable();
+        if (redisConnectionFactory == null) {
+            log.info("redis not configured, cache sync works in local mode");
+            return;
+        }
+        try {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(redisConnectionFactory);
+            container.afterPropertiesSet();
+            container.start();
+            listenerContainer = container;
+        } catch (Exception e) {
+            log.error("redis listener container start error, cache sync works in local mode", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+
+    /**
+     * 订阅频道
+     *
+     * @param channel
+     * @param listener
+     */
+    public void subscribe(String channel, Consumer<String> listener) {
+        channelListenerMap.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(listener);
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener((message, pattern) -> {
+                // 本节点发布的消息也会收到一次，失效操作幂等
+                listener.accept(new String(message.getBody(), StandardCharsets.UTF_8));
+            }, new ChannelTopic(channel));
+        }
+    }
+
+    /**
+     * 发布消息（先在本节点分发，再广播到其他节点）
+     *
+     * @param channel
+     * @param message
+     */
+    public void publish(String channel, String message) {
+        List<Consumer<String>> listenerList = channelListenerMap.get(channel);
+        if (listenerList != null) {
+            listenerList.forEach(listener -> listener.accept(message));
+        }
+        StringRedisTemplate stringRedisTemplate = stringRedisTemplateProvider.getIfAvailable();
+        if (stringRedisTemplate == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            // 广播失败时其他节点依靠本地缓存过期兜底
+            log.error("cache sync publish error, channel = {}, message = {}", channel, message, e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.lhk.springbootinit.manager;
+
+import com.qcloud.cos.exception.CosServiceException;
+import com.qcloud.cos.model.COSObject;
+import com.qcloud.cos.model.ObjectMetadata;
+import com.qcloud.cos.model.PartSummary;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.annotation.Resource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 腾讯云对象存储
+ */
+@Component
+@ConditionalOnProperty(prefix = "file.storage", name = "type", havingValue = "cos", matchIfMissing = true)
+public class CosFileStorage implements FileStorage {
+
+    @Resource
+    private CosManager cosManager;
+
+    @Override
+    public String putObject(String key, InputStream inputStream, long contentLength, String contentType)
+            throws IOException {
+        try {
+            return cosManager.putObject(key, inputStream, contentLength, contentType);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("upload interrupted, key = " + key);
+        }
+    }
+
+    @Override
+    public FileStorageObject getObject(String key) throws IOException {
+        COSObject cosObject;
+        try {
+            cosObject = cosManager.getObject(key);
+        } catch (CosServiceException e) {
+            if (e.getStatusCode() == 404) {
+                throw new NoSuchFileException(key);
+            }
+            throw e;
+        }
+        FileStorageObject fileStorageObject = toFileStorageObject(cosObject.getObjectMetadata());
+        fileStorageObject.setInputStream(cosObject.getObjectContent());
+        return fileStorageObject;
+    }
+
+    @Override
+    public FileStorageObject getObjectMetadata(String key) throws IOException {
+        try {
+            return toFileStorageObject(cosManager.getObjectMetadata(key));
+        } catch (CosServiceException e) {
+            if (e.getStatusCode() == 404) {
+                throw new NoSuchFileException(key);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean doesObjectExist(String key) {
+        return cosManager.doesObjectExist(key);
+    }
+
+    @Override
+    public void deleteObject(String key) {
+        cosManager.deleteObject(key);
+    }
+
+    @Override
+    public List<String> listObjects(String prefix) {
+        return cosManager.listObjectKeys(prefix);
+    }
+
+    @Override
+    public String initMultipartUpload(String key, String contentType) {
+        return cosManager.initMultipartUpload(key, contentType);
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long partSize) {
+        return cosManager.uploadPart(key, uploadId, partNumber, inputStream, partSize);
+    }
+
+    @Override
+    public List<Integer> listParts(String key, String uploadId) {
+        return cosManager.listParts(key, uploadId).stream()
+                .map(PartSummary::getPartNumber)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public String completeMultipartUpload(String key, String uploadId, long maxSize) {
+        return cosManager.completeMultipartUpload(key, uploadId, maxSize);
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) {
+        cosManager.abortMultipartUpload(key, uploadId);
+    }
+
+    private static FileStorageObject toFileStorageObject(ObjectMetadata objectMetadata) {
+        FileStorageObject fileStorageObject = new FileStorageObject();
+        fileStorageObject.setContentLength(objectMetadata.getContentLength());
+        fileStorageObject.setETag(objectMetadata.getETag());
+        fileStorageObject.setContentType(objectMetadata.getContentType());
+        fileStorageObject.setLastModified(objectMetadata.getLastModified());
+        return fileStorageObject;
+    }
+}
@@ -1,7 +1,13 @@
 package com.lhk.springbootinit.manager;
 
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.NamedThreadFactory;
+import com.lhk.springbootinit.common.ErrorCode;
+import com.lhk.springbootinit.common.MetricsProvider;
 import com.lhk.springbootinit.config.CosClientConfig;
+import com.lhk.springbootinit.exception.BusinessException;
 import com.qcloud.cos.COSClient;
 import com.qcloud.cos.exception.CosClientException;
 import com.qcloud.cos.exception.CosServiceException;
@@ -9,15 +15,26 @@ import com.qcloud.cos.exception.MultiObjectDeleteException;
 import com.qcloud.cos.model.*;
 import com.qcloud.cos.transfer.Download;
 import com.qcloud.cos.transfer.TransferManager;
+import com.qcloud.cos.transfer.TransferManagerConfiguration;
+import com.qcloud.cos.transfer.Upload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import java.io.File;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Cos 对象存储操作
@@ -26,7 +43,9 @@ import java.util.concurrent.Executors;
 
  */
 @Component
-public class CosManager {
+@ConditionalOnProperty(prefix = "file.storage", name = "type", havingValue = "cos", matchIfMissing = true)
+@Slf4j
+public class CosManager implements MetricsProvider {
 
     @Resource
     private CosClientConfig cosClientConfig;
@@ -34,16 +53,59 @@ public class CosManager {
     @Resource
     private COSClient cosClient;
 
+    private ThreadPoolExecutor transferThreadPool;
+
     private TransferManager transferManager;
 
+    /**
+     * 上传 id => 分块上传进度（未完成的上传一天后淘汰）
+     */
+    private final LRUCache<String, MultipartUploadProgress> multipartUploadProgressCache = CacheUtil.newLRUCache(
+            10000, TimeUnit.DAYS.toMillis(1));
+
+    private final LongAdder uploadCount = new LongAdder();
+
+    private final LongAdder uploadedBytes = new LongAdder();
+
+    private final LongAdder uploadedPartCount = new LongAdder();
+
+    private final AtomicLong lastUploadBytesPerSecond = new AtomicLong();
+
+    private final LongAdder rejectedTaskCount = new LongAdder();
+
     // bean 加载完成后执行
     @PostConstruct
     public void init() {
-        // 执行初始化逻辑
-        System.out.println("Bean initialized!");
-        // 多线程并发上传下载
-        ExecutorService threadPool = Executors.newFixedThreadPool(32);
+        // 多线程并发上传下载，有界队列，满时拒绝而不是无限排队
+        int transferThreads = cosClientConfig.getTransferThreads();
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(transferThreads, transferThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(cosClientConfig.getTransferQueueCapacity()),
+                new NamedThreadFactory("cos-transfer-", false), (runnable, executor) -> {
+                    rejectedTaskCount.increment();
+                    throw new BusinessException(ErrorCode.TOO_MANY_REQUEST_ERROR, "文件传输繁忙，请稍后重试");
+                });
+        threadPool.allowCoreThreadTimeOut(true);
+        transferThreadPool = threadPool;
         transferManager = new TransferManager(cosClient, threadPool);
+        TransferManagerConfiguration transferManagerConfiguration = new TransferManagerConfiguration();
+        transferManagerConfiguration.setMultipartUploadThreshold(cosClientConfig.getMultipartThreshold());
+        transferManagerConfiguration.setMinimumUploadPartSize(cosClientConfig.getPartSize());
+        transferManager.setConfiguration(transferManagerConfiguration);
+    }
+
+    /**
+     * 停机时等待进行中的传输完成
+     *
+     * @throws InterruptedException
+     */
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        transferThreadPool.shutdown();
+        if (!transferThreadPool.awaitTermination(cosClientConfig.getTransferShutdownSeconds(), TimeUnit.SECONDS)) {
+            log.warn("cos transfer not finished in {} seconds, force shutdown",
+                    cosClientConfig.getTransferShutdownSeconds());
+            transferThreadPool.shutdownNow();
+        }
     }
 
     /**
@@ -89,6 +151,168 @@ public class CosManager {
         return cosClient.putObject(putObjectRequest);
     }
 
+    /**
+     * 上传对象（流式，不落本地磁盘）
+     * <p>
+     * 超过分块阈值时通过 TransferManager 分块上传，否则直接上传。
+     * 注意：流无法随机读取，TransferManager 只对文件并发上传分块，流的分块按顺序逐个上传（单个请求不会并发）；
+     * 需要并发时由客户端走分块上传接口（{@link #initMultipartUpload}）并行提交各块
+     *
+     * @param key           唯一键
+     * @param inputStream   输入流（由调用方关闭）
+     * @param contentLength 内容长度
+     * @param contentType   内容类型，可为空
+     * @return ETag
+     * @throws InterruptedException
+     */
+    public String putObject(String key, InputStream inputStream, long contentLength, String contentType)
+            throws InterruptedException {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        // 指定长度后 SDK 不再缓冲整个流来计算长度
+        objectMetadata.setContentLength(contentLength);
+        if (contentType != null) {
+            objectMetadata.setContentType(contentType);
+        }
+        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key, inputStream,
+                objectMetadata);
+        long start = System.currentTimeMillis();
+        String eTag;
+        if (contentLength < cosClientConfig.getMultipartThreshold()) {
+            eTag = cosClient.putObject(putObjectRequest).getETag();
+        } else {
+            Upload upload = transferManager.upload(putObjectRequest);
+            // 同步等待上传完成
+            eTag = upload.waitForUploadResult().getETag();
+        }
+        uploadedBytes.add(contentLength);
+        recordUpload(key, contentLength, System.currentTimeMillis() - start);
+        return eTag;
+    }
+
+    /**
+     * 初始化分块上传
+     *
+     * @param key         唯一键
+     * @param contentType 内容类型，可为空
+     * @return 上传 id
+     */
+    public String initMultipartUpload(String key, String contentType) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        if (contentType != null) {
+            objectMetadata.setContentType(contentType);
+        }
+        InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(cosClientConfig.getBucket(), key,
+                objectMetadata);
+        String uploadId = cosClient.initiateMultipartUpload(request).getUploadId();
+        multipartUploadProgressCache.put(uploadId, new MultipartUploadProgress());
+        return uploadId;
+    }
+
+    /**
+     * 上传分块（同一分块重复上传会覆盖）
+     *
+     * @param key         唯一键
+     * @param uploadId    上传 id
+     * @param partNumber  分块序号，从 1 开始
+     * @param inputStream 输入流（由调用方关闭）
+     * @param partSize    分块大小
+     * @return ETag
+     */
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long partSize) {
+        UploadPartRequest request = new UploadPartRequest();
+        request.setBucketName(cosClientConfig.getBucket());
+        request.setKey(key);
+        request.setUploadId(uploadId);
+        request.setPartNumber(partNumber);
+        request.setInputStream(inputStream);
+        request.setPartSize(partSize);
+        String eTag = cosClient.uploadPart(request).getETag();
+        uploadedPartCount.increment();
+        uploadedBytes.add(partSize);
+        return eTag;
+    }
+
+    /**
+     * 列出已上传的分块
+     *
+     * @param key      唯一键
+     * @param uploadId 上传 id
+     * @return
+     */
+    public List<PartSummary> listParts(String key, String uploadId) {
+        ListPartsRequest request = new ListPartsRequest(cosClientConfig.getBucket(), key, uploadId);
+        List<PartSummary> partSummaryList = new ArrayList<>();
+        PartListing partListing;
+        do {
+            partListing = cosClient.listParts(request);
+            partSummaryList.addAll(partListing.getParts());
+            request.setPartNumberMarker(partListing.getNextPartNumberMarker());
+        } while (partListing.isTruncated());
+        return partSummaryList;
+    }
+
+    /**
+     * 完成分块上传（以服务端记录的分块为准合并）
+     *
+     * @param key      唯一键
+     * @param uploadId 上传 id
+     * @param maxSize  合并后的最大字节数，超出时取消上传
+     * @return ETag
+     */
+    public String completeMultipartUpload(String key, String uploadId, long maxSize) {
+        List<PartSummary> partSummaryList = listParts(key, uploadId);
+        List<PartETag> partETagList = new ArrayList<>(partSummaryList.size());
+        long totalBytes = 0;
+        for (PartSummary partSummary : partSummaryList) {
+            partETagList.add(new PartETag(partSummary.getPartNumber(), partSummary.getETag()));
+            totalBytes += partSummary.getSize();
+        }
+        if (totalBytes > maxSize) {
+            abortMultipartUpload(key, uploadId);
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件大小超出限制");
+        }
+        CompleteMultipartUploadRequest request = new CompleteMultipartUploadRequest(cosClientConfig.getBucket(), key,
+                uploadId, partETagList);
+        String eTag = cosClient.completeMultipartUpload(request).getETag();
+        MultipartUploadProgress progress = multipartUploadProgressCache.get(uploadId, false);
+        multipartUploadProgressCache.remove(uploadId);
+        // 重启后丢失的进度按 -1 记录耗时
+        recordUpload(key, totalBytes, progress == null ? -1 : System.currentTimeMillis() - progress.startTime);
+        return eTag;
+    }
+
+    /**
+     * 取消分块上传（删除已上传的分块）
+     *
+     * @param key      唯一键
+     * @param uploadId 上传 id
+     */
+    public void abortMultipartUpload(String key, String uploadId) {
+        cosClient.abortMultipartUpload(new AbortMultipartUploadRequest(cosClientConfig.getBucket(), key, uploadId));
+        multipartUploadProgressCache.remove(uploadId);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "cos";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("uploadCount", uploadCount.sum());
+        metrics.put("uploadedBytes", uploadedBytes.sum());
+        metrics.put("uploadedPartCount", uploadedPartCount.sum());
+        metrics.put("activeMultipartUploadCount", multipartUploadProgressCache.size());
+        metrics.put("lastUploadBytesPerSecond", lastUploadBytesPerSecond.get());
+        metrics.put("transferActiveCount", transferThreadPool.getActiveCount());
+        metrics.put("transferPoolSize", transferThreadPool.getPoolSize());
+        metrics.put("transferQueuedCount", transferThreadPool.getQueue().size());
+        metrics.put("transferCompletedCount", transferThreadPool.getCompletedTaskCount());
+        metrics.put("transferRejectedCount", rejectedTaskCount.sum());
+        return metrics;
+    }
+
     /**
      * 下载对象
      *
@@ -100,6 +324,49 @@ public class CosManager {
         return cosClient.getObject(getObjectRequest);
     }
 
+    /**
+     * 获取对象元数据（HEAD 请求）
+     *
+     * @param key 唯一键
+     * @return
+     */
+    public ObjectMetadata getObjectMetadata(String key) {
+        return cosClient.getObjectMetadata(cosClientConfig.getBucket(), key);
+    }
+
+    /**
+     * 对象是否存在（HEAD 请求）
+     *
+     * @param key 唯一键
+     * @return
+     */
+    public boolean doesObjectExist(String key) {
+        return cosClient.doesObjectExist(cosClientConfig.getBucket(), key);
+    }
+
+    /**
+     * 列出指定前缀的对象
+     *
+     * @param prefix 前缀
+     * @return 唯一键列表
+     */
+    public List<String> listObjectKeys(String prefix) {
+        ListObjectsRequest listObjectsRequest = new ListObjectsRequest();
+        listObjectsRequest.setBucketName(cosClientConfig.getBucket());
+        listObjectsRequest.setPrefix(prefix);
+        listObjectsRequest.setMaxKeys(1000);
+        List<String> keyList = new ArrayList<>();
+        ObjectListing objectListing;
+        do {
+            objectListing = cosClient.listObjects(listObjectsRequest);
+            for (COSObjectSummary cosObjectSummary : objectListing.getObjectSummaries()) {
+                keyList.add(cosObjectSummary.getKey());
+            }
+            listObjectsRequest.setMarker(objectListing.getNextMarker());
+        } while (objectListing.isTruncated());
+        return keyList;
+    }
+
     /**
      * 删除对象
      *
@@ -179,5 +446,30 @@ public class CosManager {
         } while (objectListing.isTruncated());
     }
 
+    /**
+     * 记录一次完整上传，并输出吞吐量
+     *
+     * @param key
+     * @param bytes
+     * @param costMillis 未知时为 -1
+     */
+    private void recordUpload(String key, long bytes, long costMillis) {
+        uploadCount.increment();
+        if (costMillis < 0) {
+            log.info("upload object end, key = {}, bytes = {}", key, bytes);
+            return;
+        }
+        long bytesPerSecond = bytes * 1000 / Math.max(1, costMillis);
+        lastUploadBytesPerSecond.set(bytesPerSecond);
+        log.info("upload object end, key = {}, bytes = {}, cost = {} ms, {} KB/s", key, bytes, costMillis,
+                bytesPerSecond / 1024);
+    }
 
+    /**
+     * 分块上传进度
+     */
+    private static class MultipartUploadProgress {
+
+        private final long startTime = System.currentTimeMillis();
+    }
 }
@@ -0,0 +1,317 @@
+package com.lhk.springbootinit.manager;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.config.FileCacheConfig;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 文件本地磁盘缓存（LRU，按总字节数淘汰）
+ * <p>
+ * 缓存文件以随机名写入缓存目录，完整写入后才加入索引；淘汰时先移出索引再删除文件，已打开的读取不受影响。
+ * 上传路径带随机前缀，同一路径内容不变，删除对象时广播失效；本地存储时不缓存，直接读取存储的文件
+ */
+@Component
+@Slf4j
+public class FileCacheManager implements MetricsProvider {
+
+    private static final String INVALIDATE_CHANNEL = "file:cache:invalidate";
+
+    /**
+     * 缓存文件后缀，启动时只清理带该后缀的文件
+     */
+    private static final String CACHE_FILE_SUFFIX = ".cache";
+
+    @Resource
+    private FileCacheConfig fileCacheConfig;
+
+    @Resource
+    private FileStorage fileStorage;
+
+    @Resource
+    private CacheSyncManager cacheSyncManager;
+
+    private File cacheDir;
+
+    /**
+     * 对象路径 => 缓存文件（按访问顺序）
+     */
+    private final LinkedHashMap<String, CachedFile> cachedFileMap = new LinkedHashMap<>(16, 0.75F, true);
+
+    private long cachedBytes;
+
+    /**
+     * 加载中的对象，同一对象并发加载只请求一次对象存储
+     */
+    private final Map<String, CompletableFuture<CachedFile>> loadingMap = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder bypassCount = new LongAdder();
+
+    private final LongAdder evictCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        cacheDir = new File(fileCacheConfig.getDir());
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            throw new IllegalStateException("create file cache dir error: " + cacheDir);
+        }
+        // 索引只在内存中，上次运行留下的缓存文件直接清理
+        File[] oldFiles = cacheDir.listFiles((dir, name) -> name.endsWith(CACHE_FILE_SUFFIX));
+        if (oldFiles != null) {
+            for (File oldFile : oldFiles) {
+                deleteFile(oldFile);
+            }
+        }
+        cacheSyncManager.subscribe(INVALIDATE_CHANNEL, this::remove);
+    }
+
+    /**
+     * 获取缓存文件，未缓存时从对象存储加载
+     *
+     * @param key 对象路径
+     * @return 不缓存（未开启、业务类型不缓存或文件过大）时返回 null，本地存储时返回存储的文件
+     * @throws IOException
+     */
+    public CachedFile get(String key) throws IOException {
+        // 本地存储直接读取存储的文件
+        File localFile = fileStorage.getLocalFile(key);
+        if (localFile != null) {
+            return toCachedFile(key, localFile);
+        }
+        if (!isCacheable(key)) {
+            return null;
+        }
+        CachedFile cachedFile = getCached(key);
+        if (cachedFile != null) {
+            hitCount.increment();
+            return cachedFile;
+        }
+        CompletableFuture<CachedFile> future = new CompletableFuture<>();
+        CompletableFuture<CachedFile> loadingFuture = loadingMap.putIfAbsent(key, future);
+        if (loadingFuture != null) {
+            hitCount.increment();
+            return await(loadingFuture);
+        }
+        missCount.increment();
+        try {
+            cachedFile = load(key);
+            future.complete(cachedFile);
+            return cachedFile;
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadingMap.remove(key, future);
+        }
+    }
+
+    /**
+     * 丢弃本节点的缓存文件（缓存文件已不可读时调用）
+     *
+     * @param key
+     * @param cachedFile
+     */
+    public synchronized void discard(String key, CachedFile cachedFile) {
+        if (cachedFileMap.get(key) == cachedFile) {
+            removeLocked(key);
+        }
+    }
+
+    /**
+     * 失效缓存（所有节点）
+     *
+     * @param key 对象路径
+     */
+    public void invalidate(String key) {
+        cacheSyncManager.publish(INVALIDATE_CHANNEL, key);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "fileCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long hit = hitCount.sum();
+        long miss = missCount.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (this) {
+            metrics.put("cachedFileCount", cachedFileMap.size());
+            metrics.put("cachedBytes", cachedBytes);
+        }
+        metrics.put("hitCount", hit);
+        metrics.put("missCount", miss);
+        metrics.put("bypassCount", bypassCount.sum());
+        metrics.put("evictCount", evictCount.sum());
+        metrics.put("hitRate", hit + miss == 0 ? 0D : (double) hit / (hit + miss));
+        return metrics;
+    }
+
+    private boolean isCacheable(String key) {
+        if (!fileCacheConfig.isEnabled()) {
+            return false;
+        }
+        // 路径格式 /业务/目录/文件名
+        String[] parts = key.split("/");
+        return parts.length > 1 && fileCacheConfig.getBizList().contains(parts[1]);
+    }
+
+    private synchronized CachedFile getCached(String key) {
+        CachedFile cachedFile = cachedFileMap.get(key);
+        if (cachedFile == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - cachedFile.getCreateTime()
+                > TimeUnit.SECONDS.toMillis(fileCacheConfig.getExpireSeconds())) {
+            removeLocked(key);
+            return null;
+        }
+        return cachedFile;
+    }
+
+    /**
+     * 从对象存储下载到缓存目录
+     *
+     * @param key
+     * @return 文件过大时返回 null
+     * @throws IOException
+     */
+    private CachedFile load(String key) throws IOException {
+        // 先按元数据判断大小，过大的文件由调用方直接转发，不重复下载
+        if (fileStorage.getObjectMetadata(key).getContentLength() > fileCacheConfig.getMaxFileBytes()) {
+            bypassCount.increment();
+            return null;
+        }
+        try (FileStorageObject fileStorageObject = fileStorage.getObject(key)) {
+            if (fileStorageObject.getContentLength() > fileCacheConfig.getMaxFileBytes()) {
+                // 读取元数据后被替换为大文件
+                bypassCount.increment();
+                return null;
+            }
+            File file = new File(cacheDir, IdUtil.fastSimpleUUID() + CACHE_FILE_SUFFIX);
+            try {
+                Files.copy(fileStorageObject.getInputStream(), file.toPath());
+            } catch (IOException | RuntimeException e) {
+                deleteFile(file);
+                throw e;
+            }
+            CachedFile cachedFile = new CachedFile();
+            cachedFile.setFile(file);
+            cachedFile.setSize(file.length());
+            cachedFile.setETag(fileStorageObject.getETag());
+            cachedFile.setContentType(fileStorageObject.getContentType());
+            cachedFile.setLastModified(fileStorageObject.getLastModified());
+            cachedFile.setCreateTime(System.currentTimeMillis());
+            put(key, cachedFile);
+            return cachedFile;
+        }
+    }
+
+    private static CachedFile toCachedFile(String key, File localFile) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(localFile.toPath(), BasicFileAttributes.class);
+        CachedFile cachedFile = new CachedFile();
+        cachedFile.setFile(localFile);
+        cachedFile.setSize(attributes.size());
+        cachedFile.setETag(LocalFileStorage.getETag(attributes));
+        cachedFile.setContentType(FileUtil.getMimeType(key));
+        cachedFile.setLastModified(new Date(attributes.lastModifiedTime().toMillis()));
+        cachedFile.setCreateTime(System.currentTimeMillis());
+        return cachedFile;
+    }
+
+    private synchronized void put(String key, CachedFile cachedFile) {
+        removeLocked(key);
+        cachedFileMap.put(key, cachedFile);
+        cachedBytes += cachedFile.getSize();
+        // 超出总大小时从最久未访问的开始淘汰
+        Iterator<Map.Entry<String, CachedFile>> iterator = cachedFileMap.entrySet().iterator();
+        while (cachedBytes > fileCacheConfig.getMaxBytes() && iterator.hasNext()) {
+            CachedFile eldest = iterator.next().getValue();
+            if (eldest == cachedFile) {
+                continue;
+            }
+            iterator.remove();
+            cachedBytes -= eldest.getSize();
+            deleteFile(eldest.getFile());
+            evictCount.increment();
+        }
+    }
+
+    private synchronized void remove(String key) {
+        removeLocked(key);
+    }
+
+    private void removeLocked(String key) {
+        CachedFile cachedFile = cachedFileMap.remove(key);
+        if (cachedFile != null) {
+            cachedBytes -= cachedFile.getSize();
+            deleteFile(cachedFile.getFile());
+        }
+    }
+
+    private static CachedFile await(CompletableFuture<CachedFile> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while loading file", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static void deleteFile(File file) {
+        if (file.exists() && !file.delete()) {
+            log.warn("delete file cache error, file = {}", file);
+        }
+    }
+
+    /**
+     * 缓存文件
+     */
+    @Data
+    public static class CachedFile {
+
+        private File file;
+
+        private long size;
+
+        private String eTag;
+
+        private String contentType;
+
+        private Date lastModified;
+
+        private long createTime;
+    }
+}
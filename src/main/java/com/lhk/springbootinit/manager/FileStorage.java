@@ -0,0 +1,136 @@
+package com.lhk.springbootinit.manager;
+
+import com.lhk.springbootinit.exception.BusinessException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * 文件存储
+ * <p>
+ * 由 file.storage.type 选择实现，对象不存在时统一抛出 {@link java.nio.file.NoSuchFileException}
+ */
+public interface FileStorage {
+
+    /**
+     * 上传对象（流式）
+     *
+     * @param key           唯一键
+     * @param inputStream   输入流（由调用方关闭）
+     * @param contentLength 内容长度
+     * @param contentType   内容类型，可为空
+     * @return ETag
+     * @throws IOException
+     */
+    String putObject(String key, InputStream inputStream, long contentLength, String contentType) throws IOException;
+
+    /**
+     * 读取对象
+     *
+     * @param key 唯一键
+     * @return 对象（由调用方关闭）
+     * @throws IOException
+     */
+    FileStorageObject getObject(String key) throws IOException;
+
+    /**
+     * 读取对象元数据（不读取内容）
+     *
+     * @param key 唯一键
+     * @return 对象（内容流为空）
+     * @throws IOException
+     */
+    FileStorageObject getObjectMetadata(String key) throws IOException;
+
+    /**
+     * 对象是否存在
+     *
+     * @param key 唯一键
+     * @return
+     * @throws IOException
+     */
+    boolean doesObjectExist(String key) throws IOException;
+
+    /**
+     * 删除对象（不存在时忽略）
+     *
+     * @param key 唯一键
+     * @throws IOException
+     */
+    void deleteObject(String key) throws IOException;
+
+    /**
+     * 列出指定前缀的对象
+     *
+     * @param prefix 前缀
+     * @return 唯一键列表（有序）
+     * @throws IOException
+     */
+    List<String> listObjects(String prefix) throws IOException;
+
+    /**
+     * 初始化分块上传
+     *
+     * @param key         唯一键
+     * @param contentType 内容类型，可为空
+     * @return 上传 id
+     * @throws IOException
+     */
+    String initMultipartUpload(String key, String contentType) throws IOException;
+
+    /**
+     * 上传分块（同一分块重复上传会覆盖）
+     *
+     * @param key         唯一键
+     * @param uploadId    上传 id
+     * @param partNumber  分块序号，从 1 开始
+     * @param inputStream 输入流（由调用方关闭）
+     * @param partSize    分块大小
+     * @return ETag
+     * @throws IOException
+     */
+    String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long partSize)
+            throws IOException;
+
+    /**
+     * 列出已上传的分块
+     *
+     * @param key      唯一键
+     * @param uploadId 上传 id
+     * @return 分块序号列表（升序）
+     * @throws IOException
+     */
+    List<Integer> listParts(String key, String uploadId) throws IOException;
+
+    /**
+     * 完成分块上传（按已上传的分块合并），分块总大小超过上限时取消上传并抛出 {@link BusinessException}
+     *
+     * @param key      唯一键
+     * @param uploadId 上传 id
+     * @param maxSize  合并后的最大字节数
+     * @return ETag
+     * @throws IOException
+     */
+    String completeMultipartUpload(String key, String uploadId, long maxSize) throws IOException;
+
+    /**
+     * 取消分块上传（删除已上传的分块）
+     *
+     * @param key      唯一键
+     * @param uploadId 上传 id
+     * @throws IOException
+     */
+    void abortMultipartUpload(String key, String uploadId) throws IOException;
+
+    /**
+     * 获取对象对应的本地文件，可直接从磁盘读取
+     *
+     * @param key 唯一键
+     * @return 非本地存储时返回 null
+     * @throws IOException
+     */
+    default File getLocalFile(String key) throws IOException {
+        return null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.lhk.springbootinit.manager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 存储的对象（内容流及元数据）
+ */
+@Data
+public class FileStorageObject implements Closeable {
+
+    /**
+     * 内容
+     */
+    private InputStream inputStream;
+
+    /**
+     * 内容长度
+     */
+    private long contentLength;
+
+    private String eTag;
+
+    /**
+     * 内容类型，可能为空
+     */
+    private String contentType;
+
+    private Date lastModified;
+
+    @Override
+    public void close() throws IOException {
+        if (inputStream != null) {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.lhk.springbootinit.manager;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import cn.hutool.core.util.IdUtil;
+import com.lhk.springbootinit.common.ErrorCode;
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.config.KeyedLockConfig;
+import com.lhk.springbootinit.exception.BusinessException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按键加锁
+ * <p>
+ * {@link #executeWithLock} 本地为固定大小的分段锁数组（不同键可能落在同一分段，内存有界），
+ * 用于按用户等大量动态键串行化的业务；点赞、收藏已改为单语句幂等切换，目前没有调用方，保留供其他业务复用。
+ * {@link #tryExecuteWithLock} 用于定时任务，每个任务键有独立的本地锁，不会因分段冲突互相跳过。
+ * 开启分布式模式后再叠加 Redis 锁实现多节点互斥，持有期间按租期的三分之一定时续期，任务执行时间不受租期限制；
+ * 持有者宕机后停止续期，租期到后自动释放
+ */
+@Component
+@Slf4j
+public class KeyedLockManager implements MetricsProvider {
+
+    private static final String REDIS_KEY_PREFIX = "lock:";
+
+    /**
+     * 仅持有者可释放
+     */
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    /**
+     * 仅持有者可续期
+     */
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) "
+                    + "else return 0 end",
+            Long.class);
+
+    private static final long REDIS_RETRY_INTERVAL_MILLIS = 20;
+
+    @Resource
+    private KeyedLockConfig keyedLockConfig;
+
+    @Resource
+    private ObjectProvider<StringRedisTemplate> stringRedisTemplateProvider;
+
+    private ReentrantLock[] locks;
+
+    /**
+     * 任务键 => 本地锁（任务键为固定的少量常量）
+     */
+    private final Map<String, ReentrantLock> jobLockMap = new ConcurrentHashMap<>();
+
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * Redis 锁续期线程
+     */
+    private ScheduledExecutorService renewExecutor;
+
+    private final LongAdder acquireCount = new LongAdder();
+
+    private final LongAdder timeoutCount = new LongAdder();
+
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private final LongAdder renewFailedCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        int size = 1;
+        while (size < keyedLockConfig.getStripes()) {
+            size <<= 1;
+        }
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        if (keyedLockConfig.isDistributed()) {
+            stringRedisTemplate = stringRedisTemplateProvider.getIfAvailable();
+            if (stringRedisTemplate == null) {
+                log.warn("redis not configured, keyed lock works in local mode");
+            } else {
+                renewExecutor = Executors.newSingleThreadScheduledExecutor(
+                        new NamedThreadFactory("keyed-lock-renew-", true));
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (renewExecutor != null) {
+            renewExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 加锁执行（等待超时抛出业务异常）
+     *
+     * @param key
+     * @param action
+     * @param <T>
+     * @return
+     */
+    public <T> T executeWithLock(String key, Supplier<T> action) {
+        ReentrantLock lock = locks[stripe(key)];
+        long start = System.nanoTime();
+        long waitMillis = keyedLockConfig.getWaitMillis();
+        boolean locked;
+        try {
+            locked = lock.tryLock(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "获取锁被中断");
+        }
+        if (!locked) {
+            timeoutCount.increment();
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "操作过于频繁，请稍后重试");
+        }
+        try {
+            String token = null;
+            if (stringRedisTemplate != null) {
+                long remainMillis = waitMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                token = acquireRedisLock(key, remainMillis);
+                if (token == null) {
+                    timeoutCount.increment();
+                    throw new BusinessException(ErrorCode.OPERATION_ERROR, "操作过于频繁，请稍后重试");
+                }
+            }
+            recordWait(System.nanoTime() - start);
+            ScheduledFuture<?> renewFuture = startRenew(key, token);
+            try {
+                return action.get();
+            } finally {
+                if (token != null) {
+                    renewFuture.cancel(false);
+                    releaseRedisLock(key, token);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 尝试加锁执行，锁被占用时直接返回（适合定时任务等多节点只需一个执行的场景）
+     *
+     * @param key
+     * @param action
+     * @return 是否执行
+     */
+    public boolean tryExecuteWithLock(String key, Runnable action) {
+        ReentrantLock lock = jobLockMap.computeIfAbsent(key, k -> new ReentrantLock());
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            String token = null;
+            if (stringRedisTemplate != null) {
+                token = acquireRedisLock(key, 0);
+                if (token == null) {
+                    return false;
+                }
+            }
+            acquireCount.increment();
+            ScheduledFuture<?> renewFuture = startRenew(key, token);
+            try {
+                action.run();
+            } finally {
+                if (token != null) {
+                    renewFuture.cancel(false);
+                    releaseRedisLock(key, token);
+                }
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "keyedLock";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long acquire = acquireCount.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("stripes", locks.length);
+        metrics.put("distributed", stringRedisTemplate != null);
+        metrics.put("acquireCount", acquire);
+        metrics.put("timeoutCount", timeoutCount.sum());
+        metrics.put("avgWaitMicros", acquire == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.sum() / acquire));
+        metrics.put("maxWaitMicros", TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()));
+        metrics.put("renewFailedCount", renewFailedCount.sum());
+        return metrics;
+    }
+
+    /**
+     * 获取 Redis 锁
+     *
+     * @param key
+     * @param waitMillis
+     * @return 锁令牌，超时返回 null
+     */
+    private String acquireRedisLock(String key, long waitMillis) {
+        String redisKey = REDIS_KEY_PREFIX + key;
+        String token = IdUtil.fastSimpleUUID();
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (true) {
+            Boolean success = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(redisKey, token, keyedLockConfig.getLeaseMillis(), TimeUnit.MILLISECONDS);
+            if (Boolean.TRUE.equals(success)) {
+                return token;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return null;
+            }
+            try {
+                Thread.sleep(REDIS_RETRY_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 定时续期 Redis 锁
+     *
+     * @param key
+     * @param token 为 null 时（本地模式）不续期
+     * @return 续期任务，本地模式返回 null
+     */
+    private ScheduledFuture<?> startRenew(String key, String token) {
+        if (token == null) {
+            return null;
+        }
+        long leaseMillis = keyedLockConfig.getLeaseMillis();
+        long intervalMillis = Math.max(1, leaseMillis / 3);
+        List<String> keyList = Collections.singletonList(REDIS_KEY_PREFIX + key);
+        return renewExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                Long result = stringRedisTemplate.execute(RENEW_SCRIPT, keyList, token, String.valueOf(leaseMillis));
+                if (result == null || result == 0) {
+                    renewFailedCount.increment();
+                    log.warn("redis lock lost, key = {}", key);
+                }
+            } catch (Exception e) {
+                // 下次继续尝试，租期内恢复即可
+                renewFailedCount.increment();
+                log.error("renew redis lock error, key = {}", key, e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void releaseRedisLock(String key, String token) {
+        try {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(REDIS_KEY_PREFIX + key), token);
+        } catch (Exception e) {
+            // 释放失败时依赖租期自动过期
+            log.error("release redis lock error, key = {}", key, e);
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        acquireCount.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private int stripe(String key) {
+        int hash = key.hashCode();
+        // 扰动高位，减少分段冲突
+        hash ^= (hash >>> 16);
+        return hash & (locks.length - 1);
+    }
+}
@@ -0,0 +1,412 @@
+package com.lhk.springbootinit.manager;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.lhk.springbootinit.common.ErrorCode;
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.config.FileStorageConfig;
+import com.lhk.springbootinit.exception.BusinessException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本地文件系统存储
+ * <p>
+ * 对象按唯一键的哈希分两级目录存放，文件名为唯一键的 Base64 编码；写入先写临时文件再原子重命名，
+ * 读取时内存映射整个文件，读到的始终是完整的某一版本
+ */
+@Component
+@ConditionalOnProperty(prefix = "file.storage", name = "type", havingValue = "local")
+@Slf4j
+public class LocalFileStorage implements FileStorage, MetricsProvider {
+
+    /**
+     * 分块上传目录（不会与两位十六进制的分片目录冲突）
+     */
+    private static final String MULTIPART_DIR = ".multipart";
+
+    /**
+     * 分块上传目录中记录唯一键的文件
+     */
+    private static final String UPLOAD_KEY_FILE = "key";
+
+    private static final String PART_SUFFIX = ".part";
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final Pattern UPLOAD_ID_PATTERN = Pattern.compile("[0-9a-f]{32}");
+
+    /**
+     * 文件名最大长度（字节）
+     */
+    private static final int MAX_FILE_NAME_LENGTH = 255;
+
+    @Resource
+    private FileStorageConfig fileStorageConfig;
+
+    private Path root;
+
+    private Path multipartRoot;
+
+    private final LongAdder uploadCount = new LongAdder();
+
+    private final LongAdder uploadedBytes = new LongAdder();
+
+    private final LongAdder uploadedPartCount = new LongAdder();
+
+    private final AtomicLong lastUploadBytesPerSecond = new AtomicLong();
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(fileStorageConfig.getLocalRoot()).toAbsolutePath();
+        multipartRoot = root.resolve(MULTIPART_DIR);
+        Files.createDirectories(multipartRoot);
+        log.info("local file storage root {}", root);
+    }
+
+    @Override
+    public String putObject(String key, InputStream inputStream, long contentLength, String contentType)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        Path path = getPath(key);
+        Files.createDirectories(path.getParent());
+        writeAtomically(inputStream, contentLength, path);
+        uploadedBytes.add(contentLength);
+        recordUpload(key, contentLength, System.currentTimeMillis() - start);
+        return getETag(Files.readAttributes(path, BasicFileAttributes.class));
+    }
+
+    @Override
+    public FileStorageObject getObject(String key) throws IOException {
+        Path path = getPath(key);
+        FileStorageObject fileStorageObject = new FileStorageObject();
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long size = fileChannel.size();
+            if (size <= Integer.MAX_VALUE) {
+                // 映射在通道关闭后仍然有效；文件只会被整体替换，不会被截断
+                fileStorageObject.setInputStream(
+                        new ByteBufferInputStream(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size)));
+            } else {
+                fileStorageObject.setInputStream(Channels.newInputStream(FileChannel.open(path,
+                        StandardOpenOption.READ)));
+            }
+            fileStorageObject.setContentLength(size);
+            fileStorageObject.setETag(getETag(attributes));
+            fileStorageObject.setContentType(FileUtil.getMimeType(key));
+            fileStorageObject.setLastModified(new Date(attributes.lastModifiedTime().toMillis()));
+        }
+        return fileStorageObject;
+    }
+
+    @Override
+    public FileStorageObject getObjectMetadata(String key) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(getPath(key), BasicFileAttributes.class);
+        FileStorageObject fileStorageObject = new FileStorageObject();
+        fileStorageObject.setContentLength(attributes.size());
+        fileStorageObject.setETag(getETag(attributes));
+        fileStorageObject.setContentType(FileUtil.getMimeType(key));
+        fileStorageObject.setLastModified(new Date(attributes.lastModifiedTime().toMillis()));
+        return fileStorageObject;
+    }
+
+    @Override
+    public boolean doesObjectExist(String key) {
+        return Files.isRegularFile(getPath(key));
+    }
+
+    @Override
+    public void deleteObject(String key) throws IOException {
+        Files.deleteIfExists(getPath(key));
+    }
+
+    @Override
+    public List<String> listObjects(String prefix) throws IOException {
+        List<String> keyList = new ArrayList<>();
+        // 分片目录/分片目录/文件，跳过分块上传目录和临时文件
+        try (Stream<Path> pathStream = Files.find(root, 3, (path, attributes) -> {
+            Path relativePath = root.relativize(path);
+            return attributes.isRegularFile() && relativePath.getNameCount() == 3
+                    && !relativePath.getName(0).toString().startsWith(".")
+                    && !path.getFileName().toString().startsWith(".");
+        })) {
+            pathStream.forEach(path -> {
+                String key = decodeKey(path.getFileName().toString());
+                if (key != null && key.startsWith(prefix)) {
+                    keyList.add(key);
+                }
+            });
+        }
+        Collections.sort(keyList);
+        return keyList;
+    }
+
+    @Override
+    public String initMultipartUpload(String key, String contentType) throws IOException {
+        // 提前校验唯一键，避免合并时才失败
+        getPath(key);
+        String uploadId = IdUtil.fastSimpleUUID();
+        Path uploadDir = multipartRoot.resolve(uploadId);
+        Files.createDirectories(uploadDir);
+        Files.write(uploadDir.resolve(UPLOAD_KEY_FILE), key.getBytes(StandardCharsets.UTF_8));
+        return uploadId;
+    }
+
+    @Override
+    public String uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long partSize)
+            throws IOException {
+        Path partPath = getUploadDir(key, uploadId).resolve(partNumber + PART_SUFFIX);
+        writeAtomically(inputStream, partSize, partPath);
+        uploadedPartCount.increment();
+        uploadedBytes.add(partSize);
+        return getETag(Files.readAttributes(partPath, BasicFileAttributes.class));
+    }
+
+    @Override
+    public List<Integer> listParts(String key, String uploadId) throws IOException {
+        List<Integer> partNumberList = new ArrayList<>();
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(getUploadDir(key, uploadId),
+                "*" + PART_SUFFIX)) {
+            for (Path partPath : directoryStream) {
+                String fileName = partPath.getFileName().toString();
+                partNumberList.add(Integer.parseInt(fileName.substring(0, fileName.length() - PART_SUFFIX.length())));
+            }
+        }
+        Collections.sort(partNumberList);
+        return partNumberList;
+    }
+
+    @Override
+    public String completeMultipartUpload(String key, String uploadId, long maxSize) throws IOException {
+        long start = System.currentTimeMillis();
+        Path uploadDir = getUploadDir(key, uploadId);
+        List<Integer> partNumberList = listParts(key, uploadId);
+        if (partNumberList.isEmpty()) {
+            throw new IOException("no uploaded part, uploadId = " + uploadId);
+        }
+        long partBytes = 0;
+        for (Integer partNumber : partNumberList) {
+            partBytes += Files.size(uploadDir.resolve(partNumber + PART_SUFFIX));
+        }
+        if (partBytes > maxSize) {
+            abortMultipartUpload(key, uploadId);
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件大小超出限制");
+        }
+        Path path = getPath(key);
+        Files.createDirectories(path.getParent());
+        Path tmpPath = getTmpPath(path);
+        long totalBytes = 0;
+        try {
+            // 按分块序号依次拼接，文件间直接传输
+            try (FileChannel outputChannel = FileChannel.open(tmpPath, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                for (Integer partNumber : partNumberList) {
+                    try (FileChannel partChannel = FileChannel.open(uploadDir.resolve(partNumber + PART_SUFFIX),
+                            StandardOpenOption.READ)) {
+                        long partSize = partChannel.size();
+                        long position = 0;
+                        while (position < partSize) {
+                            position += partChannel.transferTo(position, partSize - position, outputChannel);
+                        }
+                        totalBytes += partSize;
+                    }
+                }
+                outputChannel.force(false);
+            }
+            Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmpPath);
+        }
+        FileUtil.del(uploadDir.toFile());
+        recordUpload(key, totalBytes, System.currentTimeMillis() - start);
+        return getETag(Files.readAttributes(path, BasicFileAttributes.class));
+    }
+
+    @Override
+    public void abortMultipartUpload(String key, String uploadId) throws IOException {
+        FileUtil.del(getUploadDir(key, uploadId).toFile());
+    }
+
+    @Override
+    public File getLocalFile(String key) throws IOException {
+        Path path = getPath(key);
+        if (!Files.isRegularFile(path)) {
+            throw new NoSuchFileException(key);
+        }
+        return path.toFile();
+    }
+
+    /**
+     * 本地文件的 ETag（修改时间 + 大小）
+     *
+     * @param attributes
+     * @return
+     */
+    public static String getETag(BasicFileAttributes attributes) {
+        return Long.toHexString(attributes.lastModifiedTime().toMillis()) + "-" + Long.toHexString(attributes.size());
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "localStorage";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("uploadCount", uploadCount.sum());
+        metrics.put("uploadedBytes", uploadedBytes.sum());
+        metrics.put("uploadedPartCount", uploadedPartCount.sum());
+        metrics.put("lastUploadBytesPerSecond", lastUploadBytesPerSecond.get());
+        return metrics;
+    }
+
+    /**
+     * 唯一键对应的文件路径：根目录/哈希前两位/哈希三四位/Base64(唯一键)
+     *
+     * @param key
+     * @return
+     */
+    private Path getPath(String key) {
+        String fileName = Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+        if (fileName.length() > MAX_FILE_NAME_LENGTH) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "文件路径过长");
+        }
+        String hash = DigestUtil.md5Hex(key);
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(fileName);
+    }
+
+    private static String decodeKey(String fileName) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(fileName), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 校验并获取分块上传目录
+     *
+     * @param key
+     * @param uploadId
+     * @return
+     * @throws IOException
+     */
+    private Path getUploadDir(String key, String uploadId) throws IOException {
+        if (uploadId == null || !UPLOAD_ID_PATTERN.matcher(uploadId).matches()) {
+            throw new NoSuchFileException("upload " + uploadId);
+        }
+        Path uploadDir = multipartRoot.resolve(uploadId);
+        Path keyPath = uploadDir.resolve(UPLOAD_KEY_FILE);
+        if (!Files.isRegularFile(keyPath)
+                || !key.equals(new String(Files.readAllBytes(keyPath), StandardCharsets.UTF_8))) {
+            throw new NoSuchFileException("upload " + uploadId);
+        }
+        return uploadDir;
+    }
+
+    /**
+     * 先写入同目录的临时文件，再原子重命名为目标文件
+     *
+     * @param inputStream
+     * @param contentLength 期望长度
+     * @param path
+     * @throws IOException
+     */
+    private static void writeAtomically(InputStream inputStream, long contentLength, Path path) throws IOException {
+        Path tmpPath = getTmpPath(path);
+        try {
+            long size = Files.copy(inputStream, tmpPath);
+            if (size != contentLength) {
+                throw new IOException("content length mismatch, expected " + contentLength + ", actual " + size);
+            }
+            Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmpPath);
+        }
+    }
+
+    private static Path getTmpPath(Path path) {
+        return path.resolveSibling("." + IdUtil.fastSimpleUUID() + TMP_SUFFIX);
+    }
+
+    private void recordUpload(String key, long bytes, long costMillis) {
+        uploadCount.increment();
+        long bytesPerSecond = bytes * 1000 / Math.max(1, costMillis);
+        lastUploadBytesPerSecond.set(bytesPerSecond);
+        log.info("upload object end, key = {}, bytes = {}, cost = {} ms, {} KB/s", key, bytes, costMillis,
+                bytesPerSecond / 1024);
+    }
+
+    /**
+     * 读取内存映射缓冲区的输入流
+     */
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int readLength = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, readLength);
+            return readLength;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipLength = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipLength);
+            return skipLength;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.lhk.springbootinit.manager;
+
+import com.lhk.springbootinit.model.entity.PostOutbox;
+import java.util.List;
+
+/**
+ * 帖子变更接收方（由变更事件分发器按事件顺序调用）
+ * <p>
+ * 事件至少投递一次，实现须幂等（一般按帖子 id 重新读取最新数据）
+ */
+public interface PostChangeSink {
+
+    /**
+     * 接收方名称
+     *
+     * @return
+     */
+    String getSinkName();
+
+    /**
+     * 处理一批变更事件，抛出异常时整批稍后重试
+     *
+     * @param eventList 按 id 升序
+     */
+    void onPostChanged(List<PostOutbox> eventList);
+}
@@ -0,0 +1,144 @@
+package com.lhk.springbootinit.manager;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.config.PostCacheConfig;
+import com.lhk.springbootinit.mapper.PostMapper;
+import com.lhk.springbootinit.model.entity.Post;
+import com.lhk.springbootinit.model.entity.PostOutbox;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 帖子计数缓存（点赞数、收藏数）
+ * <p>
+ * ES 搜索结果直接使用文档内容展示，计数从本缓存叠加；未命中时只查询计数列，
+ * 查询不到的帖子视为已删除。计数变更通过变更事件失效
+ */
+@Component
+@Slf4j
+public class PostCounterCacheManager implements MetricsProvider, PostChangeSink {
+
+    private static final String INVALIDATE_CHANNEL = "post:counter:invalidate";
+
+    @Resource
+    private PostCacheConfig postCacheConfig;
+
+    @Resource
+    private PostMapper postMapper;
+
+    @Resource
+    private CacheSyncManager cacheSyncManager;
+
+    /**
+     * 帖子 id => {点赞数, 收藏数}
+     */
+    private LRUCache<Long, int[]> counterCache;
+
+    /**
+     * 失效版本号，防止加载期间发生的失效被旧数据覆盖
+     */
+    private final AtomicLong invalidateVersion = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        counterCache = CacheUtil.newLRUCache(postCacheConfig.getCounterMaxSize(),
+                TimeUnit.SECONDS.toMillis(postCacheConfig.getMaxStaleSeconds()));
+        cacheSyncManager.subscribe(INVALIDATE_CHANNEL, message -> {
+            invalidateVersion.incrementAndGet();
+            counterCache.remove(Long.valueOf(message));
+        });
+    }
+
+    /**
+     * 批量获取计数
+     *
+     * @param postIds
+     * @return 帖子 id => {点赞数, 收藏数}，不包含已删除的帖子
+     */
+    public Map<Long, int[]> getCounters(Collection<Long> postIds) {
+        Map<Long, int[]> result = new HashMap<>();
+        List<Long> missPostIdList = new ArrayList<>();
+        for (Long postId : postIds) {
+            int[] counter = counterCache.get(postId, false);
+            if (counter != null) {
+                result.put(postId, counter);
+            } else {
+                missPostIdList.add(postId);
+            }
+        }
+        hitCount.add(result.size());
+        if (missPostIdList.isEmpty()) {
+            return result;
+        }
+        missCount.add(missPostIdList.size());
+        long version = invalidateVersion.get();
+        QueryWrapper<Post> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("id", "thumbNum", "favourNum").in("id", missPostIdList);
+        List<Post> postList = postMapper.selectList(queryWrapper);
+        boolean cacheable = invalidateVersion.get() == version;
+        for (Post post : postList) {
+            int[] counter = new int[]{post.getThumbNum(), post.getFavourNum()};
+            result.put(post.getId(), counter);
+            if (cacheable) {
+                counterCache.put(post.getId(), counter);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 失效缓存（所有节点）
+     *
+     * @param postId
+     */
+    public void invalidate(long postId) {
+        invalidateVersion.incrementAndGet();
+        cacheSyncManager.publish(INVALIDATE_CHANNEL, String.valueOf(postId));
+    }
+
+    @Override
+    public String getSinkName() {
+        return "postCounterCache";
+    }
+
+    @Override
+    public void onPostChanged(List<PostOutbox> eventList) {
+        eventList.stream().map(PostOutbox::getPostId).distinct().forEach(this::invalidate);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "postCounterCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long hit = hitCount.sum();
+        long miss = missCount.sum();
+        long total = hit + miss;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", counterCache.size());
+        metrics.put("hitCount", hit);
+        metrics.put("missCount", miss);
+        metrics.put("hitRate", total == 0 ? 0D : (double) hit / total);
+        return metrics;
+    }
+}
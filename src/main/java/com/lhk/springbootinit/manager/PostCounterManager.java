@@ -0,0 +1,390 @@
+package com.lhk.springbootinit.manager;
+
+import cn.hutool.core.collection.CollUtil;
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.config.PostCounterConfig;
+import com.lhk.springbootinit.config.PostOutboxConfig;
+import com.lhk.springbootinit.mapper.PostMapper;
+import com.lhk.springbootinit.mapper.PostOutboxMapper;
+import com.lhk.springbootinit.model.dto.post.PostCounterDelta;
+import com.lhk.springbootinit.model.enums.PostChangeTypeEnum;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 帖子计数合并写入（点赞数、收藏数）
+ * <p>
+ * 关系表记录在事务内同步写入，计数增量先按线程分段缓存在内存中，定时合并后批量更新 post 表，
+ * 避免热点帖子的行锁竞争；宕机丢失的增量由管理员触发校正（根据关系表重新计算）
+ */
+@Component
+@Slf4j
+public class PostCounterManager implements MetricsProvider {
+
+    /**
+     * 通知所有节点立即刷入增量
+     */
+    private static final String FLUSH_CHANNEL = "post:counter:flush";
+
+    private static final String RECONCILE_LOCK_KEY = "job:PostCounterReconcile";
+
+    @Resource
+    private PostCounterConfig postCounterConfig;
+
+    @Resource
+    private PostMapper postMapper;
+
+    @Resource
+    private PostVOCacheManager postVOCacheManager;
+
+    @Resource
+    private PostCounterCacheManager postCounterCacheManager;
+
+    @Resource
+    private PostOutboxConfig postOutboxConfig;
+
+    @Resource
+    private PostOutboxMapper postOutboxMapper;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    @Resource
+    private KeyedLockManager keyedLockManager;
+
+    @Resource
+    private CacheSyncManager cacheSyncManager;
+
+    private Stripe[] stripes;
+
+    private final LongAdder flushedPostCount = new LongAdder();
+
+    private final LongAdder flushedBatchCount = new LongAdder();
+
+    private final LongAdder flushErrorCount = new LongAdder();
+
+    private final AtomicLong lastFlushCostMillis = new AtomicLong();
+
+    private final AtomicLong reconciledPostCount = new AtomicLong();
+
+    private final AtomicLong reconcileSkippedCount = new AtomicLong();
+
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    /**
+     * 关系变更（读锁，互不阻塞）与校正批次（写锁）互斥，
+     * 保证校正重算时不存在关系已提交、增量尚未累加的帖子
+     */
+    private final ReentrantReadWriteLock changeLock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void init() {
+        stripes = new Stripe[Math.max(1, postCounterConfig.getStripes())];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        cacheSyncManager.subscribe(FLUSH_CHANNEL, message -> flush());
+    }
+
+    /**
+     * 执行关系变更（写入关系表并在提交后累加增量），校正批次进行中时等待
+     *
+     * @param change
+     * @param <T>
+     * @return
+     */
+    public <T> T executeChange(Supplier<T> change) {
+        changeLock.readLock().lock();
+        try {
+            return change.get();
+        } finally {
+            changeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 累加点赞数增量（须在关系表事务提交后调用）
+     *
+     * @param postId
+     * @param delta
+     */
+    public void addThumbDelta(long postId, int delta) {
+        add(postId, delta, 0);
+    }
+
+    /**
+     * 累加收藏数增量（须在关系表事务提交后调用）
+     *
+     * @param postId
+     * @param delta
+     */
+    public void addFavourDelta(long postId, int delta) {
+        add(postId, 0, delta);
+    }
+
+    /**
+     * 定时将增量刷入数据库
+     */
+    @Scheduled(fixedDelayString = "${post.counter.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<Long, int[]> postIdDeltaMap = drain();
+        if (postIdDeltaMap.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<PostCounterDelta> deltaList = new ArrayList<>(postIdDeltaMap.size());
+        postIdDeltaMap.forEach((postId, delta) -> {
+            if (delta[0] != 0 || delta[1] != 0) {
+                deltaList.add(new PostCounterDelta(postId, delta[0], delta[1]));
+            }
+        });
+        for (List<PostCounterDelta> batch : CollUtil.split(deltaList, postCounterConfig.getBatchSize())) {
+            try {
+                // 计数更新与变更事件在同一事务内写入
+                transactionTemplate.executeWithoutResult(status -> {
+                    postMapper.batchUpdateCounter(batch);
+                    if (postOutboxConfig.isEnabled()) {
+                        postOutboxMapper.insertBatch(batch.stream().map(PostCounterDelta::getPostId)
+                                .collect(Collectors.toList()), PostChangeTypeEnum.COUNTER.getValue());
+                    }
+                });
+                flushedBatchCount.increment();
+                flushedPostCount.add(batch.size());
+            } catch (Exception e) {
+                // 写入失败则放回缓冲，下次重试
+                log.error("flush post counter error, size = {}", batch.size(), e);
+                flushErrorCount.increment();
+                batch.forEach(delta -> add(delta.getPostId(), delta.getThumbDelta(), delta.getFavourDelta()));
+                continue;
+            }
+            // 开启变更事件时由事件分发器失效缓存
+            if (!postOutboxConfig.isEnabled()) {
+                batch.forEach(delta -> {
+                    postVOCacheManager.invalidate(delta.getPostId());
+                    postCounterCacheManager.invalidate(delta.getPostId());
+                });
+            }
+        }
+        lastFlushCostMillis.set(System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 停机前刷入剩余增量
+     */
+    @PreDestroy
+    public void destroy() {
+        flush();
+    }
+
+    /**
+     * 启动后在后台校正计数（默认关闭，仅用于宕机后恢复）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (postCounterConfig.isReconcileOnStartup()) {
+            startReconcile();
+        }
+    }
+
+    /**
+     * 开始校正计数（后台执行，多节点只有一个执行）
+     *
+     * @return 是否已开始（本节点已在校正时返回 false）
+     */
+    public boolean startReconcile() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                if (!keyedLockManager.tryExecuteWithLock(RECONCILE_LOCK_KEY, this::reconcileAll)) {
+                    log.info("reconcile post counter is running on other node");
+                }
+            } finally {
+                reconciling.set(false);
+            }
+        }, "post-counter-reconcile");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * 按 id 分批根据点赞、收藏关系表重新计算计数
+     * <p>
+     * 关系表记录先于增量提交，增量尚未刷入的帖子若按关系表重算，刷入时会重复累加。
+     * 因此先通知所有节点刷入增量并等待一个刷新间隔，每批再与本节点的刷入和关系变更（{@link #executeChange}）互斥，
+     * 跳过仍有缓冲增量的帖子。其他节点在校正期间的变更不受互斥保护，应在低峰期执行
+     */
+    private void reconcileAll() {
+        log.info("reconcile post counter start");
+        long minId = 0;
+        int batchSize = postCounterConfig.getReconcileBatchSize();
+        reconciledPostCount.set(0);
+        reconcileSkippedCount.set(0);
+        try {
+            cacheSyncManager.publish(FLUSH_CHANNEL, "reconcile");
+            Thread.sleep(postCounterConfig.getFlushIntervalMs());
+            while (true) {
+                List<Long> postIdList = postMapper.listPostIdAfter(minId, batchSize);
+                if (CollUtil.isEmpty(postIdList)) {
+                    break;
+                }
+                reconcileBatch(postIdList);
+                minId = postIdList.get(postIdList.size() - 1);
+            }
+            log.info("reconcile post counter end, total {}, skipped {}", reconciledPostCount.get(),
+                    reconcileSkippedCount.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("reconcile post counter interrupted, minId = {}", minId);
+        } catch (Exception e) {
+            log.error("reconcile post counter error, minId = {}", minId, e);
+        }
+    }
+
+    /**
+     * 校正一批帖子（与刷入、关系变更互斥）
+     *
+     * @param postIdList
+     */
+    private synchronized void reconcileBatch(List<Long> postIdList) {
+        List<Long> reconcilePostIdList;
+        // 取缓冲增量快照到重算完成期间，不会有新的关系提交
+        changeLock.writeLock().lock();
+        try {
+            Set<Long> pendingPostIds = pendingPostIds();
+            reconcilePostIdList = postIdList.stream()
+                    .filter(postId -> !pendingPostIds.contains(postId))
+                    .collect(Collectors.toList());
+            if (!reconcilePostIdList.isEmpty()) {
+                postMapper.reconcileCounter(reconcilePostIdList);
+            }
+        } finally {
+            changeLock.writeLock().unlock();
+        }
+        reconciledPostCount.addAndGet(reconcilePostIdList.size());
+        reconcileSkippedCount.addAndGet(postIdList.size() - reconcilePostIdList.size());
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "postCounter";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        int pending = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                pending += stripe.postIdDeltaMap.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pendingPostCount", pending);
+        metrics.put("flushedPostCount", flushedPostCount.sum());
+        metrics.put("flushedBatchCount", flushedBatchCount.sum());
+        metrics.put("flushErrorCount", flushErrorCount.sum());
+        metrics.put("lastFlushCostMillis", lastFlushCostMillis.get());
+        metrics.put("reconciledPostCount", reconciledPostCount.get());
+        metrics.put("reconcileSkippedCount", reconcileSkippedCount.get());
+        metrics.put("reconciling", reconciling.get());
+        return metrics;
+    }
+
+    private void add(long postId, int thumbDelta, int favourDelta) {
+        if (thumbDelta == 0 && favourDelta == 0) {
+            return;
+        }
+        // 不同线程写入不同分段，热点帖子的增量也不会集中在一把锁上
+        Stripe stripe = stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+        stripe.lock.lock();
+        try {
+            int[] delta = stripe.postIdDeltaMap.computeIfAbsent(postId, key -> new int[2]);
+            delta[0] += thumbDelta;
+            delta[1] += favourDelta;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 有缓冲增量的帖子
+     *
+     * @return
+     */
+    private Set<Long> pendingPostIds() {
+        Set<Long> postIds = new HashSet<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                postIds.addAll(stripe.postIdDeltaMap.keySet());
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return postIds;
+    }
+
+    /**
+     * 取出并合并所有分段的增量
+     *
+     * @return
+     */
+    private Map<Long, int[]> drain() {
+        Map<Long, int[]> result = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            Map<Long, int[]> postIdDeltaMap;
+            stripe.lock.lock();
+            try {
+                if (stripe.postIdDeltaMap.isEmpty()) {
+                    continue;
+                }
+                postIdDeltaMap = stripe.postIdDeltaMap;
+                stripe.postIdDeltaMap = new HashMap<>();
+            } finally {
+                stripe.lock.unlock();
+            }
+            postIdDeltaMap.forEach((postId, delta) -> {
+                int[] merged = result.computeIfAbsent(postId, key -> new int[2]);
+                merged[0] += delta[0];
+                merged[1] += delta[1];
+            });
+        }
+        return result;
+    }
+
+    /**
+     * 增量缓冲分段
+     */
+    private static class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private Map<Long, int[]> postIdDeltaMap = new HashMap<>();
+    }
+}
@@ -0,0 +1,354 @@
+package com.lhk.springbootinit.manager;
+
+import cn.hutool.core.thread.NamedThreadFactory;
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.config.PostSearchConfig;
+import com.lhk.springbootinit.model.dto.post.PostEsDTO;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.xcontent.XContentType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 帖子 ES 在线批量写入
+ * <p>
+ * 写入和删除先进入缓冲（同一帖子只保留最新的操作），达到文档数、字节数上限或刷新间隔时合并为一次 bulk 请求；
+ * 失败的文档按指数退避重试，期间有更新的操作则以新的为准。
+ * 需要确认写入结果的调用方（如变更事件）使用 {@link #bulkNow} 同步写入
+ */
+@Component
+@ConditionalOnProperty(prefix = "post.search", name = "es-enabled", havingValue = "true")
+@Slf4j
+public class PostEsBulkIndexer implements MetricsProvider {
+
+    /**
+     * 重试最长等待时间（毫秒）
+     */
+    private static final long MAX_BACKOFF_MILLIS = 30 * 1000L;
+
+    /**
+     * 删除操作估算大小
+     */
+    private static final long DELETE_ACTION_BYTES = 64;
+
+    @Resource
+    private ElasticsearchRestTemplate elasticsearchRestTemplate;
+
+    @Resource
+    private PostSearchConfig postSearchConfig;
+
+    /**
+     * 帖子 id => 待执行的操作（按提交顺序）
+     */
+    private final Map<Long, PendingAction> pendingActionMap = new LinkedHashMap<>();
+
+    private long pendingBytes;
+
+    private ScheduledExecutorService flushExecutor;
+
+    private final AtomicBoolean flushSubmitted = new AtomicBoolean();
+
+    private final LongAdder indexedCount = new LongAdder();
+
+    private final LongAdder deletedCount = new LongAdder();
+
+    private final LongAdder bulkCount = new LongAdder();
+
+    private final LongAdder retryCount = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final AtomicLong lastBulkCostMillis = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("post-es-bulk-indexer-",
+                true));
+        long interval = postSearchConfig.getEsBulkFlushIntervalMs();
+        flushExecutor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停机前写入剩余操作（不再等待重试）
+     *
+     * @throws InterruptedException
+     */
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        flushExecutor.shutdown();
+        flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+        synchronized (pendingActionMap) {
+            if (!pendingActionMap.isEmpty()) {
+                log.warn("post es bulk indexer stopped with {} pending actions", pendingActionMap.size());
+            }
+        }
+    }
+
+    /**
+     * 写入（新增或覆盖）
+     *
+     * @param postEsDTO
+     * @return 缓冲已满时返回 false
+     */
+    public boolean index(PostEsDTO postEsDTO) {
+        String source = elasticsearchRestTemplate.getElasticsearchConverter().mapObject(postEsDTO).toJson();
+        return offer(new PendingAction(postEsDTO.getId(), source));
+    }
+
+    /**
+     * 删除
+     *
+     * @param postId
+     * @return 缓冲已满时返回 false
+     */
+    public boolean delete(long postId) {
+        return offer(new PendingAction(postId, null));
+    }
+
+    /**
+     * 同步批量写入（不经过缓冲），按文档数、字节数上限分批，任何一条失败都抛出异常，由调用方整体重试（写入幂等）
+     *
+     * @param postEsDTOList    写入的文档
+     * @param deletePostIdList 删除的帖子 id
+     */
+    public void bulkNow(List<PostEsDTO> postEsDTOList, List<Long> deletePostIdList) {
+        List<PendingAction> actionList = new ArrayList<>(postEsDTOList.size() + deletePostIdList.size());
+        for (PostEsDTO postEsDTO : postEsDTOList) {
+            String source = elasticsearchRestTemplate.getElasticsearchConverter().mapObject(postEsDTO).toJson();
+            actionList.add(new PendingAction(postEsDTO.getId(), source));
+        }
+        deletePostIdList.forEach(postId -> actionList.add(new PendingAction(postId, null)));
+        List<PendingAction> batch = new ArrayList<>();
+        long batchBytes = 0;
+        for (PendingAction action : actionList) {
+            batch.add(action);
+            batchBytes += action.bytes;
+            if (batch.size() >= postSearchConfig.getEsBulkActions()
+                    || batchBytes >= postSearchConfig.getEsBulkBytes()) {
+                bulkOrThrow(batch);
+                batch = new ArrayList<>();
+                batchBytes = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            bulkOrThrow(batch);
+        }
+    }
+
+    /**
+     * 写入缓冲中已到执行时间的操作
+     */
+    public synchronized void flush() {
+        while (true) {
+            List<PendingAction> batch = drainBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            bulk(batch);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "postEsBulkIndexer";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (pendingActionMap) {
+            metrics.put("pendingSize", pendingActionMap.size());
+            metrics.put("pendingBytes", pendingBytes);
+        }
+        metrics.put("indexedCount", indexedCount.sum());
+        metrics.put("deletedCount", deletedCount.sum());
+        metrics.put("bulkCount", bulkCount.sum());
+        metrics.put("retryCount", retryCount.sum());
+        metrics.put("failedCount", failedCount.sum());
+        metrics.put("rejectedCount", rejectedCount.sum());
+        metrics.put("lastBulkCostMillis", lastBulkCostMillis.get());
+        return metrics;
+    }
+
+    private boolean offer(PendingAction action) {
+        boolean full;
+        synchronized (pendingActionMap) {
+            // 移除后重新放入，排到最后
+            PendingAction oldAction = pendingActionMap.remove(action.postId);
+            if (oldAction != null) {
+                pendingBytes -= oldAction.bytes;
+            } else if (pendingActionMap.size() >= postSearchConfig.getEsBulkMaxPending()) {
+                rejectedCount.increment();
+                return false;
+            }
+            pendingActionMap.put(action.postId, action);
+            pendingBytes += action.bytes;
+            full = pendingActionMap.size() >= postSearchConfig.getEsBulkActions()
+                    || pendingBytes >= postSearchConfig.getEsBulkBytes();
+        }
+        // 达到上限时立即刷新，不等待刷新间隔
+        if (full && flushSubmitted.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushSubmitted.set(false);
+                flush();
+            });
+        }
+        return true;
+    }
+
+    /**
+     * 取出一批已到执行时间的操作
+     *
+     * @return
+     */
+    private List<PendingAction> drainBatch() {
+        long now = System.currentTimeMillis();
+        List<PendingAction> batch = new ArrayList<>();
+        long batchBytes = 0;
+        synchronized (pendingActionMap) {
+            Iterator<PendingAction> iterator = pendingActionMap.values().iterator();
+            while (iterator.hasNext() && batch.size() < postSearchConfig.getEsBulkActions()
+                    && batchBytes < postSearchConfig.getEsBulkBytes()) {
+                PendingAction action = iterator.next();
+                if (action.nextAttemptTime > now) {
+                    continue;
+                }
+                iterator.remove();
+                pendingBytes -= action.bytes;
+                batch.add(action);
+                batchBytes += action.bytes;
+            }
+        }
+        return batch;
+    }
+
+    private BulkRequest buildBulkRequest(List<PendingAction> batch) {
+        String index = postSearchConfig.getEsIndexAlias();
+        BulkRequest bulkRequest = new BulkRequest();
+        for (PendingAction action : batch) {
+            if (action.source == null) {
+                bulkRequest.add(new DeleteRequest(index, String.valueOf(action.postId)));
+            } else {
+                bulkRequest.add(new IndexRequest(index).id(String.valueOf(action.postId))
+                        .source(action.source, XContentType.JSON));
+            }
+        }
+        return bulkRequest;
+    }
+
+    private void bulkOrThrow(List<PendingAction> batch) {
+        BulkRequest bulkRequest = buildBulkRequest(batch);
+        long start = System.currentTimeMillis();
+        BulkResponse bulkResponse = elasticsearchRestTemplate.execute(client -> client.bulk(bulkRequest,
+                RequestOptions.DEFAULT));
+        bulkCount.increment();
+        lastBulkCostMillis.set(System.currentTimeMillis() - start);
+        if (bulkResponse.hasFailures()) {
+            failedCount.increment();
+            throw new IllegalStateException("bulk post to es failed: " + bulkResponse.buildFailureMessage());
+        }
+        for (PendingAction action : batch) {
+            if (action.source == null) {
+                deletedCount.increment();
+            } else {
+                indexedCount.increment();
+            }
+        }
+    }
+
+    private void bulk(List<PendingAction> batch) {
+        BulkRequest bulkRequest = buildBulkRequest(batch);
+        long start = System.currentTimeMillis();
+        try {
+            BulkResponse bulkResponse = elasticsearchRestTemplate.execute(client -> client.bulk(bulkRequest,
+                    RequestOptions.DEFAULT));
+            bulkCount.increment();
+            // 响应与请求顺序一致
+            BulkItemResponse[] itemResponses = bulkResponse.getItems();
+            for (int i = 0; i < itemResponses.length; i++) {
+                PendingAction action = batch.get(i);
+                if (itemResponses[i].isFailed()) {
+                    log.warn("bulk post to es item failed, postId = {}, reason = {}", action.postId,
+                            itemResponses[i].getFailureMessage());
+                    retry(action);
+                } else if (action.source == null) {
+                    deletedCount.increment();
+                } else {
+                    indexedCount.increment();
+                }
+            }
+        } catch (Exception e) {
+            log.error("bulk post to es error, size = {}", batch.size(), e);
+            batch.forEach(this::retry);
+        }
+        lastBulkCostMillis.set(System.currentTimeMillis() - start);
+    }
+
+    private void retry(PendingAction action) {
+        if (action.attempts >= postSearchConfig.getEsBulkMaxRetries()) {
+            // 放弃后由重建索引或增量同步修复
+            failedCount.increment();
+            log.error("bulk post to es failed after {} retries, postId = {}", action.attempts, action.postId);
+            return;
+        }
+        action.attempts++;
+        long backoff = postSearchConfig.getEsBulkBackoffMs() << Math.min(action.attempts - 1, 16);
+        action.nextAttemptTime = System.currentTimeMillis() + Math.min(backoff, MAX_BACKOFF_MILLIS);
+        retryCount.increment();
+        synchronized (pendingActionMap) {
+            // 期间有更新的操作则以新的为准
+            if (pendingActionMap.putIfAbsent(action.postId, action) == null) {
+                pendingBytes += action.bytes;
+            }
+        }
+    }
+
+    /**
+     * 待执行的操作
+     */
+    private static class PendingAction {
+
+        private final long postId;
+
+        /**
+         * 文档 JSON，为 null 表示删除
+         */
+        private final String source;
+
+        private final long bytes;
+
+        private int attempts;
+
+        private long nextAttemptTime;
+
+        private PendingAction(long postId, String source) {
+            this.postId = postId;
+            this.source = source;
+            this.bytes = source == null ? DELETE_ACTION_BYTES : source.length();
+        }
+    }
+}
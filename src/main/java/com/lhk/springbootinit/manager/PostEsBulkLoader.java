@@ -0,0 +1,225 @@
+package com.lhk.springbootinit.manager;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.thread.NamedThreadFactory;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.lhk.springbootinit.config.PostSearchConfig;
+import com.lhk.springbootinit.mapper.PostMapper;
+import com.lhk.springbootinit.model.dto.post.PostEsDTO;
+import com.lhk.springbootinit.model.entity.Post;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Component;
+
+/**
+ * 帖子批量导入 ES
+ * <p>
+ * 按 id 分页流式读取，按字节数攒批后交给固定数量的写入线程并行批量写入；
+ * 排队的批数达到上限时读取阻塞（背压），内存占用与总数据量无关
+ */
+@Component
+@ConditionalOnProperty(prefix = "post.search", name = "es-enabled", havingValue = "true")
+@Slf4j
+public class PostEsBulkLoader {
+
+    /**
+     * 写入失败最多重试次数
+     */
+    private static final int MAX_RETRY_TIMES = 3;
+
+    /**
+     * 进度日志间隔（毫秒）
+     */
+    private static final long PROGRESS_LOG_INTERVAL_MILLIS = 10 * 1000L;
+
+    /**
+     * 读取结束后等待排队的批写完的最长时间（小时）
+     */
+    private static final long WRITE_TIMEOUT_HOURS = 1;
+
+    @Resource
+    private PostMapper postMapper;
+
+    @Resource
+    private ElasticsearchRestTemplate elasticsearchRestTemplate;
+
+    @Resource
+    private PostSearchConfig postSearchConfig;
+
+    private final AtomicLong readCount = new AtomicLong();
+
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    private final AtomicLong writtenBytes = new AtomicLong();
+
+    private final AtomicInteger failedBatchCount = new AtomicInteger();
+
+    /**
+     * 全量导入（同一时间只允许一个导入任务）
+     *
+     * @param indexCoordinates 目标索引或别名
+     * @return 导入的帖子数
+     * @throws InterruptedException
+     */
+    public synchronized long load(IndexCoordinates indexCoordinates) throws InterruptedException {
+        readCount.set(0);
+        writtenCount.set(0);
+        writtenBytes.set(0);
+        failedBatchCount.set(0);
+        int writerThreads = Math.max(1, postSearchConfig.getFullSyncWriterThreads());
+        // 正在写入和排队的批数之和不超过许可数
+        Semaphore permits = new Semaphore(writerThreads + Math.max(0, postSearchConfig.getFullSyncQueueCapacity()));
+        ExecutorService writerExecutor = new ThreadPoolExecutor(writerThreads, writerThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory("post-es-bulk-", true));
+        long start = System.currentTimeMillis();
+        long lastLogTime = start;
+        long minId = 0;
+        List<PostEsDTO> batch = new ArrayList<>();
+        long batchBytes = 0;
+        log.info("load post to es start, index {}", indexCoordinates.getIndexName());
+        boolean readCompleted = false;
+        try {
+            while (true) {
+                QueryWrapper<Post> queryWrapper = new QueryWrapper<>();
+                queryWrapper.gt("id", minId).orderByAsc("id")
+                        .last("limit " + postSearchConfig.getFullSyncReadBatchSize());
+                List<Post> postList = postMapper.selectList(queryWrapper);
+                if (CollUtil.isEmpty(postList)) {
+                    break;
+                }
+                for (Post post : postList) {
+                    batch.add(PostEsDTO.objToDto(post));
+                    batchBytes += estimateBytes(post);
+                    if (batchBytes >= postSearchConfig.getFullSyncBulkBytes()) {
+                        submit(writerExecutor, permits, indexCoordinates, batch, batchBytes);
+                        batch = new ArrayList<>();
+                        batchBytes = 0;
+                    }
+                }
+                readCount.addAndGet(postList.size());
+                minId = postList.get(postList.size() - 1).getId();
+                long now = System.currentTimeMillis();
+                if (now - lastLogTime >= PROGRESS_LOG_INTERVAL_MILLIS) {
+                    logProgress(start, now);
+                    lastLogTime = now;
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(writerExecutor, permits, indexCoordinates, batch, batchBytes);
+            }
+            readCompleted = true;
+        } finally {
+            if (readCompleted) {
+                writerExecutor.shutdown();
+            } else {
+                // 读取失败时导入作废，不再等待排队的批
+                writerExecutor.shutdownNow();
+            }
+        }
+        // 超时后仍有批在写入，不能视为导入完成
+        if (!writerExecutor.awaitTermination(WRITE_TIMEOUT_HOURS, TimeUnit.HOURS)) {
+            writerExecutor.shutdownNow();
+            throw new IllegalStateException("load post to es timeout, written " + writtenCount.get()
+                    + " of " + readCount.get());
+        }
+        logProgress(start, System.currentTimeMillis());
+        if (failedBatchCount.get() > 0) {
+            throw new IllegalStateException("load post to es failed, failed batches " + failedBatchCount.get());
+        }
+        log.info("load post to es end, index {}, total {}", indexCoordinates.getIndexName(), readCount.get());
+        return readCount.get();
+    }
+
+    /**
+     * 当前（或上次）导入已读取的帖子数
+     *
+     * @return
+     */
+    public long getReadCount() {
+        return readCount.get();
+    }
+
+    /**
+     * 当前（或上次）导入已写入的帖子数
+     *
+     * @return
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * 提交一批写入（许可不足时阻塞读取）
+     */
+    private void submit(ExecutorService writerExecutor, Semaphore permits, IndexCoordinates indexCoordinates,
+            List<PostEsDTO> batch, long batchBytes) throws InterruptedException {
+        permits.acquire();
+        writerExecutor.execute(() -> {
+            try {
+                write(indexCoordinates, batch, batchBytes);
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    private void write(IndexCoordinates indexCoordinates, List<PostEsDTO> batch, long batchBytes) {
+        for (int i = 1; i <= MAX_RETRY_TIMES; i++) {
+            try {
+                elasticsearchRestTemplate.save(batch, indexCoordinates);
+                writtenCount.addAndGet(batch.size());
+                writtenBytes.addAndGet(batchBytes);
+                return;
+            } catch (Exception e) {
+                log.error("load batch error, fromId = {}, times = {}", batch.get(0).getId(), i, e);
+                try {
+                    Thread.sleep(1000L * i);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        failedBatchCount.incrementAndGet();
+    }
+
+    private void logProgress(long start, long now) {
+        long costSeconds = Math.max(1, (now - start) / 1000);
+        log.info("load post to es progress, read {}, written {} ({} MB), {} docs/s",
+                readCount.get(), writtenCount.get(), writtenBytes.get() / 1024 / 1024,
+                writtenCount.get() / costSeconds);
+    }
+
+    /**
+     * 估算文档大小（以标题、内容为主）
+     *
+     * @param post
+     * @return
+     */
+    private static long estimateBytes(Post post) {
+        long bytes = 256;
+        if (post.getTitle() != null) {
+            bytes += post.getTitle().getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (post.getContent() != null) {
+            bytes += post.getContent().getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (post.getTags() != null) {
+            bytes += post.getTags().length();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,119 @@
+package com.lhk.springbootinit.manager;
+
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.config.PostSearchConfig;
+import com.lhk.springbootinit.esdao.PostEsDao;
+import com.lhk.springbootinit.mapper.PostMapper;
+import com.lhk.springbootinit.model.entity.Post;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * ES 残留文档清理
+ * <p>
+ * 搜索命中但数据库已物理删除的帖子先入队（去重），由定时任务批量确认并删除，搜索请求不等待 ES 写入
+ */
+@Component
+@ConditionalOnProperty(prefix = "post.search", name = "es-enabled", havingValue = "true")
+@Slf4j
+public class PostEsCleanupManager implements MetricsProvider {
+
+    @Resource
+    private PostMapper postMapper;
+
+    @Resource
+    private PostEsDao postEsDao;
+
+    @Resource
+    private PostSearchConfig postSearchConfig;
+
+    private final Set<Long> pendingPostIdSet = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder enqueuedCount = new LongAdder();
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    private final LongAdder deletedCount = new LongAdder();
+
+    private final LongAdder errorCount = new LongAdder();
+
+    /**
+     * 提交待清理的帖子 id（不阻塞）
+     *
+     * @param postIds
+     */
+    public void submit(Collection<Long> postIds) {
+        for (Long postId : postIds) {
+            if (pendingPostIdSet.size() >= postSearchConfig.getEsCleanupMaxPending()) {
+                droppedCount.increment();
+                continue;
+            }
+            if (pendingPostIdSet.add(postId)) {
+                enqueuedCount.increment();
+            }
+        }
+    }
+
+    /**
+     * 批量清理
+     */
+    @Scheduled(fixedDelayString = "${post.search.es-cleanup-interval-ms:1000}")
+    public void cleanup() {
+        while (!pendingPostIdSet.isEmpty()) {
+            List<Long> postIdList = new ArrayList<>();
+            Iterator<Long> iterator = pendingPostIdSet.iterator();
+            while (iterator.hasNext() && postIdList.size() < postSearchConfig.getEsCleanupBatchSize()) {
+                postIdList.add(iterator.next());
+                iterator.remove();
+            }
+            try {
+                // 再次确认数据库中不存在，避免误删
+                Set<Long> existPostIdSet = postMapper.selectBatchIds(postIdList).stream()
+                        .map(Post::getId)
+                        .collect(Collectors.toSet());
+                List<Long> deletedPostIdList = postIdList.stream()
+                        .filter(postId -> !existPostIdSet.contains(postId))
+                        .collect(Collectors.toList());
+                if (!deletedPostIdList.isEmpty()) {
+                    postEsDao.deleteAllById(deletedPostIdList);
+                    deletedCount.add(deletedPostIdList.size());
+                    log.info("cleanup deleted post from es, size {}", deletedPostIdList.size());
+                }
+            } catch (Exception e) {
+                // 不重新入队，下次搜索命中时会再次提交
+                errorCount.increment();
+                log.error("cleanup deleted post from es error, size {}", postIdList.size(), e);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "postEsCleanup";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pendingSize", pendingPostIdSet.size());
+        metrics.put("enqueuedCount", enqueuedCount.sum());
+        metrics.put("droppedCount", droppedCount.sum());
+        metrics.put("deletedCount", deletedCount.sum());
+        metrics.put("errorCount", errorCount.sum());
+        return metrics;
+    }
+}
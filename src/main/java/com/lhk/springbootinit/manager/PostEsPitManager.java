@@ -0,0 +1,126 @@
+package com.lhk.springbootinit.manager;
+
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.config.PostSearchConfig;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.core.TimeValue;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * ES 时间点（游标分页快照）管理
+ * <p>
+ * 记录本节点打开的时间点及过期时间，未过期的数量达到上限时不再打开（游标分页不固定快照）；
+ * 翻到最后一页时主动关闭，中途放弃的时间点超过保留时间后由 ES 释放
+ */
+@Component
+@ConditionalOnProperty(prefix = "post.search", name = "es-enabled", havingValue = "true")
+@Slf4j
+public class PostEsPitManager implements MetricsProvider {
+
+    @Resource
+    private ElasticsearchRestTemplate elasticsearchRestTemplate;
+
+    @Resource
+    private PostSearchConfig postSearchConfig;
+
+    /**
+     * 时间点 id => 过期时间
+     */
+    private final Map<String, Long> pitExpireTimeMap = new ConcurrentHashMap<>();
+
+    private final LongAdder openedCount = new LongAdder();
+
+    private final LongAdder closedCount = new LongAdder();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * 获取保留时间
+     *
+     * @return
+     */
+    public TimeValue getKeepAlive() {
+        return TimeValue.timeValueSeconds(postSearchConfig.getEsPitKeepAliveSeconds());
+    }
+
+    /**
+     * 打开时间点
+     *
+     * @param index
+     * @return 时间点 id，达到上限时返回 null
+     */
+    public String open(String index) {
+        long now = System.currentTimeMillis();
+        pitExpireTimeMap.values().removeIf(expireTime -> expireTime < now);
+        if (pitExpireTimeMap.size() >= postSearchConfig.getEsPitMaxOpen()) {
+            rejectedCount.increment();
+            return null;
+        }
+        OpenPointInTimeRequest openRequest = new OpenPointInTimeRequest(index).keepAlive(getKeepAlive());
+        String pitId = elasticsearchRestTemplate.execute(client -> client.openPointInTime(openRequest,
+                RequestOptions.DEFAULT)).getPointInTimeId();
+        pitExpireTimeMap.put(pitId, getExpireTime());
+        openedCount.increment();
+        return pitId;
+    }
+
+    /**
+     * 翻页后续期（时间点 id 可能随查询变化）
+     *
+     * @param pitId
+     * @param newPitId
+     */
+    public void renew(String pitId, String newPitId) {
+        if (!pitId.equals(newPitId)) {
+            pitExpireTimeMap.remove(pitId);
+        }
+        pitExpireTimeMap.put(newPitId, getExpireTime());
+    }
+
+    /**
+     * 关闭时间点（失败时等待过期）
+     *
+     * @param pitId
+     */
+    public void close(String pitId) {
+        pitExpireTimeMap.remove(pitId);
+        try {
+            ClosePointInTimeRequest closeRequest = new ClosePointInTimeRequest(pitId);
+            elasticsearchRestTemplate.execute(client -> client.closePointInTime(closeRequest,
+                    RequestOptions.DEFAULT));
+            closedCount.increment();
+        } catch (Exception e) {
+            log.warn("close point in time error", e);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "postEsPit";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("openSize", pitExpireTimeMap.size());
+        metrics.put("openedCount", openedCount.sum());
+        metrics.put("closedCount", closedCount.sum());
+        metrics.put("rejectedCount", rejectedCount.sum());
+        return metrics;
+    }
+
+    private long getExpireTime() {
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(postSearchConfig.getEsPitKeepAliveSeconds());
+    }
+}
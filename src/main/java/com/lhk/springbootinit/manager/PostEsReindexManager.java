@@ -0,0 +1,323 @@
+package com.lhk.springbootinit.manager;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.io.resource.ResourceUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.lhk.springbootinit.common.ErrorCode;
+import com.lhk.springbootinit.config.PostSearchConfig;
+import com.lhk.springbootinit.exception.BusinessException;
+import com.lhk.springbootinit.mapper.PostMapper;
+import com.lhk.springbootinit.mapper.SyncCheckpointMapper;
+import com.lhk.springbootinit.model.dto.post.PostEsDTO;
+import com.lhk.springbootinit.model.entity.Post;
+import com.lhk.springbootinit.model.vo.EsReindexStatusVO;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest.AliasActions;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.client.GetAliasesResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Component;
+
+/**
+ * 帖子 ES 索引重建（不停服）
+ * <p>
+ * 新建版本索引 post_v{时间戳}（关闭刷新、副本为 0）并全量导入，再从导入开始时刻追平增量变更，
+ * 恢复刷新和副本后原子切换别名；切换前读写仍走旧索引，切换后再追平一次切换窗口内的变更。
+ * 切换前失败时删除未完成的新索引；旧索引保留用于回滚，确认无误后手动删除
+ */
+@Component
+@ConditionalOnProperty(prefix = "post.search", name = "es-enabled", havingValue = "true")
+@Slf4j
+public class PostEsReindexManager {
+
+    private static final String MAPPING_PATH = "es/post_es_mapping.json";
+
+    private static final String STATUS_IDLE = "idle";
+
+    private static final String STATUS_RUNNING = "running";
+
+    private static final String STATUS_SUCCESS = "success";
+
+    private static final String STATUS_FAILED = "failed";
+
+    @Resource
+    private ElasticsearchRestTemplate elasticsearchRestTemplate;
+
+    @Resource
+    private PostEsBulkLoader postEsBulkLoader;
+
+    @Resource
+    private PostMapper postMapper;
+
+    @Resource
+    private SyncCheckpointMapper syncCheckpointMapper;
+
+    @Resource
+    private PostSearchConfig postSearchConfig;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * 重建状态（不可变快照，只由重建线程整体替换）
+     */
+    private volatile EsReindexStatusVO status = newStatus(STATUS_IDLE);
+
+    /**
+     * 开始重建（后台执行，同一时间只允许一个）
+     *
+     * @return 新索引名
+     */
+    public String startReindex() {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "索引重建进行中");
+        }
+        String newIndex = postSearchConfig.getEsIndexAlias() + "_v" + System.currentTimeMillis();
+        EsReindexStatusVO newStatus = newStatus(STATUS_RUNNING);
+        newStatus.setNewIndex(newIndex);
+        newStatus.setStartTime(new Date());
+        status = newStatus;
+        Thread thread = new Thread(() -> {
+            try {
+                reindex(newIndex);
+                updateStatus(s -> {
+                    s.setStatus(STATUS_SUCCESS);
+                    s.setEndTime(new Date());
+                });
+            } catch (Exception e) {
+                log.error("reindex post es error, new index {}", newIndex, e);
+                updateStatus(s -> {
+                    s.setStatus(STATUS_FAILED);
+                    s.setErrorMessage(e.getMessage());
+                    s.setEndTime(new Date());
+                });
+            } finally {
+                running.set(false);
+            }
+        }, "post-es-reindex");
+        thread.setDaemon(true);
+        thread.start();
+        return newIndex;
+    }
+
+    /**
+     * 获取重建状态
+     *
+     * @return
+     */
+    public EsReindexStatusVO getStatus() {
+        EsReindexStatusVO current = status;
+        EsReindexStatusVO copy = new EsReindexStatusVO();
+        BeanUtils.copyProperties(current, copy);
+        if (STATUS_RUNNING.equals(current.getStatus()) && "load".equals(current.getPhase())) {
+            copy.setLoadedCount(postEsBulkLoader.getWrittenCount());
+        }
+        return copy;
+    }
+
+    private void reindex(String newIndex) throws Exception {
+        String alias = postSearchConfig.getEsIndexAlias();
+        IndexCoordinates newIndexCoordinates = IndexCoordinates.of(newIndex);
+        long safetyLagMillis = TimeUnit.SECONDS.toMillis(postSearchConfig.getEsSyncSafetyLagSeconds());
+        CatchUpPosition position;
+        List<String> oldIndexList;
+        try {
+            updatePhase("create");
+            createIndex(newIndex);
+            // 导入开始前的时刻（数据库时间，与增量同步一致），之后的变更由追平阶段补齐（重复写入幂等）
+            Date startTime = new Date(syncCheckpointMapper.selectNow().getTime() - safetyLagMillis);
+            updatePhase("load");
+            long loadedCount = postEsBulkLoader.load(newIndexCoordinates);
+            updateStatus(s -> {
+                s.setLoadedCount(loadedCount);
+                s.setPhase("catchUp");
+            });
+            position = catchUp(newIndexCoordinates, new CatchUpPosition(startTime, 0));
+            updatePhase("restoreSettings");
+            restoreSettings(newIndex);
+            updatePhase("swap");
+            oldIndexList = swapAlias(alias, newIndex);
+        } catch (Exception e) {
+            deleteUnusedIndex(alias, newIndex);
+            throw e;
+        }
+        // 切换前最后一次追平到切换完成之间的变更可能只写入了旧索引，等待安全延迟后再追平
+        updateStatus(s -> {
+            s.setOldIndexList(oldIndexList);
+            s.setPhase("catchUpAfterSwap");
+        });
+        Thread.sleep(safetyLagMillis);
+        catchUp(newIndexCoordinates, position);
+        updatePhase("done");
+        log.info("reindex post es end, alias {} -> {}, old {}", alias, newIndex, oldIndexList);
+    }
+
+    private void createIndex(String newIndex) {
+        JSONObject mappingJson = JSONUtil.parseObj(ResourceUtil.readUtf8Str(MAPPING_PATH));
+        CreateIndexRequest request = new CreateIndexRequest(newIndex)
+                .settings(Settings.builder()
+                        .put("index.refresh_interval", "-1")
+                        .put("index.number_of_replicas", 0))
+                .mapping(mappingJson.getJSONObject("mappings"));
+        elasticsearchRestTemplate.execute(client -> client.indices().create(request, RequestOptions.DEFAULT));
+        log.info("create post es index {}", newIndex);
+    }
+
+    /**
+     * 追平增量变更
+     *
+     * @param indexCoordinates
+     * @param position         起始位点
+     * @return 结束位点
+     */
+    private CatchUpPosition catchUp(IndexCoordinates indexCoordinates, CatchUpPosition position) {
+        long safetyLagMillis = TimeUnit.SECONDS.toMillis(postSearchConfig.getEsSyncSafetyLagSeconds());
+        Date maxUpdateTime = new Date(syncCheckpointMapper.selectNow().getTime() - safetyLagMillis);
+        int batchSize = postSearchConfig.getEsSyncBatchSize();
+        Date lastTime = position.time;
+        long lastId = position.id;
+        long total = status.getCatchUpCount() == null ? 0 : status.getCatchUpCount();
+        while (true) {
+            List<Post> postList = postMapper.listPostWithDeleteAfter(lastTime, lastId, maxUpdateTime, batchSize);
+            if (CollUtil.isEmpty(postList)) {
+                break;
+            }
+            List<PostEsDTO> postEsDTOList = postList.stream()
+                    .map(PostEsDTO::objToDto)
+                    .collect(Collectors.toList());
+            elasticsearchRestTemplate.save(postEsDTOList, indexCoordinates);
+            Post lastPost = postList.get(postList.size() - 1);
+            lastTime = lastPost.getUpdateTime();
+            lastId = lastPost.getId();
+            total += postList.size();
+            long catchUpCount = total;
+            updateStatus(s -> s.setCatchUpCount(catchUpCount));
+            if (postList.size() < batchSize) {
+                break;
+            }
+        }
+        return new CatchUpPosition(lastTime, lastId);
+    }
+
+    /**
+     * 删除切换前失败的新索引（别名已指向时保留）
+     *
+     * @param alias
+     * @param newIndex
+     */
+    private void deleteUnusedIndex(String alias, String newIndex) {
+        try {
+            elasticsearchRestTemplate.execute(client -> {
+                if (!client.indices().exists(new GetIndexRequest(newIndex), RequestOptions.DEFAULT)) {
+                    return false;
+                }
+                GetAliasesResponse aliasesResponse = client.indices()
+                        .getAlias(new GetAliasesRequest(alias), RequestOptions.DEFAULT);
+                if (aliasesResponse.getAliases().containsKey(newIndex)) {
+                    log.warn("post es index {} is already aliased, keep it", newIndex);
+                    return false;
+                }
+                client.indices().delete(new DeleteIndexRequest(newIndex), RequestOptions.DEFAULT);
+                log.info("delete unfinished post es index {}", newIndex);
+                return true;
+            });
+        } catch (Exception e) {
+            log.error("delete unfinished post es index error, index {}", newIndex, e);
+        }
+    }
+
+    private void restoreSettings(String newIndex) {
+        UpdateSettingsRequest request = new UpdateSettingsRequest(newIndex)
+                .settings(Settings.builder()
+                        .putNull("index.refresh_interval")
+                        .put("index.number_of_replicas", postSearchConfig.getEsNumberOfReplicas()));
+        elasticsearchRestTemplate.execute(client -> {
+            client.indices().putSettings(request, RequestOptions.DEFAULT);
+            return client.indices().refresh(new RefreshRequest(newIndex), RequestOptions.DEFAULT);
+        });
+    }
+
+    /**
+     * 原子切换别名
+     *
+     * @param alias
+     * @param newIndex
+     * @return 切换前别名指向的索引
+     */
+    private List<String> swapAlias(String alias, String newIndex) {
+        return elasticsearchRestTemplate.execute(client -> {
+            GetAliasesResponse aliasesResponse = client.indices()
+                    .getAlias(new GetAliasesRequest(alias), RequestOptions.DEFAULT);
+            List<String> oldIndexList = new ArrayList<>(aliasesResponse.getAliases().keySet());
+            IndicesAliasesRequest request = new IndicesAliasesRequest();
+            if (oldIndexList.isEmpty()
+                    && client.indices().exists(new GetIndexRequest(alias), RequestOptions.DEFAULT)) {
+                // 旧版本直接以别名为索引名，须删除后才能创建同名别名（与添加别名在同一请求中原子执行）
+                log.warn("post es index {} is a concrete index, it will be removed", alias);
+                request.addAliasAction(AliasActions.removeIndex().index(alias));
+            }
+            for (String oldIndex : oldIndexList) {
+                request.addAliasAction(AliasActions.remove().index(oldIndex).alias(alias));
+            }
+            request.addAliasAction(AliasActions.add().index(newIndex).alias(alias));
+            client.indices().updateAliases(request, RequestOptions.DEFAULT);
+            return oldIndexList;
+        });
+    }
+
+    private void updatePhase(String phase) {
+        updateStatus(s -> s.setPhase(phase));
+    }
+
+    /**
+     * 复制当前状态修改后整体替换，读取方不会看到修改了一半的状态
+     *
+     * @param updater
+     */
+    private void updateStatus(Consumer<EsReindexStatusVO> updater) {
+        EsReindexStatusVO newStatus = new EsReindexStatusVO();
+        BeanUtils.copyProperties(status, newStatus);
+        updater.accept(newStatus);
+        status = newStatus;
+    }
+
+    private static EsReindexStatusVO newStatus(String status) {
+        EsReindexStatusVO statusVO = new EsReindexStatusVO();
+        statusVO.setStatus(status);
+        return statusVO;
+    }
+
+    /**
+     * 追平位点 (updateTime, id)
+     */
+    private static class CatchUpPosition {
+
+        private final Date time;
+
+        private final long id;
+
+        private CatchUpPosition(Date time, long id) {
+            this.time = time;
+            this.id = id;
+        }
+    }
+}
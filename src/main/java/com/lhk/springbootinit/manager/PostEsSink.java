@@ -0,0 +1,48 @@
+package com.lhk.springbootinit.manager;
+
+import com.lhk.springbootinit.mapper.PostMapper;
+import com.lhk.springbootinit.model.dto.post.PostEsDTO;
+import com.lhk.springbootinit.model.entity.Post;
+import com.lhk.springbootinit.model.entity.PostOutbox;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+/**
+ * 帖子变更同步到 ES（开启 ES 和变更事件时生效）
+ * <p>
+ * 同步批量写入，全部成功后才返回（事件才会从发件箱删除）；任何一条失败都抛出异常，事件保留由分发器稍后重试
+ */
+@Component
+@ConditionalOnExpression("${post.search.es-enabled:false} && ${post.outbox.enabled:true}")
+@Slf4j
+public class PostEsSink implements PostChangeSink {
+
+    @Resource
+    private PostMapper postMapper;
+
+    @Resource
+    private PostEsBulkIndexer postEsBulkIndexer;
+
+    @Override
+    public String getSinkName() {
+        return "postEs";
+    }
+
+    @Override
+    public void onPostChanged(List<PostOutbox> eventList) {
+        List<Long> postIdList = eventList.stream().map(PostOutbox::getPostId).distinct().collect(Collectors.toList());
+        // 读取最新数据，同一帖子的多次变更只写一次
+        List<Post> postList = postMapper.selectBatchIds(postIdList);
+        List<PostEsDTO> postEsDTOList = postList.stream().map(PostEsDTO::objToDto).collect(Collectors.toList());
+        Set<Long> existPostIdSet = postList.stream().map(Post::getId).collect(Collectors.toSet());
+        List<Long> deletePostIdList = postIdList.stream()
+                .filter(postId -> !existPostIdSet.contains(postId))
+                .collect(Collectors.toList());
+        postEsBulkIndexer.bulkNow(postEsDTOList, deletePostIdList);
+    }
+}
@@ -0,0 +1,108 @@
+package com.lhk.springbootinit.manager;
+
+import cn.hutool.core.collection.CollUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.config.PostOutboxConfig;
+import com.lhk.springbootinit.mapper.PostOutboxMapper;
+import com.lhk.springbootinit.model.entity.PostOutbox;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 帖子变更事件分发器
+ * <p>
+ * 按 id 顺序读取发件箱，依次交给所有接收方处理，全部成功后删除；失败则整批保留，下次重试（至少一次）
+ */
+@Component
+@Slf4j
+public class PostOutboxDispatcher implements MetricsProvider {
+
+    @Resource
+    private PostOutboxConfig postOutboxConfig;
+
+    @Resource
+    private PostOutboxMapper postOutboxMapper;
+
+    @Resource
+    private KeyedLockManager keyedLockManager;
+
+    @Resource
+    private List<PostChangeSink> postChangeSinkList;
+
+    private final LongAdder dispatchedCount = new LongAdder();
+
+    private final LongAdder errorCount = new LongAdder();
+
+    /**
+     * 最早未分发事件的创建时间，0 表示无积压
+     */
+    private final AtomicLong oldestPendingTime = new AtomicLong();
+
+    /**
+     * 定时分发（多节点只有一个执行）
+     */
+    @Scheduled(fixedDelayString = "${post.outbox.dispatch-interval-ms:500}")
+    public void dispatch() {
+        if (!postOutboxConfig.isEnabled()) {
+            return;
+        }
+        keyedLockManager.tryExecuteWithLock("job:PostOutboxDispatcher", this::drain);
+    }
+
+    private void drain() {
+        int batchSize = postOutboxConfig.getBatchSize();
+        for (int i = 0; i < postOutboxConfig.getMaxBatchesPerRun(); i++) {
+            QueryWrapper<PostOutbox> queryWrapper = new QueryWrapper<>();
+            queryWrapper.orderByAsc("id").last("limit " + batchSize);
+            List<PostOutbox> eventList = postOutboxMapper.selectList(queryWrapper);
+            if (CollUtil.isEmpty(eventList)) {
+                oldestPendingTime.set(0);
+                return;
+            }
+            oldestPendingTime.set(eventList.get(0).getCreateTime().getTime());
+            for (PostChangeSink postChangeSink : postChangeSinkList) {
+                try {
+                    postChangeSink.onPostChanged(eventList);
+                } catch (Exception e) {
+                    // 保证顺序，后续事件等这一批成功后再处理
+                    log.error("dispatch post change error, sink = {}, fromId = {}", postChangeSink.getSinkName(),
+                            eventList.get(0).getId(), e);
+                    errorCount.increment();
+                    return;
+                }
+            }
+            postOutboxMapper.deleteBatchIds(eventList.stream().map(PostOutbox::getId).collect(Collectors.toList()));
+            dispatchedCount.add(eventList.size());
+            if (eventList.size() < batchSize) {
+                oldestPendingTime.set(0);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "postOutbox";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long oldest = oldestPendingTime.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("sinks", postChangeSinkList.stream().map(PostChangeSink::getSinkName)
+                .collect(Collectors.toList()));
+        metrics.put("dispatchedCount", dispatchedCount.sum());
+        metrics.put("errorCount", errorCount.sum());
+        metrics.put("lagMillis", oldest == 0 ? 0 : System.currentTimeMillis() - oldest);
+        return metrics;
+    }
+}
@@ -0,0 +1,219 @@
+package com.lhk.springbootinit.manager;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONConfig;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.config.PostCacheConfig;
+import com.lhk.springbootinit.constant.CommonConstant;
+import com.lhk.springbootinit.model.dto.post.PostQueryRequest;
+import com.lhk.springbootinit.model.entity.Post;
+import com.lhk.springbootinit.model.entity.PostOutbox;
+import com.lhk.springbootinit.model.enums.PostChangeTypeEnum;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * 帖子搜索结果缓存
+ * <p>
+ * 以规范化的查询条件为键缓存前几页的帖子 id 列表和总数，帖子数据仍按 id 读取最新值。
+ * 键中带有代数，帖子内容变更时代数递增，旧结果自然失效；计数变更只影响按点赞数、收藏数排序的结果
+ */
+@Component
+@Slf4j
+public class PostSearchCacheManager implements MetricsProvider, PostChangeSink {
+
+    private static final String INVALIDATE_CHANNEL = "post:search:invalidate";
+
+    private static final String CONTENT_CHANGED = "content";
+
+    private static final String COUNTER_CHANGED = "counter";
+
+    @Resource
+    private PostCacheConfig postCacheConfig;
+
+    @Resource
+    private CacheSyncManager cacheSyncManager;
+
+    private LRUCache<String, Page<Long>> resultCache;
+
+    /**
+     * 帖子内容（增删改）代数
+     */
+    private final AtomicLong contentGeneration = new AtomicLong();
+
+    /**
+     * 帖子计数代数
+     */
+    private final AtomicLong counterGeneration = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        resultCache = CacheUtil.newLRUCache(postCacheConfig.getSearchResultMaxSize(),
+                TimeUnit.SECONDS.toMillis(postCacheConfig.getSearchResultExpireSeconds()));
+        cacheSyncManager.subscribe(INVALIDATE_CHANNEL, message -> {
+            if (COUNTER_CHANGED.equals(message)) {
+                counterGeneration.incrementAndGet();
+            } else {
+                contentGeneration.incrementAndGet();
+                // 所有结果均已失效，提前释放
+                resultCache.clear();
+            }
+        });
+    }
+
+    /**
+     * 获取缓存键（须在查询前获取，查询期间发生的变更使本次结果不可读）
+     *
+     * @param postQueryRequest
+     * @return 不缓存时返回 null
+     */
+    public String getCacheKey(PostQueryRequest postQueryRequest) {
+        if (postQueryRequest.getCursor() != null
+                || postQueryRequest.getCurrent() > postCacheConfig.getSearchResultMaxPages()) {
+            return null;
+        }
+        String sortField = StringUtils.trimToEmpty(postQueryRequest.getSortField());
+        String generation = String.valueOf(contentGeneration.get());
+        if ("thumbNum".equals(sortField) || "favourNum".equals(sortField)) {
+            generation += "." + counterGeneration.get();
+        }
+        // 按 JSON 数组序列化，字段内容中的分隔符不会造成键冲突
+        List<Object> keyPartList = Arrays.asList(generation,
+                normalize(postQueryRequest.getSearchText()),
+                normalize(postQueryRequest.getTitle()),
+                normalize(postQueryRequest.getContent()),
+                normalizeTags(postQueryRequest.getTags()),
+                normalizeTags(postQueryRequest.getOrTags()),
+                postQueryRequest.getId(),
+                postQueryRequest.getNotId(),
+                postQueryRequest.getUserId(),
+                postQueryRequest.getFavourUserId(),
+                sortField,
+                CommonConstant.SORT_ORDER_ASC.equals(postQueryRequest.getSortOrder()),
+                postQueryRequest.getCurrent(),
+                postQueryRequest.getPageSize(),
+                postQueryRequest.isSearchCount());
+        return new JSONArray(keyPartList, JSONConfig.create().setIgnoreNullValue(false)).toString();
+    }
+
+    /**
+     * 获取缓存的结果
+     *
+     * @param cacheKey
+     * @return 帖子 id 分页，未命中时返回 null
+     */
+    public Page<Long> get(String cacheKey) {
+        Page<Long> postIdPage = resultCache.get(cacheKey, false);
+        if (postIdPage == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return postIdPage;
+    }
+
+    /**
+     * 缓存结果（只保存 id 列表）
+     *
+     * @param cacheKey
+     * @param postPage
+     */
+    public void put(String cacheKey, Page<Post> postPage) {
+        Page<Long> postIdPage = new Page<>(postPage.getCurrent(), postPage.getSize(), postPage.getTotal());
+        postIdPage.setRecords(postPage.getRecords().stream().map(Post::getId).collect(Collectors.toList()));
+        resultCache.put(cacheKey, postIdPage);
+    }
+
+    /**
+     * 使所有结果失效（所有节点）
+     */
+    public void invalidateAll() {
+        cacheSyncManager.publish(INVALIDATE_CHANNEL, CONTENT_CHANGED);
+        cacheSyncManager.publish(INVALIDATE_CHANNEL, COUNTER_CHANGED);
+    }
+
+    @Override
+    public String getSinkName() {
+        return "postSearchCache";
+    }
+
+    @Override
+    public void onPostChanged(List<PostOutbox> eventList) {
+        boolean contentChanged = false;
+        boolean counterChanged = false;
+        for (PostOutbox postOutbox : eventList) {
+            if (PostChangeTypeEnum.COUNTER.getValue().equals(postOutbox.getEventType())) {
+                counterChanged = true;
+            } else {
+                contentChanged = true;
+            }
+        }
+        if (contentChanged) {
+            cacheSyncManager.publish(INVALIDATE_CHANNEL, CONTENT_CHANGED);
+        }
+        if (counterChanged) {
+            cacheSyncManager.publish(INVALIDATE_CHANNEL, COUNTER_CHANGED);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "postSearchCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long hit = hitCount.sum();
+        long miss = missCount.sum();
+        long total = hit + miss;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", resultCache.size());
+        metrics.put("contentGeneration", contentGeneration.get());
+        metrics.put("counterGeneration", counterGeneration.get());
+        metrics.put("hitCount", hit);
+        metrics.put("missCount", miss);
+        metrics.put("hitRate", total == 0 ? 0D : (double) hit / total);
+        return metrics;
+    }
+
+    private static String normalize(String text) {
+        return StringUtils.lowerCase(StringUtils.trimToEmpty(text));
+    }
+
+    /**
+     * 标签顺序不影响结果，去重排序
+     *
+     * @param tagList
+     * @return
+     */
+    private static Collection<String> normalizeTags(Collection<String> tagList) {
+        if (tagList == null) {
+            return Collections.emptySet();
+        }
+        return tagList.stream()
+                .filter(StringUtils::isNotBlank)
+                .map(String::trim)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+}
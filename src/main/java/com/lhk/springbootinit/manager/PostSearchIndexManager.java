@@ -0,0 +1,625 @@
+package com.lhk.springbootinit.manager;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.http.HtmlUtil;
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lhk.springbootinit.common.ErrorCode;
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.config.PostSearchConfig;
+import com.lhk.springbootinit.constant.CommonConstant;
+import com.lhk.springbootinit.exception.BusinessException;
+import com.lhk.springbootinit.exception.ThrowUtils;
+import com.lhk.springbootinit.mapper.PostMapper;
+import com.lhk.springbootinit.model.dto.post.PostQueryRequest;
+import com.lhk.springbootinit.model.entity.Post;
+import com.lhk.springbootinit.model.entity.PostOutbox;
+import com.lhk.springbootinit.utils.SearchTokenUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 帖子本地倒排索引（未开启 ES 时的搜索实现）
+ * <p>
+ * 启动后全量构建，之后接收帖子变更事件，并按 updateTime 定时拉取变更兜底；
+ * 过滤、排序语义与 ES 搜索一致，关键词按 BM25 打分。
+ * 只处理带关键词的搜索，无关键词的列表查询走数据库索引；帖子数超过上限时停用
+ */
+@Component
+@Slf4j
+public class PostSearchIndexManager implements MetricsProvider, PostChangeSink {
+
+    private static final double BM25_K1 = 1.2;
+
+    private static final double BM25_B = 0.75;
+
+    /**
+     * 帖子变更广播频道（消息为逗号分隔的帖子 id）
+     */
+    private static final String SYNC_CHANNEL = "post:search:index:sync";
+
+    @Resource
+    private PostSearchConfig postSearchConfig;
+
+    @Resource
+    private PostMapper postMapper;
+
+    @Resource
+    private CacheSyncManager cacheSyncManager;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, IndexedPost> postMap = new HashMap<>();
+
+    /**
+     * 标题倒排表：词 => (帖子 id => 词频)
+     */
+    private final Map<String, Map<Long, Integer>> titlePostings = new HashMap<>();
+
+    /**
+     * 内容倒排表：词 => (帖子 id => 词频)
+     */
+    private final Map<String, Map<Long, Integer>> contentPostings = new HashMap<>();
+
+    private long titleLengthSum;
+
+    private long contentLengthSum;
+
+    private volatile boolean ready;
+
+    /**
+     * 帖子数超过上限后停用（直到重启）
+     */
+    private volatile boolean overflowed;
+
+    private volatile long lastSyncTime;
+
+    private final AtomicLong lastBuildCostMillis = new AtomicLong();
+
+    private final LongAdder searchCount = new LongAdder();
+
+    private final LongAdder syncPostCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        cacheSyncManager.subscribe(SYNC_CHANNEL, this::onSyncMessage);
+    }
+
+    /**
+     * 是否使用本地索引
+     *
+     * @return
+     */
+    public boolean isEnabled() {
+        return postSearchConfig.isLocalIndexEnabled() && !postSearchConfig.isEsEnabled() && !overflowed;
+    }
+
+    /**
+     * 索引是否已构建完成
+     *
+     * @return
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 是否由本地索引处理该查询（须有关键词，且不是游标分页）
+     *
+     * @param postQueryRequest
+     * @return
+     */
+    public boolean canSearch(PostQueryRequest postQueryRequest) {
+        return isEnabled() && ready && postQueryRequest.getCursor() == null && hasTextQuery(postQueryRequest);
+    }
+
+    /**
+     * 启动后在后台全量构建，失败时间隔一段时间重试直到成功
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!isEnabled()) {
+            return;
+        }
+        Thread thread = new Thread(this::buildWithRetry, "post-search-index-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void buildWithRetry() {
+        while (isEnabled() && !build()) {
+            try {
+                TimeUnit.SECONDS.sleep(postSearchConfig.getLocalBuildRetryIntervalSeconds());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 按 id 分批全量构建
+     *
+     * @return 是否构建完成（失败时清空已构建的部分）
+     */
+    public boolean build() {
+        log.info("build post search index start");
+        long start = System.currentTimeMillis();
+        long minId = 0;
+        int total = 0;
+        try {
+            while (true) {
+                QueryWrapper<Post> queryWrapper = new QueryWrapper<>();
+                queryWrapper.gt("id", minId).orderByAsc("id")
+                        .last("limit " + postSearchConfig.getLocalBuildBatchSize());
+                List<Post> postList = postMapper.selectList(queryWrapper);
+                if (CollUtil.isEmpty(postList)) {
+                    break;
+                }
+                postList.forEach(this::upsert);
+                if (overflowed) {
+                    return true;
+                }
+                total += postList.size();
+                minId = postList.get(postList.size() - 1).getId();
+            }
+        } catch (Exception e) {
+            log.error("build post search index error, minId = {}", minId, e);
+            lock.writeLock().lock();
+            try {
+                clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return false;
+        }
+        // 构建期间的变更由增量同步补齐
+        lastSyncTime = start;
+        ready = true;
+        lastBuildCostMillis.set(System.currentTimeMillis() - start);
+        log.info("build post search index end, total {}", total);
+        return true;
+    }
+
+    /**
+     * 增量同步
+     */
+    @Scheduled(fixedDelayString = "${post.search.local-sync-interval-ms:5000}")
+    public void syncIncrement() {
+        if (!ready || !isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long overlapMillis = TimeUnit.SECONDS.toMillis(postSearchConfig.getLocalSyncOverlapSeconds());
+        Date minUpdateTime = new Date(lastSyncTime - overlapMillis);
+        try {
+            List<Post> postList = postMapper.listPostWithDelete(minUpdateTime);
+            postList.forEach(this::upsert);
+            syncPostCount.add(postList.size());
+            lastSyncTime = now;
+        } catch (Exception e) {
+            log.error("sync post search index error", e);
+        }
+    }
+
+    /**
+     * 写入或更新帖子（已删除的帖子从索引移除）
+     *
+     * @param post
+     */
+    public void upsert(Post post) {
+        if (post == null || post.getId() == null) {
+            return;
+        }
+        if (post.getIsDelete() != null && post.getIsDelete() == 1) {
+            remove(post.getId());
+            return;
+        }
+        IndexedPost indexedPost = IndexedPost.of(post);
+        lock.writeLock().lock();
+        try {
+            if (!postMap.containsKey(indexedPost.id) && postMap.size() >= postSearchConfig.getLocalIndexMaxPosts()) {
+                overflow();
+                return;
+            }
+            removeInner(post.getId());
+            postMap.put(indexedPost.id, indexedPost);
+            addPostings(titlePostings, indexedPost.id, indexedPost.titleTermFreq);
+            addPostings(contentPostings, indexedPost.id, indexedPost.contentTermFreq);
+            titleLengthSum += indexedPost.titleLength;
+            contentLengthSum += indexedPost.contentLength;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除帖子
+     *
+     * @param postId
+     */
+    public void remove(long postId) {
+        lock.writeLock().lock();
+        try {
+            removeInner(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索（须有关键词，见 {@link #canSearch}）
+     *
+     * @param postQueryRequest
+     * @return 帖子 id 分页（按相关度或指定字段排序）
+     */
+    public Page<Long> search(PostQueryRequest postQueryRequest) {
+        ThrowUtils.throwIf(!hasTextQuery(postQueryRequest), ErrorCode.PARAMS_ERROR, "本地索引搜索须指定关键词");
+        searchCount.increment();
+        String searchText = postQueryRequest.getSearchText();
+        String title = postQueryRequest.getTitle();
+        String content = postQueryRequest.getContent();
+        long current = postQueryRequest.getCurrent();
+        long pageSize = postQueryRequest.getPageSize();
+        Comparator<IndexedPost> sortComparator = getSortComparator(postQueryRequest.getSortField(),
+                CommonConstant.SORT_ORDER_ASC.equals(postQueryRequest.getSortOrder()));
+        List<IndexedPost> matchedList = new ArrayList<>();
+        Map<Long, Double> scoreMap = null;
+        lock.readLock().lock();
+        try {
+            // 关键词条件之间至少满足一个（同 ES minimumShouldMatch = 1）
+            if (StringUtils.isNotBlank(searchText)) {
+                scoreMap = score(scoreMap, searchText, true, true);
+            }
+            if (StringUtils.isNotBlank(title)) {
+                scoreMap = score(scoreMap, title, true, false);
+            }
+            if (StringUtils.isNotBlank(content)) {
+                scoreMap = score(scoreMap, content, false, true);
+            }
+            for (Long postId : scoreMap.keySet()) {
+                IndexedPost indexedPost = postMap.get(postId);
+                if (indexedPost != null && matchFilter(indexedPost, postQueryRequest)) {
+                    matchedList.add(indexedPost);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (sortComparator == null) {
+            // 按相关度降序，相同时新帖子在前
+            Map<Long, Double> finalScoreMap = scoreMap;
+            sortComparator = Comparator.<IndexedPost>comparingDouble(p -> finalScoreMap.getOrDefault(p.id, 0D))
+                    .reversed()
+                    .thenComparing(Comparator.comparingLong((IndexedPost p) -> p.id).reversed());
+        }
+        matchedList.sort(sortComparator);
+        long from = Math.max(0, (current - 1) * pageSize);
+        long to = Math.min(matchedList.size(), from + pageSize);
+        List<Long> postIdList = from >= to ? new ArrayList<>() : matchedList.subList((int) from, (int) to).stream()
+                .map(p -> p.id)
+                .collect(Collectors.toList());
+        Page<Long> page = new Page<>(current, pageSize, matchedList.size());
+        page.setRecords(postIdList);
+        return page;
+    }
+
+    @Override
+    public String getSinkName() {
+        return "postSearchIndex";
+    }
+
+    /**
+     * 接收帖子变更事件
+     * <p>
+     * 只有持有分发锁的节点会收到事件，因此将变更的帖子 id 广播给所有节点各自刷新本地索引：
+     * 本节点同步刷新，失败时抛出，事件留在发件箱重试；
+     * 未就绪时直接跳过（不能阻塞发件箱的其他接收方），构建期间及之后的变更由全量构建和增量同步
+     * （{@link #syncIncrement}，带回看时间）覆盖；其他节点未收到广播（Redis 不可用）时同样由增量同步兜底
+     *
+     * @param eventList
+     */
+    @Override
+    public void onPostChanged(List<PostOutbox> eventList) {
+        if (!isEnabled() || !ready) {
+            return;
+        }
+        String message = eventList.stream()
+                .map(event -> String.valueOf(event.getPostId()))
+                .distinct()
+                .collect(Collectors.joining(","));
+        cacheSyncManager.publish(SYNC_CHANNEL, message);
+    }
+
+    /**
+     * 按广播的帖子 id 从数据库刷新索引
+     *
+     * @param message
+     */
+    private void onSyncMessage(String message) {
+        if (!ready || !isEnabled() || StringUtils.isBlank(message)) {
+            return;
+        }
+        List<Long> postIdList = Arrays.stream(message.split(","))
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+        Map<Long, Post> idPostMap = postMapper.selectBatchIds(postIdList).stream()
+                .collect(Collectors.toMap(Post::getId, post -> post));
+        for (Long postId : postIdList) {
+            Post post = idPostMap.get(postId);
+            if (post != null) {
+                upsert(post);
+            } else {
+                remove(postId);
+            }
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "postSearchIndex";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            metrics.put("postCount", postMap.size());
+            metrics.put("titleTermCount", titlePostings.size());
+            metrics.put("contentTermCount", contentPostings.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        metrics.put("ready", ready);
+        metrics.put("overflowed", overflowed);
+        metrics.put("lastSyncTime", lastSyncTime);
+        metrics.put("lastBuildCostMillis", lastBuildCostMillis.get());
+        metrics.put("syncPostCount", syncPostCount.sum());
+        metrics.put("searchCount", searchCount.sum());
+        return metrics;
+    }
+
+    /**
+     * 累加关键词得分（须持有读锁）
+     *
+     * @param scoreMap   已有得分，为 null 时新建
+     * @param text
+     * @param matchTitle
+     * @param matchContent
+     * @return
+     */
+    private Map<Long, Double> score(Map<Long, Double> scoreMap, String text, boolean matchTitle,
+            boolean matchContent) {
+        Map<Long, Double> result = scoreMap == null ? new HashMap<>() : scoreMap;
+        Set<String> termSet = new LinkedHashSet<>(SearchTokenUtils.tokenizeQuery(text));
+        int postCount = postMap.size();
+        if (postCount == 0) {
+            return result;
+        }
+        for (String term : termSet) {
+            if (matchTitle) {
+                scoreField(result, titlePostings.get(term), postCount, (double) titleLengthSum / postCount, true);
+            }
+            if (matchContent) {
+                scoreField(result, contentPostings.get(term), postCount, (double) contentLengthSum / postCount,
+                        false);
+            }
+        }
+        return result;
+    }
+
+    private void scoreField(Map<Long, Double> scoreMap, Map<Long, Integer> postings, int postCount,
+            double avgLength, boolean isTitle) {
+        if (postings == null || postings.isEmpty()) {
+            return;
+        }
+        int docFreq = postings.size();
+        double idf = Math.log(1 + (postCount - docFreq + 0.5) / (docFreq + 0.5));
+        postings.forEach((postId, termFreq) -> {
+            IndexedPost indexedPost = postMap.get(postId);
+            int length = isTitle ? indexedPost.titleLength : indexedPost.contentLength;
+            double norm = BM25_K1 * (1 - BM25_B + BM25_B * length / Math.max(avgLength, 1));
+            double score = idf * termFreq * (BM25_K1 + 1) / (termFreq + norm);
+            scoreMap.merge(postId, score, Double::sum);
+        });
+    }
+
+    private boolean matchFilter(IndexedPost indexedPost, PostQueryRequest postQueryRequest) {
+        Long id = postQueryRequest.getId();
+        Long notId = postQueryRequest.getNotId();
+        Long userId = postQueryRequest.getUserId();
+        List<String> tagList = postQueryRequest.getTags();
+        List<String> orTagList = postQueryRequest.getOrTags();
+        if (id != null && indexedPost.id != id) {
+            return false;
+        }
+        if (notId != null && indexedPost.id == notId) {
+            return false;
+        }
+        if (userId != null && !userId.equals(indexedPost.userId)) {
+            return false;
+        }
+        // 必须包含所有标签
+        if (CollUtil.isNotEmpty(tagList) && !indexedPost.tagSet.containsAll(tagList)) {
+            return false;
+        }
+        // 包含任何一个标签即可
+        if (CollUtil.isNotEmpty(orTagList)) {
+            return orTagList.stream().anyMatch(indexedPost.tagSet::contains);
+        }
+        return true;
+    }
+
+    /**
+     * 按字段排序
+     *
+     * @param sortField
+     * @param isAsc
+     * @return 未指定排序字段时返回 null（按相关度排序）
+     */
+    private Comparator<IndexedPost> getSortComparator(String sortField, boolean isAsc) {
+        if (StringUtils.isBlank(sortField)) {
+            return null;
+        }
+        Comparator<IndexedPost> comparator;
+        switch (sortField) {
+            case "id":
+                comparator = Comparator.comparingLong(p -> p.id);
+                break;
+            case "userId":
+                comparator = Comparator.comparingLong(p -> p.userId == null ? 0 : p.userId);
+                break;
+            case "thumbNum":
+                comparator = Comparator.comparingInt(p -> p.thumbNum);
+                break;
+            case "favourNum":
+                comparator = Comparator.comparingInt(p -> p.favourNum);
+                break;
+            case "createTime":
+                comparator = Comparator.comparingLong(p -> p.createTime);
+                break;
+            case "updateTime":
+                comparator = Comparator.comparingLong(p -> p.updateTime);
+                break;
+            default:
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "不支持该排序字段");
+        }
+        comparator = comparator.thenComparingLong(p -> p.id);
+        return isAsc ? comparator : comparator.reversed();
+    }
+
+    private static boolean hasTextQuery(PostQueryRequest postQueryRequest) {
+        return StringUtils.isNotBlank(postQueryRequest.getSearchText())
+                || StringUtils.isNotBlank(postQueryRequest.getTitle())
+                || StringUtils.isNotBlank(postQueryRequest.getContent());
+    }
+
+    /**
+     * 超过上限：清空并停用索引（须持有写锁）
+     */
+    private void overflow() {
+        overflowed = true;
+        ready = false;
+        clear();
+        log.warn("post search index exceeds {} posts, fall back to db", postSearchConfig.getLocalIndexMaxPosts());
+    }
+
+    /**
+     * 清空索引（须持有写锁）
+     */
+    private void clear() {
+        postMap.clear();
+        titlePostings.clear();
+        contentPostings.clear();
+        titleLengthSum = 0;
+        contentLengthSum = 0;
+    }
+
+    private void removeInner(long postId) {
+        IndexedPost indexedPost = postMap.remove(postId);
+        if (indexedPost == null) {
+            return;
+        }
+        removePostings(titlePostings, postId, indexedPost.titleTermFreq.keySet());
+        removePostings(contentPostings, postId, indexedPost.contentTermFreq.keySet());
+        titleLengthSum -= indexedPost.titleLength;
+        contentLengthSum -= indexedPost.contentLength;
+    }
+
+    private static void addPostings(Map<String, Map<Long, Integer>> postings, long postId,
+            Map<String, Integer> termFreq) {
+        termFreq.forEach((term, freq) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(postId, freq));
+    }
+
+    private static void removePostings(Map<String, Map<Long, Integer>> postings, long postId, Set<String> termSet) {
+        for (String term : termSet) {
+            Map<Long, Integer> postIdFreqMap = postings.get(term);
+            if (postIdFreqMap != null) {
+                postIdFreqMap.remove(postId);
+                if (postIdFreqMap.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * 已索引的帖子（只保留过滤、排序、打分所需字段）
+     */
+    private static class IndexedPost {
+
+        private long id;
+
+        private Long userId;
+
+        private Set<String> tagSet;
+
+        private int thumbNum;
+
+        private int favourNum;
+
+        private long createTime;
+
+        private long updateTime;
+
+        private Map<String, Integer> titleTermFreq;
+
+        private Map<String, Integer> contentTermFreq;
+
+        private int titleLength;
+
+        private int contentLength;
+
+        private static IndexedPost of(Post post) {
+            IndexedPost indexedPost = new IndexedPost();
+            indexedPost.id = post.getId();
+            indexedPost.userId = post.getUserId();
+            indexedPost.tagSet = StringUtils.isBlank(post.getTags()) ? Collections.emptySet()
+                    : new HashSet<>(JSONUtil.toList(post.getTags(), String.class));
+            indexedPost.thumbNum = post.getThumbNum() == null ? 0 : post.getThumbNum();
+            indexedPost.favourNum = post.getFavourNum() == null ? 0 : post.getFavourNum();
+            indexedPost.createTime = post.getCreateTime() == null ? 0 : post.getCreateTime().getTime();
+            indexedPost.updateTime = post.getUpdateTime() == null ? 0 : post.getUpdateTime().getTime();
+            List<String> titleTokenList = SearchTokenUtils.tokenize(post.getTitle());
+            // 内容为富文本，去掉标签（含内嵌图片）后再分词
+            String content = post.getContent() == null ? null : HtmlUtil.cleanHtmlTag(post.getContent());
+            List<String> contentTokenList = SearchTokenUtils.tokenize(content);
+            indexedPost.titleTermFreq = countTermFreq(titleTokenList);
+            indexedPost.contentTermFreq = countTermFreq(contentTokenList);
+            indexedPost.titleLength = titleTokenList.size();
+            indexedPost.contentLength = contentTokenList.size();
+            return indexedPost;
+        }
+
+        private static Map<String, Integer> countTermFreq(List<String> tokenList) {
+            Map<String, Integer> termFreq = new HashMap<>();
+            tokenList.forEach(token -> termFreq.merge(token, 1, Integer::sum));
+            return termFreq;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.lhk.springbootinit.manager;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.json.JSONUtil;
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.config.PostCacheConfig;
+import com.lhk.springbootinit.mapper.PostMapper;
+import com.lhk.springbootinit.model.entity.Post;
+import com.lhk.springbootinit.model.entity.PostOutbox;
+import com.lhk.springbootinit.model.entity.User;
+import com.lhk.springbootinit.model.vo.PostVO;
+import com.lhk.springbootinit.service.UserService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 帖子视图二级缓存（本地 LRU + Redis）
+ * <p>
+ * 仅缓存与登录用户无关的部分（帖子 + 作者信息），点赞、收藏状态由调用方填充
+ */
+@Component
+@Slf4j
+public class PostVOCacheManager implements MetricsProvider, PostChangeSink {
+
+    private static final String REDIS_KEY_PREFIX = "post:vo:";
+
+    private static final String INVALIDATE_CHANNEL = "post:vo:invalidate";
+
+    /**
+     * 失效版本分段数
+     */
+    private static final int VERSION_STRIPES = 1024;
+
+    @Resource
+    private PostCacheConfig postCacheConfig;
+
+    @Resource
+    private PostMapper postMapper;
+
+    @Resource
+    private UserService userService;
+
+    @Resource
+    private CacheSyncManager cacheSyncManager;
+
+    @Resource
+    private ObjectProvider<StringRedisTemplate> stringRedisTemplateProvider;
+
+    private LRUCache<Long, PostVO> localCache;
+
+    /**
+     * 按帖子分段的失效版本号，防止加载期间发生的失效被旧数据覆盖（只影响同一分段的帖子）
+     */
+    private final AtomicLongArray invalidateVersions = new AtomicLongArray(VERSION_STRIPES);
+
+    private final LongAdder localHitCount = new LongAdder();
+
+    private final LongAdder redisHitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder invalidateCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        localCache = CacheUtil.newLRUCache(postCacheConfig.getLocalMaxSize(),
+                TimeUnit.SECONDS.toMillis(postCacheConfig.getMaxStaleSeconds()));
+        cacheSyncManager.subscribe(INVALIDATE_CHANNEL, message -> {
+            long postId = Long.parseLong(message);
+            invalidateVersions.incrementAndGet(stripe(postId));
+            localCache.remove(postId);
+        });
+    }
+
+    /**
+     * 获取帖子视图（不含当前用户的点赞、收藏状态）
+     *
+     * @param postId
+     * @return 帖子不存在时返回 null
+     */
+    public PostVO getPostVO(long postId) {
+        // 不刷新访问时间，保证最大不一致时间
+        PostVO postVO = localCache.get(postId, false);
+        if (postVO != null) {
+            localHitCount.increment();
+            return copyOf(postVO);
+        }
+        long version = invalidateVersions.get(stripe(postId));
+        StringRedisTemplate stringRedisTemplate = stringRedisTemplateProvider.getIfAvailable();
+        if (stringRedisTemplate != null) {
+            try {
+                String json = stringRedisTemplate.opsForValue().get(REDIS_KEY_PREFIX + postId);
+                if (json != null) {
+                    postVO = JSONUtil.toBean(json, PostVO.class);
+                    redisHitCount.increment();
+                    putLocal(postId, postVO, version);
+                    return copyOf(postVO);
+                }
+            } catch (Exception e) {
+                log.error("get post vo from redis error, postId = {}", postId, e);
+            }
+        }
+        missCount.increment();
+        postVO = loadPostVO(postId);
+        if (postVO == null) {
+            return null;
+        }
+        putLocal(postId, postVO, version);
+        if (stringRedisTemplate != null && invalidateVersions.get(stripe(postId)) == version) {
+            putRedis(stringRedisTemplate, postId, postVO);
+        }
+        return copyOf(postVO);
+    }
+
+    /**
+     * 批量获取帖子视图（本地缓存 => Redis 批量读取 => 数据库批量加载）
+     *
+     * @param postIds
+     * @return 帖子 id => 帖子视图（副本），不包含不存在的帖子
+     */
+    public Map<Long, PostVO> getPostVOs(Collection<Long> postIds) {
+        Map<Long, PostVO> result = new HashMap<>();
+        List<Long> missPostIdList = new ArrayList<>();
+        for (Long postId : postIds) {
+            PostVO postVO = localCache.get(postId, false);
+            if (postVO != null) {
+                localHitCount.increment();
+                result.put(postId, copyOf(postVO));
+            } else {
+                missPostIdList.add(postId);
+            }
+        }
+        if (missPostIdList.isEmpty()) {
+            return result;
+        }
+        Map<Long, Long> postIdVersionMap = new HashMap<>();
+        missPostIdList.forEach(postId -> postIdVersionMap.put(postId, invalidateVersions.get(stripe(postId))));
+        StringRedisTemplate stringRedisTemplate = stringRedisTemplateProvider.getIfAvailable();
+        if (stringRedisTemplate != null) {
+            try {
+                List<String> jsonList = stringRedisTemplate.opsForValue().multiGet(missPostIdList.stream()
+                        .map(postId -> REDIS_KEY_PREFIX + postId)
+                        .collect(Collectors.toList()));
+                List<Long> redisMissPostIdList = new ArrayList<>();
+                for (int i = 0; i < missPostIdList.size(); i++) {
+                    Long postId = missPostIdList.get(i);
+                    String json = jsonList == null ? null : jsonList.get(i);
+                    if (json == null) {
+                        redisMissPostIdList.add(postId);
+                        continue;
+                    }
+                    PostVO postVO = JSONUtil.toBean(json, PostVO.class);
+                    redisHitCount.increment();
+                    putLocal(postId, postVO, postIdVersionMap.get(postId));
+                    result.put(postId, copyOf(postVO));
+                }
+                missPostIdList = redisMissPostIdList;
+            } catch (Exception e) {
+                log.error("multi get post vo from redis error, size = {}", missPostIdList.size(), e);
+            }
+        }
+        if (missPostIdList.isEmpty()) {
+            return result;
+        }
+        missCount.add(missPostIdList.size());
+        for (PostVO postVO : loadPostVOs(missPostIdList)) {
+            long postId = postVO.getId();
+            long version = postIdVersionMap.get(postId);
+            putLocal(postId, postVO, version);
+            if (stringRedisTemplate != null && invalidateVersions.get(stripe(postId)) == version) {
+                putRedis(stringRedisTemplate, postId, postVO);
+            }
+            result.put(postId, copyOf(postVO));
+        }
+        return result;
+    }
+
+    /**
+     * 失效缓存（所有节点）
+     *
+     * @param postId
+     */
+    public void invalidate(long postId) {
+        invalidateVersions.incrementAndGet(stripe(postId));
+        invalidateCount.increment();
+        StringRedisTemplate stringRedisTemplate = stringRedisTemplateProvider.getIfAvailable();
+        if (stringRedisTemplate != null) {
+            try {
+                stringRedisTemplate.delete(REDIS_KEY_PREFIX + postId);
+            } catch (Exception e) {
+                log.error("delete post vo from redis error, postId = {}", postId, e);
+            }
+        }
+        cacheSyncManager.publish(INVALIDATE_CHANNEL, String.valueOf(postId));
+    }
+
+    @Override
+    public String getSinkName() {
+        return "postVOCache";
+    }
+
+    @Override
+    public void onPostChanged(List<PostOutbox> eventList) {
+        eventList.stream().map(PostOutbox::getPostId).distinct().forEach(this::invalidate);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "postVOCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long localHit = localHitCount.sum();
+        long redisHit = redisHitCount.sum();
+        long miss = missCount.sum();
+        long total = localHit + redisHit + miss;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("localSize", localCache.size());
+        metrics.put("localHitCount", localHit);
+        metrics.put("redisHitCount", redisHit);
+        metrics.put("missCount", miss);
+        metrics.put("invalidateCount", invalidateCount.sum());
+        metrics.put("hitRate", total == 0 ? 0D : (double) (localHit + redisHit) / total);
+        return metrics;
+    }
+
+    /**
+     * 从数据库加载
+     *
+     * @param postId
+     * @return
+     */
+    private PostVO loadPostVO(long postId) {
+        Post post = postMapper.selectById(postId);
+        if (post == null) {
+            return null;
+        }
+        PostVO postVO = PostVO.objToVo(post);
+        Long userId = post.getUserId();
+        User user = null;
+        if (userId != null && userId > 0) {
+            user = userService.getById(userId);
+        }
+        postVO.setUser(userService.getUserVO(user));
+        return postVO;
+    }
+
+    /**
+     * 从数据库批量加载
+     *
+     * @param postIdList
+     * @return
+     */
+    private List<PostVO> loadPostVOs(List<Long> postIdList) {
+        List<Post> postList = postMapper.selectBatchIds(postIdList);
+        if (postList.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> userIdSet = postList.stream()
+                .map(Post::getUserId)
+                .filter(userId -> userId != null && userId > 0)
+                .collect(Collectors.toSet());
+        Map<Long, User> idUserMap = userIdSet.isEmpty() ? new HashMap<>() : userService.listByIds(userIdSet)
+                .stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+        return postList.stream().map(post -> {
+            PostVO postVO = PostVO.objToVo(post);
+            postVO.setUser(userService.getUserVO(idUserMap.get(post.getUserId())));
+            return postVO;
+        }).collect(Collectors.toList());
+    }
+
+    private void putRedis(StringRedisTemplate stringRedisTemplate, long postId, PostVO postVO) {
+        try {
+            // 其他节点的失效广播可能晚于本节点回填，Redis 过期时间不超过最大不一致时间
+            long expireSeconds = Math.min(postCacheConfig.getRedisExpireSeconds(),
+                    postCacheConfig.getMaxStaleSeconds());
+            stringRedisTemplate.opsForValue().set(REDIS_KEY_PREFIX + postId, JSONUtil.toJsonStr(postVO),
+                    expireSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.error("set post vo to redis error, postId = {}", postId, e);
+        }
+    }
+
+    private void putLocal(long postId, PostVO postVO, long version) {
+        // 加载期间发生过失效，则不回填本地缓存
+        if (invalidateVersions.get(stripe(postId)) == version) {
+            localCache.put(postId, postVO);
+        }
+    }
+
+    private static int stripe(long postId) {
+        return (int) (postId & (VERSION_STRIPES - 1));
+    }
+
+    /**
+     * 缓存对象共享，返回副本供调用方填充用户相关字段
+     *
+     * @param postVO
+     * @return
+     */
+    private PostVO copyOf(PostVO postVO) {
+        PostVO copy = new PostVO();
+        BeanUtils.copyProperties(postVO, copy);
+        return copy;
+    }
+}
@@ -0,0 +1,256 @@
+package com.lhk.springbootinit.manager;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.util.IdUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.lhk.springbootinit.common.MetricsProvider;
+import com.lhk.springbootinit.config.PostCacheConfig;
+import com.lhk.springbootinit.mapper.PostFavourMapper;
+import com.lhk.springbootinit.mapper.PostThumbMapper;
+import com.lhk.springbootinit.model.entity.PostFavour;
+import com.lhk.springbootinit.model.entity.PostThumb;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户点赞、收藏关系索引
+ * <p>
+ * 按用户懒加载其点赞、收藏过的帖子 id（有序 long 数组），整页帖子的状态在内存中判断，
+ * 本节点的点赞、收藏操作直接更新索引，其他节点的变更通过广播失效
+ */
+@Component
+@Slf4j
+public class UserPostMembershipManager implements MetricsProvider {
+
+    private static final String INVALIDATE_CHANNEL = "post:membership:invalidate";
+
+    /**
+     * 版本分段数，用于检测加载期间的并发修改
+     */
+    private static final int VERSION_STRIPES = 64;
+
+    @Resource
+    private PostCacheConfig postCacheConfig;
+
+    @Resource
+    private PostThumbMapper postThumbMapper;
+
+    @Resource
+    private PostFavourMapper postFavourMapper;
+
+    @Resource
+    private CacheSyncManager cacheSyncManager;
+
+    private LRUCache<Long, Membership> membershipCache;
+
+    private final AtomicLongArray modifyVersions = new AtomicLongArray(VERSION_STRIPES);
+
+    /**
+     * 节点标识，忽略自己发出的失效消息
+     */
+    private final String nodeId = IdUtil.fastSimpleUUID();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder loadCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        membershipCache = CacheUtil.newLRUCache(postCacheConfig.getMembershipMaxUsers(),
+                TimeUnit.SECONDS.toMillis(postCacheConfig.getMembershipExpireSeconds()));
+        cacheSyncManager.subscribe(INVALIDATE_CHANNEL, message -> {
+            String[] parts = message.split(":");
+            if (parts.length == 2 && !nodeId.equals(parts[0])) {
+                long userId = Long.parseLong(parts[1]);
+                modifyVersions.incrementAndGet(stripe(userId));
+                membershipCache.remove(userId);
+            }
+        });
+    }
+
+    /**
+     * 过滤出用户已点赞的帖子
+     *
+     * @param userId
+     * @param postIds
+     * @return
+     */
+    public Set<Long> filterThumbed(long userId, Collection<Long> postIds) {
+        return filter(getMembership(userId).thumbPostIds, postIds);
+    }
+
+    /**
+     * 过滤出用户已收藏的帖子
+     *
+     * @param userId
+     * @param postIds
+     * @return
+     */
+    public Set<Long> filterFavoured(long userId, Collection<Long> postIds) {
+        return filter(getMembership(userId).favourPostIds, postIds);
+    }
+
+    /**
+     * 是否已点赞
+     *
+     * @param userId
+     * @param postId
+     * @return
+     */
+    public boolean hasThumb(long userId, long postId) {
+        return Arrays.binarySearch(getMembership(userId).thumbPostIds, postId) >= 0;
+    }
+
+    /**
+     * 是否已收藏
+     *
+     * @param userId
+     * @param postId
+     * @return
+     */
+    public boolean hasFavour(long userId, long postId) {
+        return Arrays.binarySearch(getMembership(userId).favourPostIds, postId) >= 0;
+    }
+
+    /**
+     * 点赞关系变更（须在事务提交后调用）
+     *
+     * @param userId
+     * @param postId
+     * @param added  true-点赞，false-取消点赞
+     */
+    public void onThumbChanged(long userId, long postId, boolean added) {
+        modifyVersions.incrementAndGet(stripe(userId));
+        Membership membership = membershipCache.get(userId, false);
+        if (membership != null) {
+            synchronized (membership) {
+                membership.thumbPostIds = added ? insert(membership.thumbPostIds, postId)
+                        : remove(membership.thumbPostIds, postId);
+            }
+        }
+        cacheSyncManager.publish(INVALIDATE_CHANNEL, nodeId + ":" + userId);
+    }
+
+    /**
+     * 收藏关系变更（须在事务提交后调用）
+     *
+     * @param userId
+     * @param postId
+     * @param added  true-收藏，false-取消收藏
+     */
+    public void onFavourChanged(long userId, long postId, boolean added) {
+        modifyVersions.incrementAndGet(stripe(userId));
+        Membership membership = membershipCache.get(userId, false);
+        if (membership != null) {
+            synchronized (membership) {
+                membership.favourPostIds = added ? insert(membership.favourPostIds, postId)
+                        : remove(membership.favourPostIds, postId);
+            }
+        }
+        cacheSyncManager.publish(INVALIDATE_CHANNEL, nodeId + ":" + userId);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "userPostMembership";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("userSize", membershipCache.size());
+        metrics.put("hitCount", hitCount.sum());
+        metrics.put("loadCount", loadCount.sum());
+        return metrics;
+    }
+
+    private Membership getMembership(long userId) {
+        Membership membership = membershipCache.get(userId, false);
+        if (membership != null) {
+            hitCount.increment();
+            return membership;
+        }
+        loadCount.increment();
+        long version = modifyVersions.get(stripe(userId));
+        membership = new Membership();
+        membership.thumbPostIds = toSortedArray(postThumbMapper.selectObjs(
+                new QueryWrapper<PostThumb>().select("postId").eq("userId", userId)));
+        membership.favourPostIds = toSortedArray(postFavourMapper.selectObjs(
+                new QueryWrapper<PostFavour>().select("postId").eq("userId", userId)));
+        // 加载期间有变更则本次结果不入缓存，下次重新加载
+        if (modifyVersions.get(stripe(userId)) == version) {
+            membershipCache.put(userId, membership);
+        }
+        return membership;
+    }
+
+    private static Set<Long> filter(long[] sortedPostIds, Collection<Long> postIds) {
+        Set<Long> result = new HashSet<>();
+        for (Long postId : postIds) {
+            if (postId != null && Arrays.binarySearch(sortedPostIds, postId) >= 0) {
+                result.add(postId);
+            }
+        }
+        return result;
+    }
+
+    private static long[] toSortedArray(List<Object> postIdList) {
+        long[] postIds = new long[postIdList.size()];
+        for (int i = 0; i < postIds.length; i++) {
+            postIds[i] = ((Number) postIdList.get(i)).longValue();
+        }
+        Arrays.sort(postIds);
+        return postIds;
+    }
+
+    private static long[] insert(long[] sortedPostIds, long postId) {
+        int index = Arrays.binarySearch(sortedPostIds, postId);
+        if (index >= 0) {
+            return sortedPostIds;
+        }
+        int insertIndex = -index - 1;
+        long[] result = new long[sortedPostIds.length + 1];
+        System.arraycopy(sortedPostIds, 0, result, 0, insertIndex);
+        result[insertIndex] = postId;
+        System.arraycopy(sortedPostIds, insertIndex, result, insertIndex + 1, sortedPostIds.length - insertIndex);
+        return result;
+    }
+
+    private static long[] remove(long[] sortedPostIds, long postId) {
+        int index = Arrays.binarySearch(sortedPostIds, postId);
+        if (index < 0) {
+            return sortedPostIds;
+        }
+        long[] result = new long[sortedPostIds.length - 1];
+        System.arraycopy(sortedPostIds, 0, result, 0, index);
+        System.arraycopy(sortedPostIds, index + 1, result, index, sortedPostIds.length - index - 1);
+        return result;
+    }
+
+    private static int stripe(long userId) {
+        return (int) (userId & (VERSION_STRIPES - 1));
+    }
+
+    /**
+     * 单个用户的关系索引，数组写时复制，读无需加锁
+     */
+    private static class Membership {
+
+        private volatile long[] thumbPostIds;
+
+        private volatile long[] favourPostIds;
+    }
+}
@@ -0,0 +1,11 @@
+package com.lhk.springbootinit.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lhk.springbootinit.model.entity.FileObject;
+
+/**
+ * 文件对象数据库操作
+ */
+public interface FileObjectMapper extends BaseMapper<FileObject> {
+
+}
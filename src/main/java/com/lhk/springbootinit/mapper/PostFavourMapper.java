@@ -7,6 +7,8 @@ import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.lhk.springbootinit.model.entity.Post;
 import com.lhk.springbootinit.model.entity.PostFavour;
+import java.util.Collection;
+import java.util.List;
 import org.apache.ibatis.annotations.Param;
 
 /**
@@ -25,6 +27,34 @@ public interface PostFavourMapper extends BaseMapper<PostFavour> {
     Page<Post> listFavourPostByPage(IPage<Post> page, @Param(Constants.WRAPPER) Wrapper<Post> queryWrapper,
             long favourUserId);
 
+    /**
+     * 插入收藏关系（已存在则忽略，依赖 userId + postId 唯一索引）
+     *
+     * @param userId
+     * @param postId
+     * @return 影响行数，0 表示已存在
+     */
+    int insertIgnore(@Param("userId") long userId, @Param("postId") long postId);
+
+    /**
+     * 按 userId + postId 删除收藏关系
+     *
+     * @param userId
+     * @param postId
+     * @return 影响行数，0 表示不存在
+     */
+    int deleteByUserIdAndPostId(@Param("userId") long userId, @Param("postId") long postId);
+
+    /**
+     * 查询用户已收藏的帖子 id 并加锁（须在事务内调用）
+     *
+     * @param userId
+     * @param postIdList
+     * @return
+     */
+    List<Long> listPostIdByUserIdForUpdate(@Param("userId") long userId,
+            @Param("postIdList") Collection<Long> postIdList);
+
 }
 
 
@@ -1,9 +1,11 @@
 package com.lhk.springbootinit.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lhk.springbootinit.model.dto.post.PostCounterDelta;
 import com.lhk.springbootinit.model.entity.Post;
 import java.util.Date;
 import java.util.List;
+import org.apache.ibatis.annotations.Param;
 
 /**
  * 帖子数据库操作
@@ -15,6 +17,44 @@ public interface PostMapper extends BaseMapper<Post> {
      */
     List<Post> listPostWithDelete(Date minUpdateTime);
 
+    /**
+     * 按 (updateTime, id) 顺序分批查询位点之后的帖子（包括已被删除的数据）
+     *
+     * @param watermarkTime 上一批最后一条的更新时间
+     * @param watermarkId   上一批最后一条的 id
+     * @param maxUpdateTime 更新时间上限（包含），晚于该时间的数据留到下次处理
+     * @param limit
+     * @return
+     */
+    List<Post> listPostWithDeleteAfter(@Param("watermarkTime") Date watermarkTime,
+            @Param("watermarkId") long watermarkId, @Param("maxUpdateTime") Date maxUpdateTime,
+            @Param("limit") int limit);
+
+    /**
+     * 批量累加点赞数、收藏数（单条语句，计数不小于 0）
+     *
+     * @param deltaList
+     * @return
+     */
+    int batchUpdateCounter(@Param("deltaList") List<PostCounterDelta> deltaList);
+
+    /**
+     * 按 id 顺序分批查询帖子 id（包括已被删除的数据）
+     *
+     * @param minId 上一批最大 id（不包含）
+     * @param limit
+     * @return
+     */
+    List<Long> listPostIdAfter(@Param("minId") long minId, @Param("limit") int limit);
+
+    /**
+     * 根据点赞、收藏关系表重新计算计数
+     *
+     * @param postIdList
+     * @return
+     */
+    int reconcileCounter(@Param("postIdList") List<Long> postIdList);
+
 }
 
 
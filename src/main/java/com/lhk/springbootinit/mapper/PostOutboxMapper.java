@@ -0,0 +1,21 @@
+package com.lhk.springbootinit.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lhk.springbootinit.model.entity.PostOutbox;
+import java.util.Collection;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 帖子变更事件数据库操作
+ */
+public interface PostOutboxMapper extends BaseMapper<PostOutbox> {
+
+    /**
+     * 批量写入变更事件（须与业务数据在同一事务内）
+     *
+     * @param postIdList
+     * @param eventType
+     * @return
+     */
+    int insertBatch(@Param("postIdList") Collection<Long> postIdList, @Param("eventType") String eventType);
+}
@@ -0,0 +1,29 @@
+package com.lhk.springbootinit.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lhk.springbootinit.model.entity.PostTag;
+import java.util.Collection;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 帖子标签数据库操作
+ */
+public interface PostTagMapper extends BaseMapper<PostTag> {
+
+    /**
+     * 批量插入帖子标签（已存在则忽略）
+     *
+     * @param postId
+     * @param tagList
+     * @return
+     */
+    int insertIgnoreBatch(@Param("postId") long postId, @Param("tagList") Collection<String> tagList);
+
+    /**
+     * 删除帖子的所有标签
+     *
+     * @param postId
+     * @return
+     */
+    int deleteByPostId(@Param("postId") long postId);
+}
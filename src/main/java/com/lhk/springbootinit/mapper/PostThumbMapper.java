@@ -2,12 +2,43 @@ package com.lhk.springbootinit.mapper;
 
 import com.lhk.springbootinit.model.entity.PostThumb;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import java.util.Collection;
+import java.util.List;
+import org.apache.ibatis.annotations.Param;
 
 /**
  * 帖子点赞数据库操作
  */
 public interface PostThumbMapper extends BaseMapper<PostThumb> {
 
+    /**
+     * 插入点赞关系（已存在则忽略，依赖 userId + postId 唯一索引）
+     *
+     * @param userId
+     * @param postId
+     * @return 影响行数，0 表示已存在
+     */
+    int insertIgnore(@Param("userId") long userId, @Param("postId") long postId);
+
+    /**
+     * 按 userId + postId 删除点赞关系
+     *
+     * @param userId
+     * @param postId
+     * @return 影响行数，0 表示不存在
+     */
+    int deleteByUserIdAndPostId(@Param("userId") long userId, @Param("postId") long postId);
+
+    /**
+     * 查询用户已点赞的帖子 id 并加锁（须在事务内调用）
+     *
+     * @param userId
+     * @param postIdList
+     * @return
+     */
+    List<Long> listPostIdByUserIdForUpdate(@Param("userId") long userId,
+            @Param("postIdList") Collection<Long> postIdList);
+
 }
 
 
@@ -0,0 +1,30 @@
+package com.lhk.springbootinit.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.lhk.springbootinit.model.entity.SyncCheckpoint;
+import java.util.Date;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 同步位点数据库操作
+ */
+public interface SyncCheckpointMapper extends BaseMapper<SyncCheckpoint> {
+
+    /**
+     * 保存位点（不存在则插入）
+     *
+     * @param name
+     * @param watermarkTime
+     * @param watermarkId
+     * @return
+     */
+    int saveCheckpoint(@Param("name") String name, @Param("watermarkTime") Date watermarkTime,
+            @Param("watermarkId") long watermarkId);
+
+    /**
+     * 数据库当前时间（与 updateTime 同一时钟，不受应用服务器时钟偏差影响）
+     *
+     * @return
+     */
+    Date selectNow();
+}
@@ -0,0 +1,28 @@
+package com.lhk.springbootinit.model.dto.file;
+
+import java.io.Serializable;
+import lombok.Data;
+
+/**
+ * 分块上传初始化请求
+ */
+@Data
+public class MultipartUploadInitRequest implements Serializable {
+
+    /**
+     * 业务
+     */
+    private String biz;
+
+    /**
+     * 文件名
+     */
+    private String fileName;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long fileSize;
+
+    private static final long serialVersionUID = 1L;
+}
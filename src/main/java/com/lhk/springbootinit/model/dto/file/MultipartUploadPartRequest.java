@@ -0,0 +1,28 @@
+package com.lhk.springbootinit.model.dto.file;
+
+import java.io.Serializable;
+import lombok.Data;
+
+/**
+ * 分块上传请求（上传单个分块）
+ */
+@Data
+public class MultipartUploadPartRequest implements Serializable {
+
+    /**
+     * 文件路径（初始化时返回）
+     */
+    private String key;
+
+    /**
+     * 上传 id（初始化时返回）
+     */
+    private String uploadId;
+
+    /**
+     * 分块序号，从 1 开始
+     */
+    private Integer partNumber;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,23 @@
+package com.lhk.springbootinit.model.dto.file;
+
+import java.io.Serializable;
+import lombok.Data;
+
+/**
+ * 分块上传请求（完成、取消、查询已上传分块）
+ */
+@Data
+public class MultipartUploadRequest implements Serializable {
+
+    /**
+     * 文件路径（初始化时返回）
+     */
+    private String key;
+
+    /**
+     * 上传 id（初始化时返回）
+     */
+    private String uploadId;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,32 @@
+package com.lhk.springbootinit.model.dto.post;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 帖子计数增量（用于批量更新点赞数、收藏数）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostCounterDelta implements Serializable {
+
+    /**
+     * 帖子 id
+     */
+    private Long postId;
+
+    /**
+     * 点赞数增量
+     */
+    private Integer thumbDelta;
+
+    /**
+     * 收藏数增量
+     */
+    private Integer favourDelta;
+
+    private static final long serialVersionUID = 1L;
+}
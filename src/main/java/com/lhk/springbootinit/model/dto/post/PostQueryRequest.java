@@ -58,5 +58,15 @@ public class PostQueryRequest extends PageRequest implements Serializable {
      */
     private Long favourUserId;
 
+    /**
+     * 游标（不为 null 时使用游标分页，首页传空字符串，之后传上一页返回的 nextCursor）
+     */
+    private String cursor;
+
+    /**
+     * ES 游标分页首页是否打开时间点（之后的翻页在同一快照上进行，结果不受期间写入影响）
+     */
+    private boolean pointInTime;
+
     private static final long serialVersionUID = 1L;
 }
\ No newline at end of file
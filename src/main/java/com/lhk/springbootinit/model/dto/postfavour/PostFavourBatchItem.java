@@ -0,0 +1,23 @@
+package com.lhk.springbootinit.model.dto.postfavour;
+
+import java.io.Serializable;
+import lombok.Data;
+
+/**
+ * 批量收藏项
+ */
+@Data
+public class PostFavourBatchItem implements Serializable {
+
+    /**
+     * 帖子 id
+     */
+    private Long postId;
+
+    /**
+     * 期望状态：true-已收藏，false-未收藏
+     */
+    private Boolean favour;
+
+    private static final long serialVersionUID = 1L;
+}
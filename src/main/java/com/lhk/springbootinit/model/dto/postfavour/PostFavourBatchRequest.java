@@ -0,0 +1,19 @@
+package com.lhk.springbootinit.model.dto.postfavour;
+
+import java.io.Serializable;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * 批量收藏 / 取消收藏请求
+ */
+@Data
+public class PostFavourBatchRequest implements Serializable {
+
+    /**
+     * 收藏项列表（同一帖子以最后一项为准）
+     */
+    private List<PostFavourBatchItem> itemList;
+
+    private static final long serialVersionUID = 1L;
+}
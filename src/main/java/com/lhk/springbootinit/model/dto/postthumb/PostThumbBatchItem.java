@@ -0,0 +1,23 @@
+package com.lhk.springbootinit.model.dto.postthumb;
+
+import java.io.Serializable;
+import lombok.Data;
+
+/**
+ * 批量点赞项
+ */
+@Data
+public class PostThumbBatchItem implements Serializable {
+
+    /**
+     * 帖子 id
+     */
+    private Long postId;
+
+    /**
+     * 期望状态：true-已点赞，false-未点赞
+     */
+    private Boolean thumb;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,19 @@
+package com.lhk.springbootinit.model.dto.postthumb;
+
+import java.io.Serializable;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * 批量点赞 / 取消点赞请求
+ */
+@Data
+public class PostThumbBatchRequest implements Serializable {
+
+    /**
+     * 点赞项列表（同一帖子以最后一项为准）
+     */
+    private List<PostThumbBatchItem> itemList;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,56 @@
+package com.lhk.springbootinit.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 文件对象（按内容去重）
+ */
+@TableName(value = "file_object")
+@Data
+public class FileObject implements Serializable {
+
+    /**
+     * id
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 业务类型（去重范围）
+     */
+    private String biz;
+
+    /**
+     * 文件内容 SHA-256（十六进制）
+     */
+    private String sha256;
+
+    /**
+     * 对象存储路径
+     */
+    private String fileKey;
+
+    /**
+     * 文件大小
+     */
+    private Long fileSize;
+
+    /**
+     * 创建时间
+     */
+    private Date createTime;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+}
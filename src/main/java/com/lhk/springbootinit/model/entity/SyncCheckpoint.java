@@ -0,0 +1,41 @@
+package com.lhk.springbootinit.model.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import java.io.Serializable;
+import java.util.Date;
+import lombok.Data;
+
+/**
+ * 同步位点
+ */
+@TableName(value = "sync_checkpoint")
+@Data
+public class SyncCheckpoint implements Serializable {
+
+    /**
+     * 同步任务名
+     */
+    @TableId(value = "name", type = IdType.INPUT)
+    private String name;
+
+    /**
+     * 已处理到的更新时间
+     */
+    private Date watermarkTime;
+
+    /**
+     * 已处理到的 id（同一更新时间内）
+     */
+    private Long watermarkId;
+
+    /**
+     * 更新时间
+     */
+    private Date updateTime;
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+}
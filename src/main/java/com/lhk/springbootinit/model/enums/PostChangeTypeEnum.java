@@ -0,0 +1,61 @@
+package com.lhk.springbootinit.model.enums;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.ObjectUtils;
+
+/**
+ * 帖子变更类型枚举
+ */
+public enum PostChangeTypeEnum {
+
+    ADD("创建", "add"),
+    UPDATE("更新", "update"),
+    DELETE("删除", "delete"),
+    COUNTER("计数变更", "counter");
+
+    private final String text;
+
+    private final String value;
+
+    PostChangeTypeEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 获取值列表
+     *
+     * @return
+     */
+    public static List<String> getValues() {
+        return Arrays.stream(values()).map(item -> item.value).collect(Collectors.toList());
+    }
+
+    /**
+     * 根据 value 获取枚举
+     *
+     * @param value
+     * @return
+     */
+    public static PostChangeTypeEnum getEnumByValue(String value) {
+        if (ObjectUtils.isEmpty(value)) {
+            return null;
+        }
+        for (PostChangeTypeEnum anEnum : PostChangeTypeEnum.values()) {
+            if (anEnum.value.equals(value)) {
+                return anEnum;
+            }
+        }
+        return null;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
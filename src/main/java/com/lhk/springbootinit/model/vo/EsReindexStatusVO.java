@@ -0,0 +1,60 @@
+package com.lhk.springbootinit.model.vo;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * ES 索引重建状态
+ */
+@Data
+public class EsReindexStatusVO implements Serializable {
+
+    /**
+     * 状态：idle/running/success/failed
+     */
+    private String status;
+
+    /**
+     * 当前阶段：create/load/catchUp/restoreSettings/swap/catchUpAfterSwap/done
+     */
+    private String phase;
+
+    /**
+     * 新索引名
+     */
+    private String newIndex;
+
+    /**
+     * 切换前别名指向的索引（保留用于回滚，确认无误后可手动删除）
+     */
+    private List<String> oldIndexList;
+
+    /**
+     * 全量导入已写入的帖子数
+     */
+    private Long loadedCount;
+
+    /**
+     * 追平阶段同步的帖子数
+     */
+    private Long catchUpCount;
+
+    /**
+     * 开始时间
+     */
+    private Date startTime;
+
+    /**
+     * 结束时间
+     */
+    private Date endTime;
+
+    /**
+     * 失败原因
+     */
+    private String errorMessage;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,34 @@
+package com.lhk.springbootinit.model.vo;
+
+import java.io.Serializable;
+import java.util.List;
+import lombok.Data;
+
+/**
+ * 分块上传信息
+ */
+@Data
+public class MultipartUploadVO implements Serializable {
+
+    /**
+     * 文件路径
+     */
+    private String key;
+
+    /**
+     * 上传 id
+     */
+    private String uploadId;
+
+    /**
+     * 建议的分块大小（字节），除最后一块外每块不小于 1M
+     */
+    private Long partSize;
+
+    /**
+     * 已上传的分块序号（断点续传时跳过）
+     */
+    private List<Integer> uploadedPartNumberList;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,33 @@
+package com.lhk.springbootinit.model.vo;
+
+import java.io.Serializable;
+import lombok.Data;
+
+/**
+ * 帖子批量操作单项结果
+ */
+@Data
+public class PostBatchResultVO implements Serializable {
+
+    /**
+     * 帖子 id
+     */
+    private Long postId;
+
+    /**
+     * 是否成功
+     */
+    private Boolean success;
+
+    /**
+     * 本次计数变化（1 / -1 / 0）
+     */
+    private Integer change;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,23 @@
+package com.lhk.springbootinit.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.lhk.springbootinit.model.entity.FileObject;
+import com.lhk.springbootinit.model.enums.FileUploadBizEnum;
+import java.io.IOException;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 文件对象服务
+ */
+public interface FileObjectService extends IService<FileObject> {
+
+    /**
+     * 保存文件（同一业务内容相同的文件只存储一份）
+     *
+     * @param multipartFile
+     * @param fileUploadBizEnum 业务类型
+     * @return 存储路径（内容已存在时为已有路径）
+     * @throws IOException
+     */
+    String saveFile(MultipartFile multipartFile, FileUploadBizEnum fileUploadBizEnum) throws IOException;
+}
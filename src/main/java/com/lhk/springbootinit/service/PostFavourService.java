@@ -7,6 +7,10 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.lhk.springbootinit.model.entity.Post;
 import com.lhk.springbootinit.model.entity.PostFavour;
 import com.lhk.springbootinit.model.entity.User;
+import com.lhk.springbootinit.model.dto.postfavour.PostFavourBatchItem;
+import com.lhk.springbootinit.model.vo.PostBatchResultVO;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 帖子收藏服务
@@ -41,4 +45,23 @@ public interface PostFavourService extends IService<PostFavour> {
      * @return
      */
     int doPostFavourInner(long userId, long postId);
+
+    /**
+     * 批量收藏 / 取消收藏
+     *
+     * @param itemList
+     * @param loginUser
+     * @return 每项结果
+     */
+    List<PostBatchResultVO> doPostFavourBatch(List<PostFavourBatchItem> itemList, User loginUser);
+
+    /**
+     * 批量收藏（内部服务）
+     *
+     * @param userId
+     * @param addPostIdList
+     * @param cancelPostIdList
+     * @return 帖子 id => 计数变化
+     */
+    Map<Long, Integer> doPostFavourBatchInner(long userId, List<Long> addPostIdList, List<Long> cancelPostIdList);
 }
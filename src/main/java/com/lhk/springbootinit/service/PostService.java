@@ -3,6 +3,7 @@ package com.lhk.springbootinit.service;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.lhk.springbootinit.common.CursorPage;
 import com.lhk.springbootinit.model.dto.post.PostQueryRequest;
 import com.lhk.springbootinit.model.entity.Post;
 import com.lhk.springbootinit.model.vo.PostVO;
@@ -21,6 +22,38 @@ public interface PostService extends IService<Post> {
      */
     void validPost(Post post, boolean add);
 
+    /**
+     * 创建帖子（同时写入标签表）
+     *
+     * @param post
+     * @return 新帖子 id
+     */
+    long addPost(Post post);
+
+    /**
+     * 更新帖子（标签有变更时同步替换标签表）
+     *
+     * @param post
+     * @return
+     */
+    boolean updatePost(Post post);
+
+    /**
+     * 删除帖子（同时删除标签）
+     *
+     * @param id
+     * @return
+     */
+    boolean deletePost(long id);
+
+    /**
+     * 保存帖子标签（已存在则忽略）
+     *
+     * @param postId
+     * @param tags   标签列表（json 数组）
+     */
+    void savePostTags(long postId, String tags);
+
     /**
      * 获取查询条件
      *
@@ -30,7 +63,34 @@ public interface PostService extends IService<Post> {
     QueryWrapper<Post> getQueryWrapper(PostQueryRequest postQueryRequest);
 
     /**
-     * 从 ES 查询
+     * 游标分页查询（按排序字段 + id 定位，不统计总数）
+     *
+     * @param postQueryRequest
+     * @return
+     */
+    CursorPage<Post> pageByCursor(PostQueryRequest postQueryRequest);
+
+    /**
+     * 搜索（开启 ES 时从 ES 查询，否则使用本地倒排索引，索引未就绪时降级为数据库查询）
+     * <p>
+     * 指定游标时返回 {@link CursorPage}，未开启 ES 时游标分页走数据库
+     *
+     * @param postQueryRequest
+     * @return
+     */
+    Page<Post> searchPost(PostQueryRequest postQueryRequest);
+
+    /**
+     * 搜索封装（前几页结果走搜索结果缓存，命中时直接由帖子视图缓存填充）
+     *
+     * @param postQueryRequest
+     * @param request
+     * @return
+     */
+    Page<PostVO> searchPostVO(PostQueryRequest postQueryRequest, HttpServletRequest request);
+
+    /**
+     * 从 ES 查询（指定游标时使用 search_after 游标分页）
      *
      * @param postQueryRequest
      * @return
@@ -46,6 +106,15 @@ public interface PostService extends IService<Post> {
      */
     PostVO getPostVO(Post post, HttpServletRequest request);
 
+    /**
+     * 根据 id 获取帖子封装（优先读缓存）
+     *
+     * @param id
+     * @param request
+     * @return
+     */
+    PostVO getPostVOById(long id, HttpServletRequest request);
+
     /**
      * 分页获取帖子封装
      *
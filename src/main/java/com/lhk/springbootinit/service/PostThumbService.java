@@ -3,6 +3,10 @@ package com.lhk.springbootinit.service;
 import com.lhk.springbootinit.model.entity.PostThumb;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.lhk.springbootinit.model.entity.User;
+import com.lhk.springbootinit.model.dto.postthumb.PostThumbBatchItem;
+import com.lhk.springbootinit.model.vo.PostBatchResultVO;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 帖子点赞服务
@@ -26,4 +30,23 @@ public interface PostThumbService extends IService<PostThumb> {
      * @return
      */
     int doPostThumbInner(long userId, long postId);
+
+    /**
+     * 批量点赞 / 取消点赞
+     *
+     * @param itemList
+     * @param loginUser
+     * @return 每项结果
+     */
+    List<PostBatchResultVO> doPostThumbBatch(List<PostThumbBatchItem> itemList, User loginUser);
+
+    /**
+     * 批量点赞（内部服务）
+     *
+     * @param userId
+     * @param addPostIdList
+     * @param cancelPostIdList
+     * @return 帖子 id => 计数变化
+     */
+    Map<Long, Integer> doPostThumbBatchInner(long userId, List<Long> addPostIdList, List<Long> cancelPostIdList);
 }
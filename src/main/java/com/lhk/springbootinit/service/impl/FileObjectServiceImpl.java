@@ -0,0 +1,101 @@
+package com.lhk.springbootinit.service.impl;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.lhk.springbootinit.manager.FileStorage;
+import com.lhk.springbootinit.mapper.FileObjectMapper;
+import com.lhk.springbootinit.model.entity.FileObject;
+import com.lhk.springbootinit.model.enums.FileUploadBizEnum;
+import com.lhk.springbootinit.service.FileObjectService;
+import com.lhk.springbootinit.utils.FileTypeUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 文件对象服务实现
+ * <p>
+ * 同一业务内按内容去重：先流式计算上传内容的 SHA-256（上传内容已由容器暂存，可重复读取），
+ * 命中且对象仍存在时直接复用已有路径，否则上传后登记；并发上传相同内容时以先登记的为准，后上传的对象删除。
+ * 去重的对象存放在与上传用户、文件名无关的路径 /业务/sha256/{hash}-{随机串}.{后缀}，复用时不会暴露其他用户的信息；
+ * 随机串保证并发上传相同内容时各自的对象不同名（后登记的一方删除自己的对象）。
+ * 去重的对象可能被多处引用，且不记录引用方，因此不提供删除
+ */
+@Service
+@Slf4j
+public class FileObjectServiceImpl extends ServiceImpl<FileObjectMapper, FileObject>
+        implements FileObjectService {
+
+    @Resource
+    private FileStorage fileStorage;
+
+    @Override
+    public String saveFile(MultipartFile multipartFile, FileUploadBizEnum fileUploadBizEnum) throws IOException {
+        String biz = fileUploadBizEnum.getValue();
+        String sha256;
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            sha256 = DigestUtil.sha256Hex(inputStream);
+        }
+        String existFileKey = acquire(biz, sha256);
+        if (existFileKey != null) {
+            return existFileKey;
+        }
+        String suffix = FileUtil.getSuffix(multipartFile.getOriginalFilename());
+        String filepath = String.format("/%s/sha256/%s-%s%s", biz, sha256, RandomStringUtils.randomAlphanumeric(8),
+                StringUtils.isBlank(suffix) ? "" : "." + suffix.toLowerCase());
+        try (InputStream inputStream = multipartFile.getInputStream()) {
+            // 内容类型按后缀确定，不使用客户端声明的类型
+            fileStorage.putObject(filepath, inputStream, multipartFile.getSize(),
+                    FileTypeUtils.getImageContentType(filepath));
+        }
+        FileObject fileObject = new FileObject();
+        fileObject.setBiz(biz);
+        fileObject.setSha256(sha256);
+        fileObject.setFileKey(filepath);
+        fileObject.setFileSize(multipartFile.getSize());
+        try {
+            this.save(fileObject);
+            return filepath;
+        } catch (DuplicateKeyException e) {
+            // 并发上传了相同内容
+            existFileKey = acquire(biz, sha256);
+            if (existFileKey != null) {
+                fileStorage.deleteObject(filepath);
+                return existFileKey;
+            }
+            // 已有记录的文件刚好丢失，本次上传的文件不参与去重
+            log.warn("file object not reusable, skip dedupe, sha256 = {}, filepath = {}", sha256, filepath);
+            return filepath;
+        }
+    }
+
+    /**
+     * 复用已存储的相同内容
+     *
+     * @param biz
+     * @param sha256
+     * @return 已有存储路径，不可复用时返回 null
+     * @throws IOException
+     */
+    private String acquire(String biz, String sha256) throws IOException {
+        FileObject fileObject = this.getOne(new QueryWrapper<FileObject>().eq("biz", biz).eq("sha256", sha256));
+        if (fileObject == null) {
+            return null;
+        }
+        // 存储的文件已丢失则删除记录，重新上传
+        if (!fileStorage.doesObjectExist(fileObject.getFileKey())) {
+            log.warn("file object missing in storage, fileKey = {}", fileObject.getFileKey());
+            this.removeById(fileObject.getId());
+            return null;
+        }
+        return fileObject.getFileKey();
+    }
+}
@@ -1,20 +1,39 @@
 package com.lhk.springbootinit.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.Wrapper;
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.lhk.springbootinit.common.ErrorCode;
 import com.lhk.springbootinit.exception.BusinessException;
+import com.lhk.springbootinit.manager.PostCounterManager;
+import com.lhk.springbootinit.manager.UserPostMembershipManager;
 import com.lhk.springbootinit.mapper.PostFavourMapper;
+import com.lhk.springbootinit.model.dto.postfavour.PostFavourBatchItem;
 import com.lhk.springbootinit.model.entity.Post;
 import com.lhk.springbootinit.model.entity.PostFavour;
 import com.lhk.springbootinit.model.entity.User;
+import com.lhk.springbootinit.model.vo.PostBatchResultVO;
 import com.lhk.springbootinit.service.PostFavourService;
 import com.lhk.springbootinit.service.PostService;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.Resource;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionUtils;
 import org.springframework.aop.framework.AopContext;
+import org.springframework.dao.DeadlockLoserDataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,6 +47,15 @@ public class PostFavourServiceImpl extends ServiceImpl<PostFavourMapper, PostFav
     @Resource
     private PostService postService;
 
+    @Resource
+    private PostCounterManager postCounterManager;
+
+    @Resource
+    private UserPostMembershipManager userPostMembershipManager;
+
+    @Resource
+    private SqlSessionFactory sqlSessionFactory;
+
     /**
      * 帖子收藏
      *
@@ -44,12 +72,24 @@ public class PostFavourServiceImpl extends ServiceImpl<PostFavourMapper, PostFav
         }
         // 是否已帖子收藏
         long userId = loginUser.getId();
-        // 每个用户串行帖子收藏
-        // 锁必须要包裹住事务方法
+        // 依赖唯一索引保证幂等，无需加锁
         PostFavourService postFavourService = (PostFavourService) AopContext.currentProxy();
-        synchronized (String.valueOf(userId).intern()) {
-            return postFavourService.doPostFavourInner(userId, postId);
-        }
+        // 关系写入到累加增量之间不能被计数校正打断，否则会重复计入
+        return postCounterManager.executeChange(() -> {
+            int result;
+            try {
+                result = postFavourService.doPostFavourInner(userId, postId);
+            } catch (DeadlockLoserDataAccessException e) {
+                // 并发切换同一关系时可能死锁，事务已回滚，重试一次
+                result = postFavourService.doPostFavourInner(userId, postId);
+            }
+            // 事务已提交，更新关系索引并累加计数增量（刷入数据库后失效帖子缓存）
+            if (result != 0) {
+                userPostMembershipManager.onFavourChanged(userId, postId, result > 0);
+                postCounterManager.addFavourDelta(postId, result);
+            }
+            return result;
+        });
     }
 
     @Override
@@ -70,40 +110,131 @@ public class PostFavourServiceImpl extends ServiceImpl<PostFavourMapper, PostFav
     @Override
     @Transactional(rollbackFor = Exception.class)
     public int doPostFavourInner(long userId, long postId) {
-        PostFavour postFavour = new PostFavour();
-        postFavour.setUserId(userId);
-        postFavour.setPostId(postId);
-        QueryWrapper<PostFavour> postFavourQueryWrapper = new QueryWrapper<>(postFavour);
-        PostFavour oldPostFavour = this.getOne(postFavourQueryWrapper);
-        boolean result;
-        // 已收藏
-        if (oldPostFavour != null) {
-            result = this.remove(postFavourQueryWrapper);
-            if (result) {
-                // 帖子收藏数 - 1
-                result = postService.update()
-                        .eq("id", postId)
-                        .gt("favourNum", 0)
-                        .setSql("favourNum = favourNum - 1")
-                        .update();
-                return result ? -1 : 0;
-            } else {
-                throw new BusinessException(ErrorCode.SYSTEM_ERROR);
+        // 未收藏则插入，帖子收藏数 + 1（合并写入）；先插入避免两个删除空行的事务持有间隙锁后插入互相死锁
+        if (baseMapper.insertIgnore(userId, postId) > 0) {
+            return 1;
+        }
+        // 已收藏则删除，帖子收藏数 - 1（合并写入）
+        if (baseMapper.deleteByUserIdAndPostId(userId, postId) > 0) {
+            return -1;
+        }
+        // 并发请求已删除，本次无变化
+        return 0;
+    }
+
+    /**
+     * 批量收藏（按期望状态设置，而非切换）
+     *
+     * @param itemList
+     * @param loginUser
+     * @return
+     */
+    @Override
+    public List<PostBatchResultVO> doPostFavourBatch(List<PostFavourBatchItem> itemList, User loginUser) {
+        // 同一帖子以最后一项为准，结果按首次出现的顺序返回
+        Map<Long, Boolean> postIdStateMap = new LinkedHashMap<>();
+        for (PostFavourBatchItem item : itemList) {
+            if (item == null || item.getPostId() == null || item.getPostId() <= 0 || item.getFavour() == null) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR);
+            }
+            postIdStateMap.put(item.getPostId(), item.getFavour());
+        }
+        // 一次查询校验帖子是否存在
+        Set<Long> existPostIdSet = postService.listByIds(postIdStateMap.keySet()).stream()
+                .map(Post::getId)
+                .collect(Collectors.toSet());
+        List<Long> addPostIdList = new ArrayList<>();
+        List<Long> cancelPostIdList = new ArrayList<>();
+        postIdStateMap.forEach((postId, state) -> {
+            if (existPostIdSet.contains(postId)) {
+                (state ? addPostIdList : cancelPostIdList).add(postId);
             }
-        } else {
-            // 未帖子收藏
-            result = this.save(postFavour);
-            if (result) {
-                // 帖子收藏数 + 1
-                result = postService.update()
-                        .eq("id", postId)
-                        .setSql("favourNum = favourNum + 1")
-                        .update();
-                return result ? 1 : 0;
+        });
+        long userId = loginUser.getId();
+        Map<Long, Integer> postIdChangeMap = Collections.emptyMap();
+        if (!addPostIdList.isEmpty() || !cancelPostIdList.isEmpty()) {
+            PostFavourService postFavourService = (PostFavourService) AopContext.currentProxy();
+            // 关系写入到累加增量之间不能被计数校正打断，否则会重复计入
+            postIdChangeMap = postCounterManager.executeChange(() -> {
+                Map<Long, Integer> changeMap = postFavourService.doPostFavourBatchInner(userId, addPostIdList,
+                        cancelPostIdList);
+                // 事务已提交，更新关系索引并累加计数增量（合并为一条语句刷入数据库）
+                changeMap.forEach((postId, change) -> {
+                    if (change != 0) {
+                        userPostMembershipManager.onFavourChanged(userId, postId, change > 0);
+                        postCounterManager.addFavourDelta(postId, change);
+                    }
+                });
+                return changeMap;
+            });
+        }
+        List<PostBatchResultVO> resultList = new ArrayList<>(postIdStateMap.size());
+        for (Long postId : postIdStateMap.keySet()) {
+            PostBatchResultVO postBatchResultVO = new PostBatchResultVO();
+            postBatchResultVO.setPostId(postId);
+            if (!existPostIdSet.contains(postId)) {
+                postBatchResultVO.setSuccess(false);
+                postBatchResultVO.setChange(0);
+                postBatchResultVO.setMessage(ErrorCode.NOT_FOUND_ERROR.getMessage());
             } else {
-                throw new BusinessException(ErrorCode.SYSTEM_ERROR);
+                int change = postIdChangeMap.getOrDefault(postId, 0);
+                postBatchResultVO.setSuccess(true);
+                postBatchResultVO.setChange(change);
+            }
+            resultList.add(postBatchResultVO);
+        }
+        return resultList;
+    }
+
+    /**
+     * 批量收藏（内部事务方法，JDBC 批处理）
+     *
+     * @param userId
+     * @param addPostIdList
+     * @param cancelPostIdList
+     * @return 帖子 id => 计数变化
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Map<Long, Integer> doPostFavourBatchInner(long userId, List<Long> addPostIdList, List<Long> cancelPostIdList) {
+        List<Long> postIdList = new ArrayList<>(cancelPostIdList.size() + addPostIdList.size());
+        postIdList.addAll(cancelPostIdList);
+        postIdList.addAll(addPostIdList);
+        // 批量执行器：同一语句的多次执行合并为一次 JDBC 批处理，并返回每次执行的影响行数
+        SqlSession sqlSession = SqlSessionUtils.getSqlSession(sqlSessionFactory, ExecutorType.BATCH, null);
+        Set<Long> favouredPostIdSet;
+        List<BatchResult> batchResultList;
+        try {
+            PostFavourMapper batchMapper = sqlSession.getMapper(PostFavourMapper.class);
+            // 先锁定已收藏的关系行，驱动只返回 SUCCESS_NO_INFO（如开启 rewriteBatchedStatements）时以此判断是否变化
+            favouredPostIdSet = new HashSet<>(batchMapper.listPostIdByUserIdForUpdate(userId, postIdList));
+            for (Long postId : cancelPostIdList) {
+                batchMapper.deleteByUserIdAndPostId(userId, postId);
+            }
+            for (Long postId : addPostIdList) {
+                batchMapper.insertIgnore(userId, postId);
+            }
+            batchResultList = sqlSession.flushStatements();
+        } finally {
+            SqlSessionUtils.closeSqlSession(sqlSession, sqlSessionFactory);
+        }
+        // 按执行顺序展开影响行数，先删除后插入
+        Map<Long, Integer> postIdChangeMap = new HashMap<>();
+        int index = 0;
+        for (BatchResult batchResult : batchResultList) {
+            for (int updateCount : batchResult.getUpdateCounts()) {
+                Long postId = postIdList.get(index);
+                boolean cancel = index < cancelPostIdList.size();
+                boolean changed = updateCount == Statement.SUCCESS_NO_INFO
+                        ? cancel == favouredPostIdSet.contains(postId)
+                        : updateCount > 0;
+                if (changed) {
+                    postIdChangeMap.put(postId, cancel ? -1 : 1);
+                }
+                index++;
             }
         }
+        return postIdChangeMap;
     }
 
 }
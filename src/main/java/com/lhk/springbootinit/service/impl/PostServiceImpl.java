@@ -3,48 +3,79 @@ package com.lhk.springbootinit.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.lhk.springbootinit.common.CursorPage;
 import com.lhk.springbootinit.common.ErrorCode;
+import com.lhk.springbootinit.config.PostOutboxConfig;
+import com.lhk.springbootinit.config.PostSearchConfig;
 import com.lhk.springbootinit.constant.CommonConstant;
 import com.lhk.springbootinit.exception.BusinessException;
 import com.lhk.springbootinit.exception.ThrowUtils;
-import com.lhk.springbootinit.mapper.PostFavourMapper;
+import com.lhk.springbootinit.manager.PostCounterCacheManager;
+import com.lhk.springbootinit.manager.PostEsBulkIndexer;
+import com.lhk.springbootinit.manager.PostEsCleanupManager;
+import com.lhk.springbootinit.manager.PostEsPitManager;
+import com.lhk.springbootinit.manager.PostSearchCacheManager;
+import com.lhk.springbootinit.manager.PostSearchIndexManager;
+import com.lhk.springbootinit.manager.PostVOCacheManager;
+import com.lhk.springbootinit.manager.UserPostMembershipManager;
 import com.lhk.springbootinit.mapper.PostMapper;
-import com.lhk.springbootinit.mapper.PostThumbMapper;
+import com.lhk.springbootinit.mapper.PostOutboxMapper;
+import com.lhk.springbootinit.mapper.PostTagMapper;
 import com.lhk.springbootinit.model.dto.post.PostEsDTO;
 import com.lhk.springbootinit.model.dto.post.PostQueryRequest;
 import com.lhk.springbootinit.model.entity.Post;
-import com.lhk.springbootinit.model.entity.PostFavour;
-import com.lhk.springbootinit.model.entity.PostThumb;
 import com.lhk.springbootinit.model.entity.User;
+import com.lhk.springbootinit.model.enums.PostChangeTypeEnum;
 import com.lhk.springbootinit.model.vo.PostVO;
 import com.lhk.springbootinit.model.vo.UserVO;
 import com.lhk.springbootinit.service.PostService;
 import com.lhk.springbootinit.service.UserService;
+import com.lhk.springbootinit.utils.CursorUtils;
 import com.lhk.springbootinit.utils.SqlUtils;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.json.JSONUtil;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.elasticsearch.core.ElasticsearchRestTemplate;
 import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.document.Document;
 import org.springframework.data.elasticsearch.core.SearchHits;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQuery;
 import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * 帖子服务实现
@@ -53,17 +84,64 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements PostService {
 
+    /**
+     * 游标分页支持的排序字段（均有对应的联合索引）
+     */
+    private static final Set<String> CURSOR_SORT_FIELD_SET = new HashSet<>(
+            Arrays.asList("createTime", "updateTime", "id"));
+
+    /**
+     * ES 按相关度排序
+     */
+    private static final String ES_SCORE_SORT_FIELD = "_score";
+
+    /**
+     * ES 游标分页支持的排序字段
+     */
+    private static final Set<String> ES_CURSOR_SORT_FIELD_SET = new HashSet<>(
+            Arrays.asList(ES_SCORE_SORT_FIELD, "createTime", "updateTime", "thumbNum", "favourNum", "id"));
+
     @Resource
     private UserService userService;
 
     @Resource
-    private PostThumbMapper postThumbMapper;
+    private ElasticsearchRestTemplate elasticsearchRestTemplate;
+
+    @Resource
+    private PostVOCacheManager postVOCacheManager;
 
     @Resource
-    private PostFavourMapper postFavourMapper;
+    private UserPostMembershipManager userPostMembershipManager;
 
     @Resource
-    private ElasticsearchRestTemplate elasticsearchRestTemplate;
+    private PostTagMapper postTagMapper;
+
+    @Resource
+    private PostSearchConfig postSearchConfig;
+
+    @Resource
+    private PostOutboxConfig postOutboxConfig;
+
+    @Resource
+    private PostOutboxMapper postOutboxMapper;
+
+    @Resource
+    private PostSearchIndexManager postSearchIndexManager;
+
+    @Resource
+    private ObjectProvider<PostEsCleanupManager> postEsCleanupManagerProvider;
+
+    @Resource
+    private ObjectProvider<PostEsBulkIndexer> postEsBulkIndexerProvider;
+
+    @Resource
+    private ObjectProvider<PostEsPitManager> postEsPitManagerProvider;
+
+    @Resource
+    private PostCounterCacheManager postCounterCacheManager;
+
+    @Resource
+    private PostSearchCacheManager postSearchCacheManager;
 
     @Override
     public void validPost(Post post, boolean add) {
@@ -86,6 +164,90 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
         }
     }
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public long addPost(Post post) {
+        boolean result = this.save(post);
+        ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        savePostTags(post.getId(), post.getTags());
+        recordChange(post.getId(), PostChangeTypeEnum.ADD);
+        return post.getId();
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean updatePost(Post post) {
+        boolean result = this.updateById(post);
+        // 标签有变更时整体替换
+        if (result && post.getTags() != null) {
+            postTagMapper.deleteByPostId(post.getId());
+            savePostTags(post.getId(), post.getTags());
+        }
+        if (result) {
+            recordChange(post.getId(), PostChangeTypeEnum.UPDATE);
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean deletePost(long id) {
+        boolean result = this.removeById(id);
+        if (result) {
+            postTagMapper.deleteByPostId(id);
+            recordChange(id, PostChangeTypeEnum.DELETE);
+        }
+        return result;
+    }
+
+    /**
+     * 写入变更事件（与业务数据同一事务）
+     *
+     * @param postId
+     * @param postChangeTypeEnum
+     */
+    private void recordChange(long postId, PostChangeTypeEnum postChangeTypeEnum) {
+        if (postOutboxConfig.isEnabled()) {
+            postOutboxMapper.insertBatch(Collections.singletonList(postId), postChangeTypeEnum.getValue());
+            return;
+        }
+        // 未开启变更事件时，事务提交后直接失效搜索结果缓存，并交给 ES 批量写入缓冲（增量同步任务兜底）
+        PostEsBulkIndexer postEsBulkIndexer = postEsBulkIndexerProvider.getIfAvailable();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            postSearchCacheManager.invalidateAll();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                postSearchCacheManager.invalidateAll();
+                if (postEsBulkIndexer == null) {
+                    return;
+                }
+                Post post = baseMapper.selectById(postId);
+                if (post == null) {
+                    postEsBulkIndexer.delete(postId);
+                } else {
+                    postEsBulkIndexer.index(PostEsDTO.objToDto(post));
+                }
+            }
+        });
+    }
+
+    @Override
+    public void savePostTags(long postId, String tags) {
+        if (StringUtils.isBlank(tags)) {
+            return;
+        }
+        Set<String> tagSet = JSONUtil.toList(tags, String.class).stream()
+                .filter(StringUtils::isNotBlank)
+                .map(String::trim)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (!tagSet.isEmpty()) {
+            postTagMapper.insertIgnoreBatch(postId, tagSet);
+        }
+    }
+
     /**
      * 获取查询包装类
      *
@@ -105,6 +267,7 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
         String title = postQueryRequest.getTitle();
         String content = postQueryRequest.getContent();
         List<String> tagList = postQueryRequest.getTags();
+        List<String> orTagList = postQueryRequest.getOrTags();
         Long userId = postQueryRequest.getUserId();
         Long notId = postQueryRequest.getNotId();
         // 拼接查询条件
@@ -113,11 +276,19 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
         }
         queryWrapper.like(StringUtils.isNotBlank(title), "title", title);
         queryWrapper.like(StringUtils.isNotBlank(content), "content", content);
+        // 标签筛选走 post_tag 的 (tag, postId) 索引：必须包含所有标签时每个标签一个子查询，包含任一标签时合并为一个
         if (CollUtil.isNotEmpty(tagList)) {
             for (String tag : tagList) {
-                queryWrapper.like("tags", "\"" + tag + "\"");
+                queryWrapper.apply("id in (select postId from post_tag where tag = {0})", tag);
             }
         }
+        if (CollUtil.isNotEmpty(orTagList)) {
+            String placeholders = IntStream.range(0, orTagList.size())
+                    .mapToObj(i -> "{" + i + "}")
+                    .collect(Collectors.joining(","));
+            queryWrapper.apply("id in (select postId from post_tag where tag in (" + placeholders + "))",
+                    orTagList.toArray());
+        }
         queryWrapper.ne(ObjectUtils.isNotEmpty(notId), "id", notId);
         queryWrapper.eq(ObjectUtils.isNotEmpty(id), "id", id);
         queryWrapper.eq(ObjectUtils.isNotEmpty(userId), "userId", userId);
@@ -126,8 +297,270 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
         return queryWrapper;
     }
 
+    @Override
+    public CursorPage<Post> pageByCursor(PostQueryRequest postQueryRequest) {
+        String sortField = StringUtils.defaultIfBlank(postQueryRequest.getSortField(), "createTime");
+        ThrowUtils.throwIf(!CURSOR_SORT_FIELD_SET.contains(sortField), ErrorCode.PARAMS_ERROR, "游标分页不支持该排序字段");
+        boolean isAsc = CommonConstant.SORT_ORDER_ASC.equals(postQueryRequest.getSortOrder());
+        long size = postQueryRequest.getPageSize();
+        // 过滤条件复用普通查询，排序由游标分页自行拼接
+        PostQueryRequest filterRequest = new PostQueryRequest();
+        BeanUtils.copyProperties(postQueryRequest, filterRequest);
+        filterRequest.setSortField(null);
+        QueryWrapper<Post> queryWrapper = getQueryWrapper(filterRequest);
+        String cursor = postQueryRequest.getCursor();
+        if (StringUtils.isNotEmpty(cursor)) {
+            CursorUtils.Cursor lastCursor = CursorUtils.decode(cursor, sortField);
+            long lastId = lastCursor.getId();
+            if ("id".equals(sortField)) {
+                queryWrapper.lt(!isAsc, "id", lastId).gt(isAsc, "id", lastId);
+            } else {
+                // (sortField, id) < (?, ?) 展开写法，可走 (sortField, id) 联合索引的范围扫描
+                Date lastValue = new Date(lastCursor.getSortValue());
+                queryWrapper.and(qw -> qw.lt(!isAsc, sortField, lastValue).gt(isAsc, sortField, lastValue)
+                        .or(oqw -> oqw.eq(sortField, lastValue).lt(!isAsc, "id", lastId).gt(isAsc, "id", lastId)));
+            }
+        }
+        queryWrapper.orderBy(!"id".equals(sortField), isAsc, sortField);
+        queryWrapper.orderBy(true, isAsc, "id");
+        // 多取一条判断是否还有下一页
+        queryWrapper.last("limit " + (size + 1));
+        List<Post> postList = this.list(queryWrapper);
+        CursorPage<Post> cursorPage = new CursorPage<>(size);
+        if (postList.size() > size) {
+            postList = postList.subList(0, (int) size);
+            Post lastPost = postList.get(postList.size() - 1);
+            cursorPage.setNextCursor(CursorUtils.encode(sortField, getCursorSortValue(lastPost, sortField),
+                    lastPost.getId()));
+        }
+        cursorPage.setRecords(postList);
+        return cursorPage;
+    }
+
+    /**
+     * 取游标排序字段值
+     *
+     * @param post
+     * @param sortField
+     * @return
+     */
+    private long getCursorSortValue(Post post, String sortField) {
+        switch (sortField) {
+            case "createTime":
+                return post.getCreateTime().getTime();
+            case "updateTime":
+                return post.getUpdateTime().getTime();
+            default:
+                return post.getId();
+        }
+    }
+
+    @Override
+    public Page<PostVO> searchPostVO(PostQueryRequest postQueryRequest, HttpServletRequest request) {
+        String cacheKey = postSearchCacheManager.getCacheKey(postQueryRequest);
+        if (cacheKey == null) {
+            return getPostVOPage(searchPost(postQueryRequest), request);
+        }
+        Page<Long> postIdPage = postSearchCacheManager.get(cacheKey);
+        if (postIdPage != null) {
+            // 命中时直接使用帖子视图缓存（含作者信息），保持缓存的排序
+            Page<PostVO> postVOPage = new Page<>(postIdPage.getCurrent(), postIdPage.getSize(),
+                    postIdPage.getTotal());
+            postVOPage.setRecords(listPostVOFromCacheInOrder(postIdPage.getRecords(), request));
+            return postVOPage;
+        }
+        Page<Post> postPage = searchPost(postQueryRequest);
+        postSearchCacheManager.put(cacheKey, postPage);
+        return getPostVOPage(postPage, request);
+    }
+
+    /**
+     * 按 id 从帖子视图缓存读取（未命中的批量回源），并保持传入的顺序（已删除的跳过）
+     *
+     * @param postIdList
+     * @param request
+     * @return
+     */
+    private List<PostVO> listPostVOFromCacheInOrder(List<Long> postIdList, HttpServletRequest request) {
+        if (CollUtil.isEmpty(postIdList)) {
+            return new ArrayList<>();
+        }
+        Map<Long, PostVO> idPostVOMap = postVOCacheManager.getPostVOs(postIdList);
+        List<PostVO> postVOList = postIdList.stream()
+                .map(idPostVOMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        // 已登录，获取点赞、收藏状态（内存索引）
+        Set<Long> thumbPostIdSet = Collections.emptySet();
+        Set<Long> favourPostIdSet = Collections.emptySet();
+        User loginUser = userService.getLoginUserPermitNull(request);
+        if (loginUser != null) {
+            thumbPostIdSet = userPostMembershipManager.filterThumbed(loginUser.getId(), idPostVOMap.keySet());
+            favourPostIdSet = userPostMembershipManager.filterFavoured(loginUser.getId(), idPostVOMap.keySet());
+        }
+        for (PostVO postVO : postVOList) {
+            postVO.setHasThumb(thumbPostIdSet.contains(postVO.getId()));
+            postVO.setHasFavour(favourPostIdSet.contains(postVO.getId()));
+        }
+        return postVOList;
+    }
+
+    @Override
+    public Page<Post> searchPost(PostQueryRequest postQueryRequest) {
+        if (postSearchConfig.isEsEnabled()) {
+            return searchFromEs(postQueryRequest);
+        }
+        // 本地索引只处理关键词搜索，游标分页和无关键词的列表查询走数据库
+        if (postSearchIndexManager.canSearch(postQueryRequest)) {
+            Page<Long> postIdPage = postSearchIndexManager.search(postQueryRequest);
+            Page<Post> page = new Page<>(postIdPage.getCurrent(), postIdPage.getSize(), postIdPage.getTotal());
+            List<Long> postIdList = postIdPage.getRecords();
+            if (CollUtil.isEmpty(postIdList)) {
+                return page;
+            }
+            // 从 db 获取最新数据，并保持索引的排序
+            Map<Long, Post> idPostMap = baseMapper.selectBatchIds(postIdList).stream()
+                    .collect(Collectors.toMap(Post::getId, post -> post));
+            List<Post> postList = new ArrayList<>(postIdList.size());
+            for (Long postId : postIdList) {
+                Post post = idPostMap.get(postId);
+                if (post != null) {
+                    postList.add(post);
+                } else {
+                    // 已删除但增量同步尚未感知
+                    postSearchIndexManager.remove(postId);
+                }
+            }
+            page.setRecords(postList);
+            return page;
+        }
+        // 索引未就绪或未命中上述条件时使用数据库查询
+        if (postQueryRequest.getCursor() != null) {
+            return pageByCursor(postQueryRequest);
+        }
+        long current = postQueryRequest.getCurrent();
+        long size = postQueryRequest.getPageSize();
+        return this.page(new Page<>(current, size, postQueryRequest.isSearchCount()),
+                getQueryWrapper(postQueryRequest));
+    }
+
     @Override
     public Page<Post> searchFromEs(PostQueryRequest postQueryRequest) {
+        if (postQueryRequest.getCursor() != null) {
+            return searchFromEsByCursor(postQueryRequest);
+        }
+        // es 起始页为 0
+        long current = postQueryRequest.getCurrent() - 1;
+        long pageSize = postQueryRequest.getPageSize();
+        String sortField = postQueryRequest.getSortField();
+        String sortOrder = postQueryRequest.getSortOrder();
+        BoolQueryBuilder boolQueryBuilder = getEsQuery(postQueryRequest);
+        // 排序
+        SortBuilder<?> sortBuilder = SortBuilders.scoreSort();
+        if (StringUtils.isNotBlank(sortField)) {
+            sortBuilder = SortBuilders.fieldSort(sortField);
+            sortBuilder.order(CommonConstant.SORT_ORDER_ASC.equals(sortOrder) ? SortOrder.ASC : SortOrder.DESC);
+        }
+        // 分页
+        PageRequest pageRequest = PageRequest.of((int) current, (int) pageSize);
+        // 构造查询
+        NativeSearchQuery searchQuery = new NativeSearchQueryBuilder().withQuery(boolQueryBuilder)
+                .withPageable(pageRequest).withSorts(sortBuilder).build();
+        SearchHits<PostEsDTO> searchHits = elasticsearchRestTemplate.search(searchQuery, PostEsDTO.class);
+        Page<Post> page = new Page<>();
+        page.setTotal(searchHits.getTotalHits());
+        List<Post> resourceList = new ArrayList<>();
+        // 查出结果后，叠加最新的动态数据（比如点赞数）
+        if (searchHits.hasSearchHits()) {
+            List<PostEsDTO> postEsDTOList = searchHits.getSearchHits().stream()
+                    .map(SearchHit::getContent)
+                    .collect(Collectors.toList());
+            resourceList = toPostList(postEsDTOList);
+        }
+        page.setRecords(resourceList);
+        return page;
+    }
+
+    /**
+     * 从 ES 游标分页查询（search_after），深度翻页耗时不随页数增长
+     * <p>
+     * 按 (sortField, id) 排序，游标编码最后一条的排序值；首页指定 pointInTime 时打开时间点，
+     * 之后的翻页都在同一快照上进行，不受翻页期间写入的影响，翻到最后一页时关闭
+     *
+     * @param postQueryRequest
+     * @return
+     */
+    private CursorPage<Post> searchFromEsByCursor(PostQueryRequest postQueryRequest) {
+        String sortField = StringUtils.defaultIfBlank(postQueryRequest.getSortField(), ES_SCORE_SORT_FIELD);
+        ThrowUtils.throwIf(!ES_CURSOR_SORT_FIELD_SET.contains(sortField), ErrorCode.PARAMS_ERROR,
+                "游标分页不支持该排序字段");
+        SortOrder sortOrder = CommonConstant.SORT_ORDER_ASC.equals(postQueryRequest.getSortOrder())
+                ? SortOrder.ASC : SortOrder.DESC;
+        long size = postQueryRequest.getPageSize();
+        // 多取一条判断是否还有下一页
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
+                .query(getEsQuery(postQueryRequest))
+                .size((int) size + 1)
+                .trackTotalHits(false)
+                .sort(ES_SCORE_SORT_FIELD.equals(sortField) ? SortBuilders.scoreSort().order(sortOrder)
+                        : SortBuilders.fieldSort(sortField).order(sortOrder))
+                .sort(SortBuilders.fieldSort("id").order(sortOrder));
+        PostEsPitManager postEsPitManager = postEsPitManagerProvider.getObject();
+        TimeValue keepAlive = postEsPitManager.getKeepAlive();
+        String pitId = null;
+        String cursor = postQueryRequest.getCursor();
+        if (StringUtils.isNotEmpty(cursor)) {
+            CursorUtils.SearchAfterCursor lastCursor = CursorUtils.decodeSearchAfter(cursor, sortField);
+            searchSourceBuilder.searchAfter(lastCursor.getSortValues());
+            pitId = lastCursor.getPitId();
+        } else if (postQueryRequest.isPointInTime()) {
+            // 打开的时间点达到上限时返回 null，本次翻页不固定快照
+            pitId = postEsPitManager.open(postSearchConfig.getEsIndexAlias());
+        }
+        SearchRequest searchRequest;
+        if (pitId != null) {
+            // 每次查询续期，超过保留时间未翻页则时间点失效
+            searchSourceBuilder.pointInTimeBuilder(new PointInTimeBuilder(pitId).setKeepAlive(keepAlive));
+            searchRequest = new SearchRequest().source(searchSourceBuilder);
+        } else {
+            searchRequest = new SearchRequest(postSearchConfig.getEsIndexAlias()).source(searchSourceBuilder);
+        }
+        SearchResponse searchResponse = elasticsearchRestTemplate.execute(client -> client.search(searchRequest,
+                RequestOptions.DEFAULT));
+        int hitCount = searchResponse.getHits().getHits().length;
+        int pageHitCount = (int) Math.min(hitCount, size);
+        List<PostEsDTO> postEsDTOList = new ArrayList<>(pageHitCount);
+        for (int i = 0; i < pageHitCount; i++) {
+            org.elasticsearch.search.SearchHit hit = searchResponse.getHits().getAt(i);
+            PostEsDTO postEsDTO = elasticsearchRestTemplate.getElasticsearchConverter()
+                    .read(PostEsDTO.class, Document.from(hit.getSourceAsMap()));
+            postEsDTO.setId(Long.valueOf(hit.getId()));
+            postEsDTOList.add(postEsDTO);
+        }
+        CursorPage<Post> cursorPage = new CursorPage<>(size);
+        // 时间点 id 可能随查询变化，以最新返回的为准
+        String nextPitId = pitId == null ? null : searchResponse.pointInTimeId();
+        if (hitCount > size) {
+            Object[] sortValues = searchResponse.getHits().getAt(pageHitCount - 1).getSortValues();
+            cursorPage.setNextCursor(CursorUtils.encodeSearchAfter(sortField, sortValues, nextPitId));
+            if (pitId != null) {
+                postEsPitManager.renew(pitId, nextPitId);
+            }
+        } else if (pitId != null) {
+            // 已是最后一页，关闭时间点
+            postEsPitManager.close(nextPitId);
+        }
+        cursorPage.setRecords(toPostList(postEsDTOList));
+        return cursorPage;
+    }
+
+    /**
+     * 构造 ES 查询条件
+     *
+     * @param postQueryRequest
+     * @return
+     */
+    private BoolQueryBuilder getEsQuery(PostQueryRequest postQueryRequest) {
         Long id = postQueryRequest.getId();
         Long notId = postQueryRequest.getNotId();
         String searchText = postQueryRequest.getSearchText();
@@ -136,11 +569,6 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
         List<String> tagList = postQueryRequest.getTags();
         List<String> orTagList = postQueryRequest.getOrTags();
         Long userId = postQueryRequest.getUserId();
-        // es 起始页为 0
-        long current = postQueryRequest.getCurrent() - 1;
-        long pageSize = postQueryRequest.getPageSize();
-        String sortField = postQueryRequest.getSortField();
-        String sortOrder = postQueryRequest.getSortOrder();
         BoolQueryBuilder boolQueryBuilder = QueryBuilders.boolQuery();
         // 过滤
         boolQueryBuilder.filter(QueryBuilders.termQuery("isDelete", 0));
@@ -185,48 +613,72 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
             boolQueryBuilder.should(QueryBuilders.matchQuery("content", content));
             boolQueryBuilder.minimumShouldMatch(1);
         }
-        // 排序
-        SortBuilder<?> sortBuilder = SortBuilders.scoreSort();
-        if (StringUtils.isNotBlank(sortField)) {
-            sortBuilder = SortBuilders.fieldSort(sortField);
-            sortBuilder.order(CommonConstant.SORT_ORDER_ASC.equals(sortOrder) ? SortOrder.ASC : SortOrder.DESC);
+        return boolQueryBuilder;
+    }
+
+    /**
+     * ES 文档转为帖子（保持顺序），点赞数、收藏数从计数缓存叠加，避免每次搜索回表；
+     * 文档不完整（如旧版本同步写入）时从 db 读取
+     *
+     * @param postEsDTOList
+     * @return
+     */
+    private List<Post> toPostList(List<PostEsDTO> postEsDTOList) {
+        List<Post> postList = new ArrayList<>(postEsDTOList.size());
+        if (postEsDTOList.isEmpty()) {
+            return postList;
         }
-        // 分页
-        PageRequest pageRequest = PageRequest.of((int) current, (int) pageSize);
-        // 构造查询
-        NativeSearchQuery searchQuery = new NativeSearchQueryBuilder().withQuery(boolQueryBuilder)
-                .withPageable(pageRequest).withSorts(sortBuilder).build();
-        SearchHits<PostEsDTO> searchHits = elasticsearchRestTemplate.search(searchQuery, PostEsDTO.class);
-        Page<Post> page = new Page<>();
-        page.setTotal(searchHits.getTotalHits());
-        List<Post> resourceList = new ArrayList<>();
-        // 查出结果后，从 db 获取最新动态数据（比如点赞数）
-        if (searchHits.hasSearchHits()) {
-            List<SearchHit<PostEsDTO>> searchHitList = searchHits.getSearchHits();
-            List<Long> postIdList = searchHitList.stream().map(searchHit -> searchHit.getContent().getId())
-                    .collect(Collectors.toList());
-            List<Post> postList = baseMapper.selectBatchIds(postIdList);
-            if (postList != null) {
-                Map<Long, List<Post>> idPostMap = postList.stream().collect(Collectors.groupingBy(Post::getId));
-                postIdList.forEach(postId -> {
-                    if (idPostMap.containsKey(postId)) {
-                        resourceList.add(idPostMap.get(postId).get(0));
-                    } else {
-                        // 从 es 清空 db 已物理删除的数据
-                        String delete = elasticsearchRestTemplate.delete(String.valueOf(postId), PostEsDTO.class);
-                        log.info("delete post {}", delete);
-                    }
-                });
+        List<Long> postIdList = postEsDTOList.stream().map(PostEsDTO::getId).collect(Collectors.toList());
+        // 查不到计数说明 db 已物理删除
+        Map<Long, int[]> counterMap = postCounterCacheManager.getCounters(postIdList);
+        List<Long> stalePostIdList = postEsDTOList.stream()
+                .filter(postEsDTO -> counterMap.containsKey(postEsDTO.getId()) && isIncomplete(postEsDTO))
+                .map(PostEsDTO::getId)
+                .collect(Collectors.toList());
+        Map<Long, Post> stalePostMap = stalePostIdList.isEmpty() ? Collections.emptyMap()
+                : baseMapper.selectBatchIds(stalePostIdList).stream()
+                        .collect(Collectors.toMap(Post::getId, post -> post));
+        List<Long> deletedPostIdList = new ArrayList<>();
+        for (PostEsDTO postEsDTO : postEsDTOList) {
+            Long postId = postEsDTO.getId();
+            int[] counter = counterMap.get(postId);
+            Post post = null;
+            if (counter != null) {
+                post = isIncomplete(postEsDTO) ? stalePostMap.get(postId) : PostEsDTO.dtoToObj(postEsDTO);
+            }
+            if (post == null) {
+                deletedPostIdList.add(postId);
+                continue;
             }
+            if (post.getTags() == null) {
+                post.setTags("[]");
+            }
+            post.setThumbNum(counter[0]);
+            post.setFavourNum(counter[1]);
+            postList.add(post);
         }
-        page.setRecords(resourceList);
-        return page;
+        // db 已物理删除的数据异步从 es 清空
+        PostEsCleanupManager postEsCleanupManager = postEsCleanupManagerProvider.getIfAvailable();
+        if (!deletedPostIdList.isEmpty() && postEsCleanupManager != null) {
+            postEsCleanupManager.submit(deletedPostIdList);
+        }
+        return postList;
+    }
+
+    /**
+     * ES 文档缺少展示所需字段
+     *
+     * @param postEsDTO
+     * @return
+     */
+    private boolean isIncomplete(PostEsDTO postEsDTO) {
+        return postEsDTO.getUserId() == null || postEsDTO.getCreateTime() == null
+                || postEsDTO.getUpdateTime() == null;
     }
 
     @Override
     public PostVO getPostVO(Post post, HttpServletRequest request) {
         PostVO postVO = PostVO.objToVo(post);
-        long postId = post.getId();
         // 1. 关联查询用户信息
         Long userId = post.getUserId();
         User user = null;
@@ -236,28 +688,47 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
         UserVO userVO = userService.getUserVO(user);
         postVO.setUser(userVO);
         // 2. 已登录，获取用户点赞、收藏状态
+        fillLoginUserState(postVO, request);
+        return postVO;
+    }
+
+    @Override
+    public PostVO getPostVOById(long id, HttpServletRequest request) {
+        // 1. 帖子及作者信息走缓存
+        PostVO postVO = postVOCacheManager.getPostVO(id);
+        ThrowUtils.throwIf(postVO == null, ErrorCode.NOT_FOUND_ERROR);
+        // 2. 已登录，获取用户点赞、收藏状态
+        fillLoginUserState(postVO, request);
+        return postVO;
+    }
+
+    /**
+     * 填充当前登录用户的点赞、收藏状态
+     *
+     * @param postVO
+     * @param request
+     */
+    private void fillLoginUserState(PostVO postVO, HttpServletRequest request) {
         User loginUser = userService.getLoginUserPermitNull(request);
-        if (loginUser != null) {
-            // 获取点赞
-            QueryWrapper<PostThumb> postThumbQueryWrapper = new QueryWrapper<>();
-            postThumbQueryWrapper.in("postId", postId);
-            postThumbQueryWrapper.eq("userId", loginUser.getId());
-            PostThumb postThumb = postThumbMapper.selectOne(postThumbQueryWrapper);
-            postVO.setHasThumb(postThumb != null);
-            // 获取收藏
-            QueryWrapper<PostFavour> postFavourQueryWrapper = new QueryWrapper<>();
-            postFavourQueryWrapper.in("postId", postId);
-            postFavourQueryWrapper.eq("userId", loginUser.getId());
-            PostFavour postFavour = postFavourMapper.selectOne(postFavourQueryWrapper);
-            postVO.setHasFavour(postFavour != null);
+        if (loginUser == null) {
+            return;
         }
-        return postVO;
+        long postId = postVO.getId();
+        postVO.setHasThumb(userPostMembershipManager.hasThumb(loginUser.getId(), postId));
+        postVO.setHasFavour(userPostMembershipManager.hasFavour(loginUser.getId(), postId));
     }
 
     @Override
     public Page<PostVO> getPostVOPage(Page<Post> postPage, HttpServletRequest request) {
         List<Post> postList = postPage.getRecords();
-        Page<PostVO> postVOPage = new Page<>(postPage.getCurrent(), postPage.getSize(), postPage.getTotal());
+        Page<PostVO> postVOPage;
+        if (postPage instanceof CursorPage) {
+            CursorPage<PostVO> cursorPage = new CursorPage<>(postPage.getSize());
+            cursorPage.setNextCursor(((CursorPage<Post>) postPage).getNextCursor());
+            postVOPage = cursorPage;
+        } else {
+            postVOPage = new Page<>(postPage.getCurrent(), postPage.getSize(), postPage.getTotal());
+        }
         if (CollUtil.isEmpty(postList)) {
             return postVOPage;
         }
@@ -272,18 +743,11 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
         if (loginUser != null) {
             Set<Long> postIdSet = postList.stream().map(Post::getId).collect(Collectors.toSet());
             loginUser = userService.getLoginUser(request);
-            // 获取点赞
-            QueryWrapper<PostThumb> postThumbQueryWrapper = new QueryWrapper<>();
-            postThumbQueryWrapper.in("postId", postIdSet);
-            postThumbQueryWrapper.eq("userId", loginUser.getId());
-            List<PostThumb> postPostThumbList = postThumbMapper.selectList(postThumbQueryWrapper);
-            postPostThumbList.forEach(postPostThumb -> postIdHasThumbMap.put(postPostThumb.getPostId(), true));
-            // 获取收藏
-            QueryWrapper<PostFavour> postFavourQueryWrapper = new QueryWrapper<>();
-            postFavourQueryWrapper.in("postId", postIdSet);
-            postFavourQueryWrapper.eq("userId", loginUser.getId());
-            List<PostFavour> postFavourList = postFavourMapper.selectList(postFavourQueryWrapper);
-            postFavourList.forEach(postFavour -> postIdHasFavourMap.put(postFavour.getPostId(), true));
+            // 获取点赞、收藏（内存索引）
+            userPostMembershipManager.filterThumbed(loginUser.getId(), postIdSet)
+                    .forEach(postId -> postIdHasThumbMap.put(postId, true));
+            userPostMembershipManager.filterFavoured(loginUser.getId(), postIdSet)
+                    .forEach(postId -> postIdHasFavourMap.put(postId, true));
         }
         // 填充信息
         List<PostVO> postVOList = postList.stream().map(post -> {
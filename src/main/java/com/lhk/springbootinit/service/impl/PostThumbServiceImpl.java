@@ -1,17 +1,36 @@
 package com.lhk.springbootinit.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.lhk.springbootinit.common.ErrorCode;
 import com.lhk.springbootinit.exception.BusinessException;
+import com.lhk.springbootinit.manager.PostCounterManager;
+import com.lhk.springbootinit.manager.UserPostMembershipManager;
 import com.lhk.springbootinit.mapper.PostThumbMapper;
+import com.lhk.springbootinit.model.dto.postthumb.PostThumbBatchItem;
 import com.lhk.springbootinit.model.entity.Post;
 import com.lhk.springbootinit.model.entity.PostThumb;
 import com.lhk.springbootinit.model.entity.User;
+import com.lhk.springbootinit.model.vo.PostBatchResultVO;
 import com.lhk.springbootinit.service.PostService;
 import com.lhk.springbootinit.service.PostThumbService;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.Resource;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionUtils;
 import org.springframework.aop.framework.AopContext;
+import org.springframework.dao.DeadlockLoserDataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,6 +44,15 @@ public class PostThumbServiceImpl extends ServiceImpl<PostThumbMapper, PostThumb
     @Resource
     private PostService postService;
 
+    @Resource
+    private PostCounterManager postCounterManager;
+
+    @Resource
+    private UserPostMembershipManager userPostMembershipManager;
+
+    @Resource
+    private SqlSessionFactory sqlSessionFactory;
+
     /**
      * 点赞
      *
@@ -41,12 +69,24 @@ public class PostThumbServiceImpl extends ServiceImpl<PostThumbMapper, PostThumb
         }
         // 是否已点赞
         long userId = loginUser.getId();
-        // 每个用户串行点赞
-        // 锁必须要包裹住事务方法
+        // 依赖唯一索引保证幂等，无需加锁
         PostThumbService postThumbService = (PostThumbService) AopContext.currentProxy();
-        synchronized (String.valueOf(userId).intern()) {
-            return postThumbService.doPostThumbInner(userId, postId);
-        }
+        // 关系写入到累加增量之间不能被计数校正打断，否则会重复计入
+        return postCounterManager.executeChange(() -> {
+            int result;
+            try {
+                result = postThumbService.doPostThumbInner(userId, postId);
+            } catch (DeadlockLoserDataAccessException e) {
+                // 并发切换同一关系时可能死锁，事务已回滚，重试一次
+                result = postThumbService.doPostThumbInner(userId, postId);
+            }
+            // 事务已提交，更新关系索引并累加计数增量（刷入数据库后失效帖子缓存）
+            if (result != 0) {
+                userPostMembershipManager.onThumbChanged(userId, postId, result > 0);
+                postCounterManager.addThumbDelta(postId, result);
+            }
+            return result;
+        });
     }
 
     /**
@@ -59,40 +99,131 @@ public class PostThumbServiceImpl extends ServiceImpl<PostThumbMapper, PostThumb
     @Override
     @Transactional(rollbackFor = Exception.class)
     public int doPostThumbInner(long userId, long postId) {
-        PostThumb postThumb = new PostThumb();
-        postThumb.setUserId(userId);
-        postThumb.setPostId(postId);
-        QueryWrapper<PostThumb> thumbQueryWrapper = new QueryWrapper<>(postThumb);
-        PostThumb oldPostThumb = this.getOne(thumbQueryWrapper);
-        boolean result;
-        // 已点赞
-        if (oldPostThumb != null) {
-            result = this.remove(thumbQueryWrapper);
-            if (result) {
-                // 点赞数 - 1
-                result = postService.update()
-                        .eq("id", postId)
-                        .gt("thumbNum", 0)
-                        .setSql("thumbNum = thumbNum - 1")
-                        .update();
-                return result ? -1 : 0;
-            } else {
-                throw new BusinessException(ErrorCode.SYSTEM_ERROR);
+        // 未点赞则插入，点赞数 + 1（合并写入）；先插入避免两个删除空行的事务持有间隙锁后插入互相死锁
+        if (baseMapper.insertIgnore(userId, postId) > 0) {
+            return 1;
+        }
+        // 已点赞则删除，点赞数 - 1（合并写入）
+        if (baseMapper.deleteByUserIdAndPostId(userId, postId) > 0) {
+            return -1;
+        }
+        // 并发请求已删除，本次无变化
+        return 0;
+    }
+
+    /**
+     * 批量点赞（按期望状态设置，而非切换）
+     *
+     * @param itemList
+     * @param loginUser
+     * @return
+     */
+    @Override
+    public List<PostBatchResultVO> doPostThumbBatch(List<PostThumbBatchItem> itemList, User loginUser) {
+        // 同一帖子以最后一项为准，结果按首次出现的顺序返回
+        Map<Long, Boolean> postIdStateMap = new LinkedHashMap<>();
+        for (PostThumbBatchItem item : itemList) {
+            if (item == null || item.getPostId() == null || item.getPostId() <= 0 || item.getThumb() == null) {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR);
+            }
+            postIdStateMap.put(item.getPostId(), item.getThumb());
+        }
+        // 一次查询校验帖子是否存在
+        Set<Long> existPostIdSet = postService.listByIds(postIdStateMap.keySet()).stream()
+                .map(Post::getId)
+                .collect(Collectors.toSet());
+        List<Long> addPostIdList = new ArrayList<>();
+        List<Long> cancelPostIdList = new ArrayList<>();
+        postIdStateMap.forEach((postId, state) -> {
+            if (existPostIdSet.contains(postId)) {
+                (state ? addPostIdList : cancelPostIdList).add(postId);
             }
-        } else {
-            // 未点赞
-            result = this.save(postThumb);
-            if (result) {
-                // 点赞数 + 1
-                result = postService.update()
-                        .eq("id", postId)
-                        .setSql("thumbNum = thumbNum + 1")
-                        .update();
-                return result ? 1 : 0;
+        });
+        long userId = loginUser.getId();
+        Map<Long, Integer> postIdChangeMap = Collections.emptyMap();
+        if (!addPostIdList.isEmpty() || !cancelPostIdList.isEmpty()) {
+            PostThumbService postThumbService = (PostThumbService) AopContext.currentProxy();
+            // 关系写入到累加增量之间不能被计数校正打断，否则会重复计入
+            postIdChangeMap = postCounterManager.executeChange(() -> {
+                Map<Long, Integer> changeMap = postThumbService.doPostThumbBatchInner(userId, addPostIdList,
+                        cancelPostIdList);
+                // 事务已提交，更新关系索引并累加计数增量（合并为一条语句刷入数据库）
+                changeMap.forEach((postId, change) -> {
+                    if (change != 0) {
+                        userPostMembershipManager.onThumbChanged(userId, postId, change > 0);
+                        postCounterManager.addThumbDelta(postId, change);
+                    }
+                });
+                return changeMap;
+            });
+        }
+        List<PostBatchResultVO> resultList = new ArrayList<>(postIdStateMap.size());
+        for (Long postId : postIdStateMap.keySet()) {
+            PostBatchResultVO postBatchResultVO = new PostBatchResultVO();
+            postBatchResultVO.setPostId(postId);
+            if (!existPostIdSet.contains(postId)) {
+                postBatchResultVO.setSuccess(false);
+                postBatchResultVO.setChange(0);
+                postBatchResultVO.setMessage(ErrorCode.NOT_FOUND_ERROR.getMessage());
             } else {
-                throw new BusinessException(ErrorCode.SYSTEM_ERROR);
+                int change = postIdChangeMap.getOrDefault(postId, 0);
+                postBatchResultVO.setSuccess(true);
+                postBatchResultVO.setChange(change);
+            }
+            resultList.add(postBatchResultVO);
+        }
+        return resultList;
+    }
+
+    /**
+     * 批量点赞（内部事务方法，JDBC 批处理）
+     *
+     * @param userId
+     * @param addPostIdList
+     * @param cancelPostIdList
+     * @return 帖子 id => 计数变化
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Map<Long, Integer> doPostThumbBatchInner(long userId, List<Long> addPostIdList, List<Long> cancelPostIdList) {
+        List<Long> postIdList = new ArrayList<>(cancelPostIdList.size() + addPostIdList.size());
+        postIdList.addAll(cancelPostIdList);
+        postIdList.addAll(addPostIdList);
+        // 批量执行器：同一语句的多次执行合并为一次 JDBC 批处理，并返回每次执行的影响行数
+        SqlSession sqlSession = SqlSessionUtils.getSqlSession(sqlSessionFactory, ExecutorType.BATCH, null);
+        Set<Long> thumbedPostIdSet;
+        List<BatchResult> batchResultList;
+        try {
+            PostThumbMapper batchMapper = sqlSession.getMapper(PostThumbMapper.class);
+            // 先锁定已点赞的关系行，驱动只返回 SUCCESS_NO_INFO（如开启 rewriteBatchedStatements）时以此判断是否变化
+            thumbedPostIdSet = new HashSet<>(batchMapper.listPostIdByUserIdForUpdate(userId, postIdList));
+            for (Long postId : cancelPostIdList) {
+                batchMapper.deleteByUserIdAndPostId(userId, postId);
+            }
+            for (Long postId : addPostIdList) {
+                batchMapper.insertIgnore(userId, postId);
+            }
+            batchResultList = sqlSession.flushStatements();
+        } finally {
+            SqlSessionUtils.closeSqlSession(sqlSession, sqlSessionFactory);
+        }
+        // 按执行顺序展开影响行数，先删除后插入
+        Map<Long, Integer> postIdChangeMap = new HashMap<>();
+        int index = 0;
+        for (BatchResult batchResult : batchResultList) {
+            for (int updateCount : batchResult.getUpdateCounts()) {
+                Long postId = postIdList.get(index);
+                boolean cancel = index < cancelPostIdList.size();
+                boolean changed = updateCount == Statement.SUCCESS_NO_INFO
+                        ? cancel == thumbedPostIdSet.contains(postId)
+                        : updateCount > 0;
+                if (changed) {
+                    postIdChangeMap.put(postId, cancel ? -1 : 1);
+                }
+                index++;
             }
         }
+        return postIdChangeMap;
     }
 
 }
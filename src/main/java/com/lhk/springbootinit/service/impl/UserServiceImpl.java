@@ -281,7 +281,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     public Page<User> listUserByPageByAdmin(UserQueryRequest userQueryRequest) {
         long current = userQueryRequest.getCurrent();
         long size = userQueryRequest.getPageSize();
-        return this.page(new Page<>(current, size), this.getQueryWrapper(userQueryRequest));
+        return this.page(new Page<>(current, size, userQueryRequest.isSearchCount()),
+                this.getQueryWrapper(userQueryRequest));
     }
 
     @Override
@@ -293,7 +294,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         // 限制爬虫
         ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
         // 先得到 userPage
-        Page<User> userPage = this.page(new Page<>(current, size), this.getQueryWrapper(userQueryRequest));
+        Page<User> userPage = this.page(new Page<>(current, size, userQueryRequest.isSearchCount()),
+                this.getQueryWrapper(userQueryRequest));
         // 再封装 userVOPage
         Page<UserVO> userVOPage = new Page<>(current, size, userPage.getTotal());
         List<UserVO> userVO = this.getUserVOList(userPage.getRecords());
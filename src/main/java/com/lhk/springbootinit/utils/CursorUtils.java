@@ -0,0 +1,151 @@
+package com.lhk.springbootinit.utils;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONException;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.lhk.springbootinit.common.ErrorCode;
+import com.lhk.springbootinit.exception.BusinessException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 游标工具（游标对前端不透明，编码最后一条记录的排序字段值和 id）
+ */
+public class CursorUtils {
+
+    private static final String SEPARATOR = ",";
+
+    /**
+     * 编码游标
+     *
+     * @param sortField 排序字段
+     * @param sortValue 排序字段值（时间字段取毫秒数）
+     * @param id        记录 id
+     * @return
+     */
+    public static String encode(String sortField, long sortValue, long id) {
+        String raw = sortField + SEPARATOR + sortValue + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param cursor
+     * @param sortField 当前请求的排序字段，须与游标一致
+     * @return
+     */
+    public static Cursor decode(String cursor, String sortField) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR);
+            if (parts.length == 3 && parts[0].equals(sortField)) {
+                return new Cursor(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            }
+        } catch (IllegalArgumentException e) {
+            // 非法游标，统一按参数错误处理
+        }
+        throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标不合法");
+    }
+
+    /**
+     * 编码 ES search_after 游标
+     *
+     * @param sortField  排序字段
+     * @param sortValues 最后一条记录的排序值
+     * @param pitId      时间点 id，未使用时为 null
+     * @return
+     */
+    public static String encodeSearchAfter(String sortField, Object[] sortValues, String pitId) {
+        JSONObject json = new JSONObject();
+        json.set("f", sortField);
+        json.set("v", sortValues);
+        json.set("p", pitId);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码 ES search_after 游标
+     *
+     * @param cursor
+     * @param sortField 当前请求的排序字段，须与游标一致
+     * @return
+     */
+    public static SearchAfterCursor decodeSearchAfter(String cursor, String sortField) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            JSONObject json = JSONUtil.parseObj(raw);
+            JSONArray valueArray = json.getJSONArray("v");
+            if (sortField.equals(json.getStr("f")) && valueArray != null && !valueArray.isEmpty()) {
+                Object[] sortValues = new Object[valueArray.size()];
+                for (int i = 0; i < sortValues.length; i++) {
+                    sortValues[i] = toSortValue(valueArray.get(i));
+                }
+                return new SearchAfterCursor(sortValues, json.getStr("p"));
+            }
+        } catch (IllegalArgumentException | JSONException e) {
+            // 非法游标，统一按参数错误处理
+        }
+        throw new BusinessException(ErrorCode.PARAMS_ERROR, "游标不合法");
+    }
+
+    /**
+     * JSON 解析出的数值转为 ES 支持的排序值类型（整数为 long，小数为 double）
+     *
+     * @param value
+     * @return
+     */
+    private static Object toSortValue(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof BigInteger) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            return value;
+        }
+        throw new IllegalArgumentException("unsupported sort value " + value);
+    }
+
+    /**
+     * 解码后的游标
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Cursor {
+
+        /**
+         * 排序字段值
+         */
+        private long sortValue;
+
+        /**
+         * 记录 id
+         */
+        private long id;
+    }
+
+    /**
+     * 解码后的 ES search_after 游标
+     */
+    @Data
+    @AllArgsConstructor
+    public static class SearchAfterCursor {
+
+        /**
+         * 最后一条记录的排序值
+         */
+        private Object[] sortValues;
+
+        /**
+         * 时间点 id
+         */
+        private String pitId;
+    }
+}
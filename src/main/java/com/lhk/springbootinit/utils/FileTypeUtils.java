@@ -0,0 +1,49 @@
+package com.lhk.springbootinit.utils;
+
+import cn.hutool.core.io.FileUtil;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * 文件类型工具（内容类型只由服务端按后缀白名单确定，不信任客户端上传时声明的类型）
+ */
+public class FileTypeUtils {
+
+    /**
+     * 允许内联展示的图片后缀 => 内容类型（svg 可执行脚本，不在其中）
+     */
+    private static final Map<String, String> IMAGE_CONTENT_TYPE_MAP = new HashMap<>();
+
+    static {
+        IMAGE_CONTENT_TYPE_MAP.put("png", "image/png");
+        IMAGE_CONTENT_TYPE_MAP.put("jpg", "image/jpeg");
+        IMAGE_CONTENT_TYPE_MAP.put("jpeg", "image/jpeg");
+        IMAGE_CONTENT_TYPE_MAP.put("webp", "image/webp");
+        IMAGE_CONTENT_TYPE_MAP.put("gif", "image/gif");
+    }
+
+    /**
+     * 是否为允许的图片后缀
+     *
+     * @param fileName 文件名或路径
+     * @return
+     */
+    public static boolean isImage(String fileName) {
+        return getImageContentType(fileName) != null;
+    }
+
+    /**
+     * 按后缀获取图片内容类型
+     *
+     * @param fileName 文件名或路径
+     * @return 不在白名单中时返回 null
+     */
+    public static String getImageContentType(String fileName) {
+        String suffix = FileUtil.getSuffix(fileName);
+        if (StringUtils.isBlank(suffix)) {
+            return null;
+        }
+        return IMAGE_CONTENT_TYPE_MAP.get(suffix.toLowerCase());
+    }
+}
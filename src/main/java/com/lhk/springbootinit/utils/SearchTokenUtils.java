@@ -0,0 +1,74 @@
+package com.lhk.springbootinit.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 搜索分词工具
+ * <p>
+ * 连续的字母、数字作为一个词（转小写），中日韩文字按相邻两字切分，其余字符作为分隔符。
+ * 建索引时中日韩文字额外按单字切分，使单字查询也能命中；查询时只有单独的一个字才作为单字词
+ */
+public class SearchTokenUtils {
+
+    /**
+     * 建索引分词（中日韩文字同时输出单字和相邻两字）
+     *
+     * @param text
+     * @return 词列表（保留重复，用于统计词频）
+     */
+    public static List<String> tokenize(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * 查询分词（中日韩文字按相邻两字切分，单独的一个字成词）
+     *
+     * @param text
+     * @return 词列表
+     */
+    public static List<String> tokenizeQuery(String text) {
+        return tokenize(text, false);
+    }
+
+    private static List<String> tokenize(String text, boolean forIndex) {
+        List<String> tokenList = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokenList;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c) && !isCjk(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(text.charAt(i)) && !isCjk(text.charAt(i))) {
+                    i++;
+                }
+                tokenList.add(text.substring(start, i).toLowerCase());
+            } else if (isCjk(c)) {
+                int start = i;
+                while (i < length && isCjk(text.charAt(i))) {
+                    i++;
+                }
+                if (forIndex || i - start == 1) {
+                    for (int j = start; j < i; j++) {
+                        tokenList.add(String.valueOf(text.charAt(j)));
+                    }
+                }
+                for (int j = start; j < i - 1; j++) {
+                    tokenList.add(text.substring(j, j + 2));
+                }
+            } else {
+                i++;
+            }
+        }
+        return tokenList;
+    }
+
+    private static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,184 @@
+package com.lhk.springbootinit.controller;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.lhk.springbootinit.config.FileCacheConfig;
+import com.lhk.springbootinit.manager.FileCacheManager;
+import com.lhk.springbootinit.manager.FileStorage;
+import com.lhk.springbootinit.manager.FileStorageObject;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 文件读取接口测试（Range、协商缓存、内容类型）
+ */
+class FileControllerTest {
+
+    private static final String KEY = "/user_avatar/sha256/a.png";
+
+    private static final String CONTENT = "0123456789";
+
+    private static final String ETAG = "\"abc\"";
+
+    @TempDir
+    Path tempDir;
+
+    private FileController fileController;
+
+    private FileCacheManager fileCacheManager;
+
+    private FileStorage fileStorage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fileCacheManager = mock(FileCacheManager.class);
+        fileStorage = mock(FileStorage.class);
+        fileController = new FileController();
+        ReflectionTestUtils.setField(fileController, "fileCacheManager", fileCacheManager);
+        ReflectionTestUtils.setField(fileController, "fileStorage", fileStorage);
+        ReflectionTestUtils.setField(fileController, "fileCacheConfig", new FileCacheConfig());
+
+        File file = tempDir.resolve("a.png").toFile();
+        Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+        FileCacheManager.CachedFile cachedFile = new FileCacheManager.CachedFile();
+        cachedFile.setFile(file);
+        cachedFile.setSize(CONTENT.length());
+        cachedFile.setETag("abc");
+        // 客户端声明的类型不会被使用
+        cachedFile.setContentType("text/html");
+        when(fileCacheManager.get(KEY)).thenReturn(cachedFile);
+    }
+
+    @Test
+    void readFull() throws IOException {
+        MockHttpServletResponse response = read(KEY, null);
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertEquals(CONTENT, response.getContentAsString());
+        Assertions.assertEquals(CONTENT.length(), response.getContentLengthLong());
+        Assertions.assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        Assertions.assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+        Assertions.assertEquals("image/png", response.getContentType());
+        Assertions.assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+        Assertions.assertEquals("default-src 'none'", response.getHeader("Content-Security-Policy"));
+        Assertions.assertNull(response.getHeader(HttpHeaders.CONTENT_DISPOSITION));
+    }
+
+    @Test
+    void readClosedRange() throws IOException {
+        assertPartial("bytes=2-5", "2345", "bytes 2-5/10");
+        // 结束位置超出文件大小时截断
+        assertPartial("bytes=8-100", "89", "bytes 8-9/10");
+    }
+
+    @Test
+    void readOpenRange() throws IOException {
+        assertPartial("bytes=7-", "789", "bytes 7-9/10");
+        assertPartial("bytes=0-", CONTENT, "bytes 0-9/10");
+    }
+
+    @Test
+    void readSuffixRange() throws IOException {
+        assertPartial("bytes=-3", "789", "bytes 7-9/10");
+        // 后缀长度超出文件大小时返回全部内容
+        assertPartial("bytes=-100", CONTENT, "bytes 0-9/10");
+    }
+
+    @Test
+    void readUnsatisfiableRange() throws IOException {
+        MockHttpServletResponse response = read(KEY, "bytes=10-");
+        Assertions.assertEquals(416, response.getStatus());
+        Assertions.assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        Assertions.assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void readIgnoresUnsupportedRange() throws IOException {
+        // 多个区间、格式错误、If-Range 不匹配时返回完整内容
+        for (String range : new String[]{"bytes=0-1,4-5", "items=0-1", "bytes=5-2"}) {
+            MockHttpServletResponse response = read(KEY, range);
+            Assertions.assertEquals(200, response.getStatus(), range);
+            Assertions.assertEquals(CONTENT, response.getContentAsString(), range);
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file/read");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"old\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileController.readFile(KEY, request, response);
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertEquals(CONTENT, response.getContentAsString());
+
+        request = new MockHttpServletRequest("GET", "/file/read");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+        response = new MockHttpServletResponse();
+        fileController.readFile(KEY, request, response);
+        Assertions.assertEquals(206, response.getStatus());
+        Assertions.assertEquals("2345", response.getContentAsString());
+    }
+
+    @Test
+    void readNotModified() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file/read");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileController.readFile(KEY, request, response);
+        Assertions.assertEquals(304, response.getStatus());
+        Assertions.assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+        Assertions.assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void readNonImageAsAttachment() throws IOException {
+        String svgKey = "/user_avatar/sha256/a.svg";
+        FileStorageObject fileStorageObject = new FileStorageObject();
+        fileStorageObject.setInputStream(new ByteArrayInputStream("<svg/>".getBytes(StandardCharsets.UTF_8)));
+        fileStorageObject.setContentLength(6);
+        fileStorageObject.setETag("def");
+        fileStorageObject.setContentType("image/svg+xml");
+        // 不缓存的文件直接转发存储的内容
+        when(fileCacheManager.get(svgKey)).thenReturn(null);
+        when(fileStorage.getObject(svgKey)).thenReturn(fileStorageObject);
+
+        MockHttpServletResponse response = read(svgKey, null);
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertEquals("<svg/>", response.getContentAsString());
+        Assertions.assertEquals("application/octet-stream", response.getContentType());
+        Assertions.assertEquals("attachment", response.getHeader(HttpHeaders.CONTENT_DISPOSITION));
+        Assertions.assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+        verify(fileStorage, never()).getObject(KEY);
+    }
+
+    private void assertPartial(String range, String expectedContent, String expectedContentRange)
+            throws IOException {
+        MockHttpServletResponse response = read(KEY, range);
+        Assertions.assertEquals(206, response.getStatus(), range);
+        Assertions.assertEquals(expectedContent, response.getContentAsString(), range);
+        Assertions.assertEquals(expectedContent.length(), response.getContentLengthLong(), range);
+        Assertions.assertEquals(expectedContentRange, response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+    }
+
+    private MockHttpServletResponse read(String key, String range) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file/read");
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileController.readFile(key, request, response);
+        return response;
+    }
+}
@@ -0,0 +1,170 @@
+package com.lhk.springbootinit.manager;
+
+import com.lhk.springbootinit.config.FileStorageConfig;
+import com.lhk.springbootinit.exception.BusinessException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+
+/**
+ * 本地文件系统存储测试
+ */
+class LocalFileStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LocalFileStorage localFileStorage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FileStorageConfig fileStorageConfig = new FileStorageConfig();
+        fileStorageConfig.setLocalRoot(tempDir.toString());
+        localFileStorage = new LocalFileStorage();
+        ReflectionTestUtils.setField(localFileStorage, "fileStorageConfig", fileStorageConfig);
+        localFileStorage.init();
+    }
+
+    @Test
+    void putGetDelete() throws IOException {
+        String key = "/user_avatar/sha256/abc.png";
+        Assertions.assertFalse(localFileStorage.doesObjectExist(key));
+        String eTag = put(key, "hello");
+        Assertions.assertTrue(localFileStorage.doesObjectExist(key));
+        try (FileStorageObject fileStorageObject = localFileStorage.getObject(key)) {
+            Assertions.assertEquals("hello", read(fileStorageObject));
+            Assertions.assertEquals(5, fileStorageObject.getContentLength());
+            Assertions.assertEquals(eTag, fileStorageObject.getETag());
+            Assertions.assertEquals("image/png", fileStorageObject.getContentType());
+        }
+        Assertions.assertTrue(localFileStorage.getLocalFile(key).isFile());
+        localFileStorage.deleteObject(key);
+        Assertions.assertFalse(localFileStorage.doesObjectExist(key));
+        Assertions.assertThrows(NoSuchFileException.class, () -> localFileStorage.getObject(key));
+        Assertions.assertThrows(NoSuchFileException.class, () -> localFileStorage.getLocalFile(key));
+    }
+
+    @Test
+    void putRejectsLengthMismatch() throws IOException {
+        String key = "/post_picture/sha256/a.txt";
+        put(key, "old");
+        byte[] bytes = "new content".getBytes(StandardCharsets.UTF_8);
+        Assertions.assertThrows(IOException.class, () -> localFileStorage.putObject(key,
+                new ByteArrayInputStream(bytes), bytes.length + 1, null));
+        // 写入失败时保留原文件，且不残留临时文件
+        try (FileStorageObject fileStorageObject = localFileStorage.getObject(key)) {
+            Assertions.assertEquals("old", read(fileStorageObject));
+        }
+        assertNoTmpFile();
+    }
+
+    @Test
+    void putReplacesAtomically() throws IOException {
+        String key = "/post_picture/sha256/a.txt";
+        put(key, "version 1");
+        try (FileStorageObject oldObject = localFileStorage.getObject(key)) {
+            put(key, "v2");
+            // 替换前打开的对象仍然读到完整的旧版本
+            Assertions.assertEquals("version 1", read(oldObject));
+        }
+        try (FileStorageObject newObject = localFileStorage.getObject(key)) {
+            Assertions.assertEquals("v2", read(newObject));
+            Assertions.assertEquals(2, newObject.getContentLength());
+        }
+        Assertions.assertEquals(Collections.singletonList(key), localFileStorage.listObjects("/"));
+        assertNoTmpFile();
+    }
+
+    @Test
+    void listObjectsByPrefix() throws IOException {
+        put("/user_avatar/sha256/b.png", "b");
+        put("/user_avatar/sha256/a.png", "a");
+        put("/post_picture/sha256/c.png", "c");
+        // 未完成的分块上传不会被列出
+        String uploadId = localFileStorage.initMultipartUpload("/user_avatar/1/d.png", null);
+        uploadPart("/user_avatar/1/d.png", uploadId, 1, "d");
+
+        Assertions.assertEquals(Arrays.asList("/user_avatar/sha256/a.png", "/user_avatar/sha256/b.png"),
+                localFileStorage.listObjects("/user_avatar/"));
+        Assertions.assertEquals(3, localFileStorage.listObjects("").size());
+        Assertions.assertTrue(localFileStorage.listObjects("/generator_dist/").isEmpty());
+    }
+
+    @Test
+    void multipartUpload() throws IOException {
+        String key = "/generator_dist/1/dist.zip";
+        String uploadId = localFileStorage.initMultipartUpload(key, null);
+        // 乱序上传，重传的分块覆盖旧内容
+        uploadPart(key, uploadId, 2, "world");
+        uploadPart(key, uploadId, 1, "hi ");
+        uploadPart(key, uploadId, 1, "hello ");
+        Assertions.assertEquals(Arrays.asList(1, 2), localFileStorage.listParts(key, uploadId));
+        // 唯一键与上传 id 不匹配时拒绝
+        Assertions.assertThrows(NoSuchFileException.class,
+                () -> localFileStorage.listParts("/generator_dist/2/dist.zip", uploadId));
+
+        localFileStorage.completeMultipartUpload(key, uploadId, 11);
+        try (FileStorageObject fileStorageObject = localFileStorage.getObject(key)) {
+            Assertions.assertEquals("hello world", read(fileStorageObject));
+        }
+        // 合并后清理分块上传目录
+        Assertions.assertThrows(NoSuchFileException.class, () -> localFileStorage.listParts(key, uploadId));
+        assertNoTmpFile();
+    }
+
+    @Test
+    void multipartUploadExceedingMaxSizeAborts() throws IOException {
+        String key = "/generator_dist/1/dist.zip";
+        String uploadId = localFileStorage.initMultipartUpload(key, null);
+        uploadPart(key, uploadId, 1, "hello ");
+        uploadPart(key, uploadId, 2, "world");
+
+        Assertions.assertThrows(BusinessException.class,
+                () -> localFileStorage.completeMultipartUpload(key, uploadId, 10));
+        Assertions.assertFalse(localFileStorage.doesObjectExist(key));
+        Assertions.assertThrows(NoSuchFileException.class, () -> localFileStorage.listParts(key, uploadId));
+    }
+
+    @Test
+    void abortMultipartUpload() throws IOException {
+        String key = "/generator_dist/1/dist.zip";
+        String uploadId = localFileStorage.initMultipartUpload(key, null);
+        uploadPart(key, uploadId, 1, "hello");
+        localFileStorage.abortMultipartUpload(key, uploadId);
+        Assertions.assertThrows(NoSuchFileException.class,
+                () -> localFileStorage.completeMultipartUpload(key, uploadId, 100));
+        Assertions.assertFalse(localFileStorage.doesObjectExist(key));
+    }
+
+    private String put(String key, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return localFileStorage.putObject(key, new ByteArrayInputStream(bytes), bytes.length, null);
+    }
+
+    private void uploadPart(String key, String uploadId, int partNumber, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        localFileStorage.uploadPart(key, uploadId, partNumber, new ByteArrayInputStream(bytes), bytes.length);
+    }
+
+    private static String read(FileStorageObject fileStorageObject) throws IOException {
+        return StreamUtils.copyToString(fileStorageObject.getInputStream(), StandardCharsets.UTF_8);
+    }
+
+    private void assertNoTmpFile() throws IOException {
+        try (Stream<Path> pathStream = Files.walk(tempDir)) {
+            Assertions.assertTrue(pathStream.noneMatch(path -> path.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.lhk.springbootinit.manager;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.lhk.springbootinit.config.PostCounterConfig;
+import com.lhk.springbootinit.config.PostOutboxConfig;
+import com.lhk.springbootinit.mapper.PostMapper;
+import com.lhk.springbootinit.mapper.PostOutboxMapper;
+import com.lhk.springbootinit.model.dto.post.PostCounterDelta;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 帖子计数合并写入测试
+ */
+class PostCounterManagerTest {
+
+    private PostCounterManager postCounterManager;
+
+    private PostMapper postMapper;
+
+    private PostVOCacheManager postVOCacheManager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        postMapper = mock(PostMapper.class);
+        postVOCacheManager = mock(PostVOCacheManager.class);
+        PostOutboxConfig postOutboxConfig = mock(PostOutboxConfig.class);
+        when(postOutboxConfig.isEnabled()).thenReturn(false);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        PostCounterConfig postCounterConfig = new PostCounterConfig();
+
+        postCounterManager = new PostCounterManager();
+        ReflectionTestUtils.setField(postCounterManager, "postCounterConfig", postCounterConfig);
+        ReflectionTestUtils.setField(postCounterManager, "postMapper", postMapper);
+        ReflectionTestUtils.setField(postCounterManager, "postVOCacheManager", postVOCacheManager);
+        ReflectionTestUtils.setField(postCounterManager, "postCounterCacheManager",
+                mock(PostCounterCacheManager.class));
+        ReflectionTestUtils.setField(postCounterManager, "postOutboxConfig", postOutboxConfig);
+        ReflectionTestUtils.setField(postCounterManager, "postOutboxMapper", mock(PostOutboxMapper.class));
+        ReflectionTestUtils.setField(postCounterManager, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(postCounterManager, "keyedLockManager", mock(KeyedLockManager.class));
+        ReflectionTestUtils.setField(postCounterManager, "cacheSyncManager", mock(CacheSyncManager.class));
+        postCounterManager.init();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushMergesConcurrentDeltas() throws InterruptedException {
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            executorService.execute(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    postCounterManager.addThumbDelta(1L, 1);
+                    postCounterManager.addFavourDelta(2L, 1);
+                }
+                latch.countDown();
+            });
+        }
+        Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executorService.shutdown();
+        postCounterManager.flush();
+
+        ArgumentCaptor<List<PostCounterDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(postMapper, times(1)).batchUpdateCounter(captor.capture());
+        List<PostCounterDelta> deltaList = captor.getValue();
+        Assertions.assertEquals(2, deltaList.size());
+        for (PostCounterDelta delta : deltaList) {
+            if (delta.getPostId() == 1L) {
+                Assertions.assertEquals(threads * perThread, delta.getThumbDelta());
+                Assertions.assertEquals(0, delta.getFavourDelta());
+            } else {
+                Assertions.assertEquals(0, delta.getThumbDelta());
+                Assertions.assertEquals(threads * perThread, delta.getFavourDelta());
+            }
+        }
+        verify(postVOCacheManager).invalidate(1L);
+        verify(postVOCacheManager).invalidate(2L);
+        // 已刷入的增量不会重复写入
+        postCounterManager.flush();
+        verify(postMapper, times(1)).batchUpdateCounter(anyList());
+    }
+
+    @Test
+    void flushSkipsCancelledDeltas() {
+        postCounterManager.addThumbDelta(1L, 1);
+        postCounterManager.addThumbDelta(1L, -1);
+        postCounterManager.flush();
+        verify(postMapper, never()).batchUpdateCounter(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushRequeuesOnError() {
+        when(postMapper.batchUpdateCounter(anyList()))
+                .thenThrow(new RuntimeException("db down"))
+                .thenReturn(1);
+        postCounterManager.addThumbDelta(1L, 1);
+        postCounterManager.flush();
+        postCounterManager.addThumbDelta(1L, 1);
+        postCounterManager.flush();
+
+        ArgumentCaptor<List<PostCounterDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(postMapper, times(2)).batchUpdateCounter(captor.capture());
+        PostCounterDelta delta = captor.getAllValues().get(1).get(0);
+        Assertions.assertEquals(1L, delta.getPostId());
+        Assertions.assertEquals(2, delta.getThumbDelta());
+    }
+
+    @Test
+    void reconcileSkipsPostsWithPendingDeltas() {
+        postCounterManager.addThumbDelta(2L, 1);
+        ReflectionTestUtils.invokeMethod(postCounterManager, "reconcileBatch", Arrays.asList(1L, 2L, 3L));
+        verify(postMapper).reconcileCounter(Arrays.asList(1L, 3L));
+    }
+}
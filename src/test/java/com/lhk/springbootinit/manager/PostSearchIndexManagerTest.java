@@ -0,0 +1,214 @@
+package com.lhk.springbootinit.manager;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.lhk.springbootinit.config.PostSearchConfig;
+import com.lhk.springbootinit.constant.CommonConstant;
+import com.lhk.springbootinit.mapper.PostMapper;
+import com.lhk.springbootinit.model.dto.post.PostQueryRequest;
+import com.lhk.springbootinit.model.entity.Post;
+import com.lhk.springbootinit.model.entity.PostOutbox;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 帖子本地倒排索引测试
+ */
+class PostSearchIndexManagerTest {
+
+    private PostSearchIndexManager postSearchIndexManager;
+
+    private PostSearchConfig postSearchConfig;
+
+    private PostMapper postMapper;
+
+    private CacheSyncManager cacheSyncManager;
+
+    @BeforeEach
+    void setUp() {
+        postSearchConfig = new PostSearchConfig();
+        postMapper = mock(PostMapper.class);
+        cacheSyncManager = mock(CacheSyncManager.class);
+        postSearchIndexManager = new PostSearchIndexManager();
+        ReflectionTestUtils.setField(postSearchIndexManager, "postSearchConfig", postSearchConfig);
+        ReflectionTestUtils.setField(postSearchIndexManager, "postMapper", postMapper);
+        ReflectionTestUtils.setField(postSearchIndexManager, "cacheSyncManager", cacheSyncManager);
+    }
+
+    @Test
+    void rankByRelevance() {
+        // 标题命中的词更稀有，得分最高；内容中词频高的在前
+        postSearchIndexManager.upsert(post(1L, "java", "java"));
+        postSearchIndexManager.upsert(post(2L, "a", "java java other"));
+        postSearchIndexManager.upsert(post(3L, "b", "java other words"));
+        // 得分相同时新帖子在前
+        postSearchIndexManager.upsert(post(4L, "c", "kotlin"));
+        postSearchIndexManager.upsert(post(5L, "d", "kotlin"));
+
+        Assertions.assertEquals(Arrays.asList(1L, 2L, 3L), search("java").getRecords());
+        Assertions.assertEquals(Arrays.asList(5L, 4L), search("Kotlin").getRecords());
+        Assertions.assertTrue(search("python").getRecords().isEmpty());
+
+        // 只匹配标题
+        PostQueryRequest postQueryRequest = new PostQueryRequest();
+        postQueryRequest.setTitle("java");
+        Assertions.assertEquals(Collections.singletonList(1L),
+                postSearchIndexManager.search(postQueryRequest).getRecords());
+    }
+
+    @Test
+    void searchCjk() {
+        postSearchIndexManager.upsert(post(1L, "我家的小猫咪", "<p>喜欢晒太阳</p>"));
+        postSearchIndexManager.upsert(post(2L, "小狗", "<img src=\"cat.png\"/>"));
+
+        Assertions.assertEquals(Collections.singletonList(1L), search("猫").getRecords());
+        Assertions.assertEquals(Collections.singletonList(1L), search("太阳").getRecords());
+        // 标题越短得分越高
+        Assertions.assertEquals(Arrays.asList(2L, 1L), search("小").getRecords());
+        // 富文本标签中的内容不参与索引
+        Assertions.assertTrue(search("cat").getRecords().isEmpty());
+    }
+
+    @Test
+    void filterSortAndPage() {
+        Post post1 = post(1L, "java", "java");
+        post1.setThumbNum(3);
+        post1.setTags("[\"java\",\"后端\"]");
+        Post post2 = post(2L, "java", "java");
+        post2.setThumbNum(10);
+        post2.setTags("[\"java\"]");
+        Post post3 = post(3L, "java", "java");
+        post3.setThumbNum(5);
+        post3.setUserId(2L);
+        Arrays.asList(post1, post2, post3).forEach(postSearchIndexManager::upsert);
+
+        PostQueryRequest postQueryRequest = new PostQueryRequest();
+        postQueryRequest.setSearchText("java");
+        postQueryRequest.setSortField("thumbNum");
+        postQueryRequest.setSortOrder(CommonConstant.SORT_ORDER_DESC);
+        postQueryRequest.setPageSize(2);
+        Page<Long> page = postSearchIndexManager.search(postQueryRequest);
+        Assertions.assertEquals(3, page.getTotal());
+        Assertions.assertEquals(Arrays.asList(2L, 3L), page.getRecords());
+        postQueryRequest.setCurrent(2);
+        Assertions.assertEquals(Collections.singletonList(1L), postSearchIndexManager.search(postQueryRequest)
+                .getRecords());
+
+        postQueryRequest.setCurrent(1);
+        postQueryRequest.setTags(Collections.singletonList("java"));
+        Assertions.assertEquals(Arrays.asList(2L, 1L), postSearchIndexManager.search(postQueryRequest)
+                .getRecords());
+        postQueryRequest.setTags(null);
+        postQueryRequest.setUserId(2L);
+        Assertions.assertEquals(Collections.singletonList(3L), postSearchIndexManager.search(postQueryRequest)
+                .getRecords());
+    }
+
+    @Test
+    void removeAndUpdate() {
+        postSearchIndexManager.upsert(post(1L, "java", "java"));
+        postSearchIndexManager.upsert(post(2L, "a", "java java other"));
+        postSearchIndexManager.upsert(post(3L, "b", "java other words"));
+
+        postSearchIndexManager.remove(2L);
+        Page<Long> page = search("java");
+        Assertions.assertEquals(Arrays.asList(1L, 3L), page.getRecords());
+        Assertions.assertEquals(2, page.getTotal());
+
+        // 逻辑删除的帖子从索引移除
+        Post deletedPost = post(3L, "b", "java other words");
+        deletedPost.setIsDelete(1);
+        postSearchIndexManager.upsert(deletedPost);
+        Assertions.assertEquals(Collections.singletonList(1L), search("java").getRecords());
+        Assertions.assertTrue(search("other").getRecords().isEmpty());
+
+        // 更新后旧词不再命中
+        postSearchIndexManager.upsert(post(1L, "rust", "rust"));
+        Assertions.assertTrue(search("java").getRecords().isEmpty());
+        Assertions.assertEquals(Collections.singletonList(1L), search("rust").getRecords());
+
+        // 倒排表中不残留已移除的词
+        postSearchIndexManager.remove(1L);
+        postSearchIndexManager.remove(100L);
+        assertMetric("postCount", 0);
+        assertMetric("titleTermCount", 0);
+        assertMetric("contentTermCount", 0);
+    }
+
+    @Test
+    void overflowDisablesIndex() {
+        postSearchConfig.setLocalIndexMaxPosts(2);
+        postSearchIndexManager.upsert(post(1L, "java", "java"));
+        postSearchIndexManager.upsert(post(2L, "java", "java"));
+        // 更新已有帖子不计入上限
+        postSearchIndexManager.upsert(post(2L, "java", "java"));
+        Assertions.assertTrue(postSearchIndexManager.isEnabled());
+
+        postSearchIndexManager.upsert(post(3L, "java", "java"));
+        Assertions.assertFalse(postSearchIndexManager.isEnabled());
+        assertMetric("postCount", 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void buildAndPublishChanges() {
+        PostOutbox postOutbox = new PostOutbox();
+        postOutbox.setPostId(1L);
+        // 未就绪时跳过变更事件
+        postSearchIndexManager.onPostChanged(Collections.singletonList(postOutbox));
+        verify(cacheSyncManager, never()).publish(anyString(), anyString());
+
+        when(postMapper.selectList(any())).thenReturn(Arrays.asList(post(1L, "java", "java"),
+                post(2L, "go", "go")), Collections.emptyList());
+        Assertions.assertTrue(postSearchIndexManager.build());
+        Assertions.assertTrue(postSearchIndexManager.isReady());
+        Assertions.assertEquals(Collections.singletonList(1L), search("java").getRecords());
+
+        postSearchIndexManager.onPostChanged(Arrays.asList(postOutbox, postOutbox));
+        verify(cacheSyncManager).publish("post:search:index:sync", "1");
+    }
+
+    @Test
+    void buildFailureClearsIndex() {
+        when(postMapper.selectList(any())).thenReturn(Collections.singletonList(post(1L, "java", "java")))
+                .thenThrow(new IllegalStateException("db down"));
+        Assertions.assertFalse(postSearchIndexManager.build());
+        Assertions.assertFalse(postSearchIndexManager.isReady());
+        assertMetric("postCount", 0);
+    }
+
+    private Page<Long> search(String searchText) {
+        PostQueryRequest postQueryRequest = new PostQueryRequest();
+        postQueryRequest.setSearchText(searchText);
+        return postSearchIndexManager.search(postQueryRequest);
+    }
+
+    private void assertMetric(String name, Object expected) {
+        Assertions.assertEquals(expected, postSearchIndexManager.getMetrics().get(name), name);
+    }
+
+    private static Post post(long id, String title, String content) {
+        Post post = new Post();
+        post.setId(id);
+        post.setTitle(title);
+        post.setContent(content);
+        post.setUserId(1L);
+        post.setThumbNum(0);
+        post.setFavourNum(0);
+        post.setCreateTime(new Date(id));
+        post.setUpdateTime(new Date(id));
+        post.setIsDelete(0);
+        return post;
+    }
+}
@@ -0,0 +1,154 @@
+package com.lhk.springbootinit.manager;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import cn.hutool.cache.impl.LRUCache;
+import com.lhk.springbootinit.config.PostCacheConfig;
+import com.lhk.springbootinit.mapper.PostFavourMapper;
+import com.lhk.springbootinit.mapper.PostThumbMapper;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 用户点赞、收藏关系索引测试
+ */
+class UserPostMembershipManagerTest {
+
+    private static final long USER_ID = 1L;
+
+    private UserPostMembershipManager userPostMembershipManager;
+
+    private PostThumbMapper postThumbMapper;
+
+    private PostFavourMapper postFavourMapper;
+
+    private CacheSyncManager cacheSyncManager;
+
+    @BeforeEach
+    void setUp() {
+        postThumbMapper = mock(PostThumbMapper.class);
+        postFavourMapper = mock(PostFavourMapper.class);
+        cacheSyncManager = mock(CacheSyncManager.class);
+        when(postThumbMapper.selectObjs(any())).thenReturn(Arrays.<Object>asList(5L, 1L, 3L));
+        when(postFavourMapper.selectObjs(any())).thenReturn(Collections.<Object>singletonList(3));
+
+        userPostMembershipManager = new UserPostMembershipManager();
+        ReflectionTestUtils.setField(userPostMembershipManager, "postCacheConfig", new PostCacheConfig());
+        ReflectionTestUtils.setField(userPostMembershipManager, "postThumbMapper", postThumbMapper);
+        ReflectionTestUtils.setField(userPostMembershipManager, "postFavourMapper", postFavourMapper);
+        ReflectionTestUtils.setField(userPostMembershipManager, "cacheSyncManager", cacheSyncManager);
+        userPostMembershipManager.init();
+    }
+
+    @Test
+    void loadSortedAndFilter() {
+        Assertions.assertArrayEquals(new long[]{1L, 3L, 5L}, thumbPostIds());
+        Assertions.assertTrue(userPostMembershipManager.hasThumb(USER_ID, 3L));
+        Assertions.assertFalse(userPostMembershipManager.hasThumb(USER_ID, 4L));
+        Assertions.assertTrue(userPostMembershipManager.hasFavour(USER_ID, 3L));
+        Assertions.assertEquals(new HashSet<>(Arrays.asList(1L, 5L)),
+                userPostMembershipManager.filterThumbed(USER_ID, Arrays.asList(1L, 2L, 5L, null)));
+        Assertions.assertEquals(Collections.singleton(3L),
+                userPostMembershipManager.filterFavoured(USER_ID, Arrays.asList(1L, 3L)));
+        // 只加载一次
+        verify(postThumbMapper, times(1)).selectObjs(any());
+    }
+
+    @Test
+    void insertKeepsSorted() {
+        userPostMembershipManager.hasThumb(USER_ID, 1L);
+        userPostMembershipManager.onThumbChanged(USER_ID, 0L, true);
+        userPostMembershipManager.onThumbChanged(USER_ID, 4L, true);
+        userPostMembershipManager.onThumbChanged(USER_ID, 9L, true);
+        Assertions.assertArrayEquals(new long[]{0L, 1L, 3L, 4L, 5L, 9L}, thumbPostIds());
+        // 重复插入不变
+        userPostMembershipManager.onThumbChanged(USER_ID, 4L, true);
+        Assertions.assertArrayEquals(new long[]{0L, 1L, 3L, 4L, 5L, 9L}, thumbPostIds());
+        Assertions.assertTrue(userPostMembershipManager.hasThumb(USER_ID, 4L));
+    }
+
+    @Test
+    void removeKeepsSorted() {
+        userPostMembershipManager.hasThumb(USER_ID, 1L);
+        userPostMembershipManager.onThumbChanged(USER_ID, 3L, false);
+        Assertions.assertArrayEquals(new long[]{1L, 5L}, thumbPostIds());
+        // 不存在时不变
+        userPostMembershipManager.onThumbChanged(USER_ID, 4L, false);
+        Assertions.assertArrayEquals(new long[]{1L, 5L}, thumbPostIds());
+        userPostMembershipManager.onThumbChanged(USER_ID, 5L, false);
+        userPostMembershipManager.onThumbChanged(USER_ID, 1L, false);
+        Assertions.assertArrayEquals(new long[0], thumbPostIds());
+        Assertions.assertFalse(userPostMembershipManager.hasThumb(USER_ID, 1L));
+
+        userPostMembershipManager.onFavourChanged(USER_ID, 3L, false);
+        userPostMembershipManager.onFavourChanged(USER_ID, 2L, true);
+        Assertions.assertFalse(userPostMembershipManager.hasFavour(USER_ID, 3L));
+        Assertions.assertTrue(userPostMembershipManager.hasFavour(USER_ID, 2L));
+        verify(postFavourMapper, times(1)).selectObjs(any());
+    }
+
+    @Test
+    void changeDuringLoadSkipsCache() {
+        // 加载期间发生变更，本次结果不入缓存
+        when(postThumbMapper.selectObjs(any())).thenAnswer(invocation -> {
+            userPostMembershipManager.onThumbChanged(USER_ID, 7L, true);
+            return Arrays.<Object>asList(5L, 1L, 3L);
+        }).thenReturn(Arrays.<Object>asList(7L, 5L, 1L, 3L));
+        Assertions.assertFalse(userPostMembershipManager.hasThumb(USER_ID, 7L));
+        Assertions.assertTrue(userPostMembershipManager.hasThumb(USER_ID, 7L));
+        Assertions.assertTrue(userPostMembershipManager.hasThumb(USER_ID, 7L));
+        verify(postThumbMapper, times(2)).selectObjs(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void invalidateFromOtherNode() {
+        ArgumentCaptor<Consumer<String>> listenerCaptor = ArgumentCaptor.forClass(Consumer.class);
+        verify(cacheSyncManager).subscribe(eq("post:membership:invalidate"), listenerCaptor.capture());
+        Consumer<String> listener = listenerCaptor.getValue();
+        userPostMembershipManager.hasThumb(USER_ID, 1L);
+
+        // 本节点的变更直接更新，忽略自己发出的失效消息
+        userPostMembershipManager.onThumbChanged(USER_ID, 2L, true);
+        ArgumentCaptor<String> messageCaptor = ArgumentCaptor.forClass(String.class);
+        verify(cacheSyncManager).publish(eq("post:membership:invalidate"), messageCaptor.capture());
+        listener.accept(messageCaptor.getValue());
+        Assertions.assertTrue(userPostMembershipManager.hasThumb(USER_ID, 2L));
+        verify(postThumbMapper, times(1)).selectObjs(any());
+
+        // 其他节点的变更使缓存失效，下次重新加载
+        listener.accept("otherNode:" + USER_ID);
+        Assertions.assertFalse(userPostMembershipManager.hasThumb(USER_ID, 2L));
+        verify(postThumbMapper, times(2)).selectObjs(any());
+    }
+
+    @Test
+    void changeWithoutCacheOnlyPublishes() {
+        userPostMembershipManager.onThumbChanged(USER_ID, 2L, true);
+        verify(cacheSyncManager).publish(eq("post:membership:invalidate"), anyString());
+        verify(postThumbMapper, never()).selectObjs(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private long[] thumbPostIds() {
+        userPostMembershipManager.hasThumb(USER_ID, 0L);
+        LRUCache<Long, Object> membershipCache = (LRUCache<Long, Object>) ReflectionTestUtils.getField(
+                userPostMembershipManager, "membershipCache");
+        Object membership = membershipCache.get(USER_ID, false);
+        return (long[]) ReflectionTestUtils.getField(membership, "thumbPostIds");
+    }
+}
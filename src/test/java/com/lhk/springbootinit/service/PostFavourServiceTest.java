@@ -31,8 +31,11 @@ class PostFavourServiceTest {
 
     @Test
     void doPostFavour() {
+        // 连续两次操作互为撤销：一次 +1、一次 -1
         int i = postFavourService.doPostFavour(1L, loginUser);
-        Assertions.assertTrue(i >= 0);
+        int j = postFavourService.doPostFavour(1L, loginUser);
+        Assertions.assertEquals(1, Math.abs(i));
+        Assertions.assertEquals(0, i + j);
     }
 
     @Test
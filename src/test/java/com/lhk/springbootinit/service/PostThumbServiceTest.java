@@ -25,7 +25,10 @@ class PostThumbServiceTest {
 
     @Test
     void doPostThumb() {
+        // 连续两次操作互为撤销：一次 +1、一次 -1
         int i = postThumbService.doPostThumb(1L, loginUser);
-        Assertions.assertTrue(i >= 0);
+        int j = postThumbService.doPostThumb(1L, loginUser);
+        Assertions.assertEquals(1, Math.abs(i));
+        Assertions.assertEquals(0, i + j);
     }
 }
@@ -0,0 +1,73 @@
+package com.lhk.springbootinit.utils;
+
+import com.lhk.springbootinit.common.ErrorCode;
+import com.lhk.springbootinit.exception.BusinessException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 游标工具测试
+ */
+class CursorUtilsTest {
+
+    @Test
+    void encodeDecode() {
+        String cursor = CursorUtils.encode("createTime", 1700000000000L, 42L);
+        // 游标可直接放在 url 中
+        Assertions.assertTrue(cursor.matches("[A-Za-z0-9_-]+"));
+        CursorUtils.Cursor decoded = CursorUtils.decode(cursor, "createTime");
+        Assertions.assertEquals(1700000000000L, decoded.getSortValue());
+        Assertions.assertEquals(42L, decoded.getId());
+    }
+
+    @Test
+    void decodeRejectsMismatchedSortField() {
+        String cursor = CursorUtils.encode("createTime", 1700000000000L, 42L);
+        assertInvalid(() -> CursorUtils.decode(cursor, "updateTime"));
+        assertInvalid(() -> CursorUtils.decode(cursor, null));
+    }
+
+    @Test
+    void decodeRejectsTamperedCursor() {
+        assertInvalid(() -> CursorUtils.decode("not base64!", "id"));
+        assertInvalid(() -> CursorUtils.decode(encodeRaw("id,1"), "id"));
+        assertInvalid(() -> CursorUtils.decode(encodeRaw("id,1,2,3"), "id"));
+        assertInvalid(() -> CursorUtils.decode(encodeRaw("id,abc,2"), "id"));
+        assertInvalid(() -> CursorUtils.decode(encodeRaw("id,1,"), "id"));
+    }
+
+    @Test
+    void encodeDecodeSearchAfter() {
+        Object[] sortValues = {12.5D, 1700000000000L, 7, "abc"};
+        String cursor = CursorUtils.encodeSearchAfter("_score", sortValues, "pit-1");
+        CursorUtils.SearchAfterCursor decoded = CursorUtils.decodeSearchAfter(cursor, "_score");
+        // 整数统一为 long，小数为 double
+        Assertions.assertArrayEquals(new Object[]{12.5D, 1700000000000L, 7L, "abc"}, decoded.getSortValues());
+        Assertions.assertEquals("pit-1", decoded.getPitId());
+
+        String noPitCursor = CursorUtils.encodeSearchAfter("createTime", new Object[]{1L}, null);
+        Assertions.assertNull(CursorUtils.decodeSearchAfter(noPitCursor, "createTime").getPitId());
+    }
+
+    @Test
+    void decodeSearchAfterRejectsInvalidCursor() {
+        String cursor = CursorUtils.encodeSearchAfter("_score", new Object[]{1.5D, 2L}, null);
+        assertInvalid(() -> CursorUtils.decodeSearchAfter(cursor, "createTime"));
+        assertInvalid(() -> CursorUtils.decodeSearchAfter("not base64!", "_score"));
+        assertInvalid(() -> CursorUtils.decodeSearchAfter(encodeRaw("{\"f\":\"_score\"}"), "_score"));
+        assertInvalid(() -> CursorUtils.decodeSearchAfter(encodeRaw("{\"f\":\"_score\",\"v\":[]}"), "_score"));
+        assertInvalid(() -> CursorUtils.decodeSearchAfter(encodeRaw("{\"f\":\"_score\",\"v\":[{}]}"), "_score"));
+        assertInvalid(() -> CursorUtils.decodeSearchAfter(encodeRaw("[1,2]"), "_score"));
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertInvalid(Runnable runnable) {
+        BusinessException e = Assertions.assertThrows(BusinessException.class, runnable::run);
+        Assertions.assertEquals(ErrorCode.PARAMS_ERROR.getCode(), e.getCode());
+    }
+}
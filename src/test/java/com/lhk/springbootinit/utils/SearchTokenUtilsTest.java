@@ -0,0 +1,48 @@
+package com.lhk.springbootinit.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 搜索分词工具测试
+ */
+class SearchTokenUtilsTest {
+
+    @Test
+    void tokenizeLetterAndDigit() {
+        Assertions.assertEquals(Arrays.asList("spring", "boot2", "java", "8"),
+                SearchTokenUtils.tokenizeQuery("Spring-Boot2, Java 8!"));
+        Assertions.assertEquals(Collections.emptyList(), SearchTokenUtils.tokenizeQuery(" ,.! "));
+        Assertions.assertEquals(Collections.emptyList(), SearchTokenUtils.tokenize(null));
+        Assertions.assertEquals(Collections.emptyList(), SearchTokenUtils.tokenizeQuery(""));
+    }
+
+    @Test
+    void tokenizeQueryCjkBigram() {
+        Assertions.assertEquals(Arrays.asList("小猫", "猫咪"), SearchTokenUtils.tokenizeQuery("小猫咪"));
+        // 单独的一个字成词
+        Assertions.assertEquals(Collections.singletonList("猫"), SearchTokenUtils.tokenizeQuery("猫"));
+        Assertions.assertEquals(Arrays.asList("猫", "狗"), SearchTokenUtils.tokenizeQuery("猫 狗"));
+        // 中日韩文字与字母、数字之间切开
+        Assertions.assertEquals(Arrays.asList("java", "教程", "2"), SearchTokenUtils.tokenizeQuery("Java教程2"));
+    }
+
+    @Test
+    void tokenizeIndexCjkUnigramAndBigram() {
+        Assertions.assertEquals(Arrays.asList("小", "猫", "咪", "小猫", "猫咪"), SearchTokenUtils.tokenize("小猫咪"));
+        Assertions.assertEquals(Collections.singletonList("猫"), SearchTokenUtils.tokenize("猫"));
+        Assertions.assertEquals(Arrays.asList("日", "本", "日本", "か", "な", "かな"),
+                SearchTokenUtils.tokenize("日本 かな"));
+    }
+
+    @Test
+    void everyQueryTermIsIndexed() {
+        String text = "我家的小猫咪喜欢晒太阳 cat";
+        for (String query : Arrays.asList("猫", "小猫咪", "太阳", "晒", "CAT")) {
+            Assertions.assertTrue(SearchTokenUtils.tokenize(text).containsAll(SearchTokenUtils.tokenizeQuery(query)),
+                    query);
+        }
+    }
+}